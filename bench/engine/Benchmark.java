@@ -0,0 +1,58 @@
+package engine;
+
+/**
+ * Operation measured by the benchmark runner. Setup and tear down run
+ * around every invocation, outside the measured time.
+ */
+abstract class Benchmark {
+
+	/** Name the results are reported under. */
+	private final String name;
+
+	/**
+	 * Constructor, names the benchmark.
+	 *
+	 * @param name
+	 *            Name the results are reported under.
+	 */
+	Benchmark(final String name) {
+		this.name = name;
+	}
+
+	/**
+	 * Prepares an invocation, not measured.
+	 *
+	 * @throws Exception
+	 *             When the benchmark can't be prepared.
+	 */
+	void setup() throws Exception {
+	}
+
+	/**
+	 * Runs the measured operations once.
+	 *
+	 * @return Number of operations run, the time is reported per
+	 *         operation.
+	 * @throws Exception
+	 *             When the operations fail.
+	 */
+	abstract int run() throws Exception;
+
+	/**
+	 * Cleans up after an invocation, not measured.
+	 *
+	 * @throws Exception
+	 *             When the benchmark can't be cleaned up.
+	 */
+	void tearDown() throws Exception {
+	}
+
+	/**
+	 * Getter for the benchmark name.
+	 *
+	 * @return Name the results are reported under.
+	 */
+	final String getName() {
+		return this.name;
+	}
+}
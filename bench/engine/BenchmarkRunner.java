@@ -0,0 +1,303 @@
+package engine;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Runs the engine benchmarks in the manner of JMH average time mode: warmup
+ * iterations to let the JIT settle, then measured iterations of a fixed
+ * length, reporting the mean time per operation with its 99.9% confidence
+ * interval. Results can be written as JSON in JMH's result layout, and
+ * compared against the JSON of a baseline run.
+ *
+ * Usage: BenchmarkRunner [--filter regex] [--warmup n] [--iterations n]
+ * [--time ms] [--json file] [--baseline file] [--threshold percent]
+ *
+ * Exits with 1 when a benchmark is slower than the baseline by more than the
+ * threshold, beyond the error of both runs.
+ */
+public final class BenchmarkRunner {
+
+	/** Student's t at 99.9% confidence, two sided, by degrees of freedom. */
+	private static final double[] T_999 = { 636.619, 31.599, 12.924, 8.610,
+			6.869, 5.959, 5.408, 5.041, 4.781, 4.587, 4.437, 4.318, 4.221, 4.140,
+			4.073, 4.015, 3.965, 3.922, 3.883, 3.850, 3.819, 3.792, 3.768, 3.745,
+			3.725, 3.707, 3.690, 3.674, 3.659, 3.646 };
+	/** Student's t at 99.9% confidence past the table. */
+	private static final double T_999_LIMIT = 3.291;
+	/** Score and error of a result in baseline JSON. */
+	private static final Pattern BASELINE_RESULT = Pattern.compile(
+			"\"benchmark\"\\s*:\\s*\"([^\"]+)\".*?\"score\"\\s*:\\s*([-0-9.eE+]+)"
+					+ "\\s*,\\s*\"scoreError\"\\s*:\\s*([-0-9.eE+]+|\"NaN\")",
+			Pattern.DOTALL);
+
+	/** Sink of benchmark results, so the JIT can't drop their work. */
+	static volatile long sink;
+
+	/** Warmup iterations per benchmark. */
+	private int warmupIterations = 5;
+	/** Measured iterations per benchmark. */
+	private int measurementIterations = 10;
+	/** Length of an iteration. */
+	private long iterationNanos = 200000000L;
+
+	/**
+	 * Constructor, not called from outside.
+	 */
+	private BenchmarkRunner() {
+
+	}
+
+	/**
+	 * Runs the benchmarks from the command line.
+	 *
+	 * @param args
+	 *            Options, see the class description.
+	 * @throws Exception
+	 *             When a benchmark fails.
+	 */
+	public static void main(final String[] args) throws Exception {
+		System.setProperty("java.awt.headless", "true");
+
+		BenchmarkRunner runner = new BenchmarkRunner();
+		Pattern filter = null;
+		Path json = null;
+		Path baseline = null;
+		double threshold = 10;
+		try {
+			for (int i = 0; i < args.length; i++) {
+				switch (args[i]) {
+					case "--filter":
+						filter = Pattern.compile(args[++i]);
+						break;
+					case "--warmup":
+						runner.warmupIterations = Integer.parseInt(args[++i]);
+						break;
+					case "--iterations":
+						runner.measurementIterations = Math.max(2, Integer.parseInt(args[++i]));
+						break;
+					case "--time":
+						runner.iterationNanos = Long.parseLong(args[++i]) * 1000000L;
+						break;
+					case "--json":
+						json = Paths.get(args[++i]);
+						break;
+					case "--baseline":
+						baseline = Paths.get(args[++i]);
+						break;
+					case "--threshold":
+						threshold = Double.parseDouble(args[++i]);
+						break;
+					default:
+						throw new IllegalArgumentException("Unknown option " + args[i]);
+				}
+			}
+		} catch (RuntimeException e) {
+			System.err.println("Invalid arguments: " + e.getMessage());
+			System.err.println("Usage: BenchmarkRunner [--filter regex] [--warmup n]"
+					+ " [--iterations n] [--time ms] [--json file] [--baseline file]"
+					+ " [--threshold percent]");
+			System.exit(2);
+		}
+
+		Map<String, double[]> baselineScores = baseline != null
+				? readBaseline(baseline) : new HashMap<String, double[]>();
+
+		List<Result> results = new ArrayList<Result>();
+		boolean regressed = false;
+		System.out.printf("%-36s %14s %12s %10s%n", "Benchmark", "Score", "Error", "Baseline");
+		for (Benchmark benchmark : EngineBenchmarks.all()) {
+			if (filter != null && !filter.matcher(benchmark.getName()).find())
+				continue;
+			Result result = runner.measure(benchmark);
+			results.add(result);
+
+			String change = "";
+			double[] base = baselineScores.get(result.name);
+			if (base != null) {
+				double percent = (result.score / base[0] - 1) * 100;
+				change = String.format(Locale.ROOT, "%+.1f%%", percent);
+				// Slower only counts when the confidence intervals don't overlap.
+				if (percent > threshold && result.score - result.error > base[0] + base[1]) {
+					change += " SLOWER";
+					regressed = true;
+				}
+			}
+			System.out.printf(Locale.ROOT, "%-36s %11.1f ns %9.1f ns %10s%n",
+					result.name, result.score, result.error, change);
+		}
+
+		if (json != null) {
+			writeJson(json, results, runner);
+			System.out.println("Results written to " + json + ".");
+		}
+		System.exit(regressed ? 1 : 0);
+	}
+
+	/**
+	 * Runs the warmup and measured iterations of a benchmark.
+	 *
+	 * @param benchmark
+	 *            Benchmark to run.
+	 * @return Time per operation of the benchmark.
+	 * @throws Exception
+	 *             When the benchmark fails.
+	 */
+	private Result measure(final Benchmark benchmark) throws Exception {
+		for (int i = 0; i < this.warmupIterations; i++)
+			iterate(benchmark);
+		double[] samples = new double[this.measurementIterations];
+		for (int i = 0; i < samples.length; i++)
+			samples[i] = iterate(benchmark);
+
+		double mean = 0;
+		for (double sample : samples)
+			mean += sample;
+		mean /= samples.length;
+		double variance = 0;
+		for (double sample : samples)
+			variance += (sample - mean) * (sample - mean);
+		variance /= samples.length - 1;
+		int freedom = samples.length - 1;
+		double t = freedom <= T_999.length ? T_999[freedom - 1] : T_999_LIMIT;
+		double error = t * Math.sqrt(variance / samples.length);
+		return new Result(benchmark.getName(), mean, error, samples);
+	}
+
+	/**
+	 * Invokes a benchmark for the length of an iteration.
+	 *
+	 * @param benchmark
+	 *            Benchmark to run.
+	 * @return Mean time per operation over the iteration, in nanoseconds.
+	 * @throws Exception
+	 *             When the benchmark fails.
+	 */
+	private double iterate(final Benchmark benchmark) throws Exception {
+		long measured = 0;
+		long operations = 0;
+		long end = System.nanoTime() + this.iterationNanos;
+		do {
+			benchmark.setup();
+			long start = System.nanoTime();
+			int ops = benchmark.run();
+			measured += System.nanoTime() - start;
+			operations += ops;
+			benchmark.tearDown();
+		} while (System.nanoTime() < end);
+		return (double) measured / Math.max(1, operations);
+	}
+
+	/**
+	 * Reads the scores of a baseline run.
+	 *
+	 * @param file
+	 *            JSON written by an earlier run.
+	 * @return Score and error of each benchmark, by name.
+	 * @throws IOException
+	 *             When the baseline can't be read.
+	 */
+	private static Map<String, double[]> readBaseline(final Path file) throws IOException {
+		String text = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+		Map<String, double[]> scores = new HashMap<String, double[]>();
+		Matcher matcher = BASELINE_RESULT.matcher(text);
+		while (matcher.find()) {
+			String error = matcher.group(3);
+			scores.put(matcher.group(1), new double[] { Double.parseDouble(matcher.group(2)),
+					error.startsWith("\"") ? 0 : Double.parseDouble(error) });
+		}
+		return scores;
+	}
+
+	/**
+	 * Writes results as JSON, in JMH's result layout so JMH tooling can
+	 * read them.
+	 *
+	 * @param file
+	 *            Destination file.
+	 * @param results
+	 *            Results to write.
+	 * @param runner
+	 *            Runner the results were measured with.
+	 * @throws IOException
+	 *             When the file can't be written.
+	 */
+	private static void writeJson(final Path file, final List<Result> results,
+			final BenchmarkRunner runner) throws IOException {
+		StringBuilder out = new StringBuilder("[\n");
+		for (int i = 0; i < results.size(); i++) {
+			Result result = results.get(i);
+			out.append("    {\n");
+			out.append("        \"benchmark\" : \"").append(result.name).append("\",\n");
+			out.append("        \"mode\" : \"avgt\",\n");
+			out.append("        \"threads\" : 1,\n");
+			out.append("        \"forks\" : 1,\n");
+			out.append("        \"jvm\" : \"").append(escape(System.getProperty("java.home"))).append("\",\n");
+			out.append("        \"jdkVersion\" : \"").append(System.getProperty("java.version")).append("\",\n");
+			out.append("        \"warmupIterations\" : ").append(runner.warmupIterations).append(",\n");
+			out.append("        \"warmupTime\" : \"").append(runner.iterationNanos / 1000000L).append(" ms\",\n");
+			out.append("        \"measurementIterations\" : ").append(runner.measurementIterations).append(",\n");
+			out.append("        \"measurementTime\" : \"").append(runner.iterationNanos / 1000000L).append(" ms\",\n");
+			out.append("        \"primaryMetric\" : {\n");
+			out.append("            \"score\" : ").append(number(result.score)).append(",\n");
+			out.append("            \"scoreError\" : ").append(number(result.error)).append(",\n");
+			out.append("            \"scoreUnit\" : \"ns/op\",\n");
+			out.append("            \"rawData\" : [\n                [\n");
+			for (int s = 0; s < result.samples.length; s++) {
+				out.append("                    ").append(number(result.samples[s]))
+						.append(s + 1 < result.samples.length ? ",\n" : "\n");
+			}
+			out.append("                ]\n            ]\n        }\n");
+			out.append(i + 1 < results.size() ? "    },\n" : "    }\n");
+		}
+		out.append("]\n");
+		Files.write(file, out.toString().getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Formats a number for JSON, which has no NaN.
+	 */
+	private static String number(final double value) {
+		return Double.isNaN(value) ? "\"NaN\"" : String.format(Locale.ROOT, "%.3f", value);
+	}
+
+	/**
+	 * Escapes backslashes and quotes for a JSON string.
+	 */
+	private static String escape(final String text) {
+		return text.replace("\\", "\\\\").replace("\"", "\\\"");
+	}
+
+	/**
+	 * Measured time per operation of a benchmark.
+	 */
+	private static final class Result {
+
+		/** Benchmark name. */
+		final String name;
+		/** Mean time per operation, in nanoseconds. */
+		final double score;
+		/** Half width of the 99.9% confidence interval of the score. */
+		final double error;
+		/** Time per operation of each measured iteration. */
+		final double[] samples;
+
+		Result(final String name, final double score, final double error,
+				final double[] samples) {
+			this.name = name;
+			this.score = score;
+			this.error = error;
+			this.samples = samples;
+		}
+	}
+}
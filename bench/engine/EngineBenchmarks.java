@@ -0,0 +1,346 @@
+package engine;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+
+import entity.Bullet;
+import entity.BulletPool;
+import entity.EnemyShip;
+import entity.EnemyShipFormation;
+import entity.Entity;
+import entity.Item;
+import entity.ItemPool;
+import entity.Ship;
+import screen.GameScreen;
+import screen.HeadlessDriver;
+import screen.Screen;
+
+/**
+ * Benchmarks of the engine and entity hot paths. Game code runs as in the
+ * headless simulation: on simulated time, without sound, logging only
+ * warnings.
+ */
+final class EngineBenchmarks {
+
+	/** Updates per game screen invocation. */
+	private static final int GAME_TICKS = 600;
+	/** Updates per formation invocation. */
+	private static final int FORMATION_UPDATES = 100;
+	/** Passes per formation iteration invocation. */
+	private static final int FORMATION_PASSES = 100;
+	/** Drops rolled per invocation. */
+	private static final int DROP_ROLLS = 30;
+	/** Bullets taken from the pool at once. */
+	private static final int POOLED_BULLETS = 64;
+	/** Entities drawn per invocation. */
+	private static final int DRAWN_ENTITIES = 300;
+	/** Seed of the game randomness of every invocation. */
+	private static final long SEED = 1;
+
+	/** Simulated game time. */
+	private static final TickClock CLOCK = new TickClock(HeadlessSimulation.TICK_NANOS,
+			HeadlessSimulation.GAME_START_NANOS);
+
+	/**
+	 * Constructor, not called.
+	 */
+	private EngineBenchmarks() {
+
+	}
+
+	/**
+	 * Sets up the game like the headless simulation and lists every
+	 * benchmark.
+	 *
+	 * @return Benchmarks, in the order they run.
+	 * @throws Exception
+	 *             When the game data can't be loaded.
+	 */
+	static List<Benchmark> all() throws Exception {
+		Core.getLogger().setLevel(Level.WARNING);
+		SoundManager.setEnabled(false);
+		Core.setClock(CLOCK);
+
+		final List<GameSettings> gameSettings = GameSettings.getGameSettings();
+		final GameSettings largestLevel = largest(gameSettings);
+		// Anything drawn or updated needs a screen to measure against.
+		final Screen screen = new Screen(Core.WIDTH, Core.HEIGHT, Core.FPS);
+
+		List<Benchmark> benchmarks = new ArrayList<Benchmark>();
+
+		// Whole updates of a busy level: movement, shooting and collisions.
+		benchmarks.add(new Benchmark("GameScreen.update") {
+			private final TickDriver driver = new TickDriver();
+			private GameScreen gameScreen;
+
+			@Override
+			void setup() {
+				CLOCK.restart();
+				Core.startGame(SEED);
+				this.gameScreen = new GameScreen(new GameState(1, Core.MAX_LIVES, true, 0),
+						largestLevel, false, Core.WIDTH, Core.HEIGHT, Core.FPS,
+						Ship.ShipType.NORMAL, Ship.ShipType.NORMAL, new AchievementManager());
+				this.gameScreen.initialize();
+				this.driver.ticks = 0;
+				Screen.setHeadlessDriver(this.driver);
+			}
+
+			@Override
+			int run() {
+				this.gameScreen.run();
+				BenchmarkRunner.sink += this.gameScreen.getGameState().getScore();
+				return this.driver.ticks;
+			}
+
+			@Override
+			void tearDown() {
+				Screen.setHeadlessDriver(null);
+				InputManager.resetKeys();
+			}
+		});
+
+		benchmarks.add(new Benchmark("EnemyShipFormation.update") {
+			private EnemyShipFormation formation;
+
+			@Override
+			void setup() {
+				this.formation = new EnemyShipFormation(largestLevel);
+				this.formation.attach(screen);
+			}
+
+			@Override
+			int run() {
+				for (int i = 0; i < FORMATION_UPDATES; i++) {
+					CLOCK.tick();
+					this.formation.update();
+				}
+				return FORMATION_UPDATES;
+			}
+		});
+
+		benchmarks.add(new Benchmark("EnemyShipFormation.iterator") {
+			private final EnemyShipFormation formation = new EnemyShipFormation(largestLevel);
+
+			@Override
+			int run() {
+				long sum = 0;
+				for (int i = 0; i < FORMATION_PASSES; i++)
+					for (EnemyShip ship : this.formation)
+						sum += ship.getPositionX();
+				BenchmarkRunner.sink += sum;
+				return FORMATION_PASSES;
+			}
+		});
+
+		benchmarks.add(new Benchmark("EnemyShipFormation.destroy") {
+			private EnemyShipFormation formation;
+			private final List<EnemyShip> ships = new ArrayList<EnemyShip>();
+
+			@Override
+			void setup() {
+				this.formation = new EnemyShipFormation(largestLevel);
+				this.ships.clear();
+				for (EnemyShip ship : this.formation)
+					this.ships.add(ship);
+			}
+
+			@Override
+			int run() {
+				for (EnemyShip ship : this.ships)
+					this.formation.destroy(ship);
+				BenchmarkRunner.sink += this.formation.getShipCount();
+				return this.ships.size();
+			}
+		});
+
+		benchmarks.add(new Benchmark("ItemManager.obtainDrop") {
+			private EnemyShip enemy;
+
+			@Override
+			void setup() {
+				this.enemy = new EnemyShipFormation(largestLevel).iterator().next();
+			}
+
+			@Override
+			int run() {
+				// As many kills as a triple shot through a dense formation in one frame.
+				for (int i = 0; i < DROP_ROLLS; i++) {
+					Item drop = ItemManager.getInstance().obtainDrop(this.enemy);
+					if (drop != null) {
+						BenchmarkRunner.sink += drop.getPositionY();
+						ItemPool.recycle(drop);
+					}
+				}
+				return DROP_ROLLS;
+			}
+		});
+
+		benchmarks.add(new Benchmark("BulletPool.getBullet+recycle") {
+			private final Bullet[] bullets = new Bullet[POOLED_BULLETS];
+
+			@Override
+			int run() {
+				for (int i = 0; i < this.bullets.length; i++)
+					this.bullets[i] = BulletPool.getBullet(i, i, -6, 6, 10, Entity.Team.PLAYER1);
+				for (Bullet bullet : this.bullets)
+					BulletPool.recycle(bullet);
+				return this.bullets.length;
+			}
+		});
+
+		benchmarks.add(new Benchmark("DrawManager.drawEntity") {
+			private final DrawManager drawManager = Core.getDrawManager();
+			private final List<Entity> entities = new ArrayList<Entity>();
+
+			@Override
+			void setup() {
+				if (this.entities.isEmpty()) {
+					for (EnemyShip ship : new EnemyShipFormation(largestLevel))
+						this.entities.add(ship);
+					this.entities.add(new Ship(Core.WIDTH / 2, Core.HEIGHT - 40,
+							Entity.Team.PLAYER1, Ship.ShipType.NORMAL, null));
+					this.entities.add(BulletPool.getBullet(100, 100, 6, 6, 10, Entity.Team.ENEMY));
+				}
+				// Drawing into the offscreen back buffer, as without a window.
+				this.drawManager.initDrawing(screen);
+			}
+
+			@Override
+			int run() {
+				for (int i = 0; i < DRAWN_ENTITIES; i++) {
+					Entity entity = this.entities.get(i % this.entities.size());
+					this.drawManager.drawEntity(entity, entity.getPositionX(), entity.getPositionY());
+				}
+				return DRAWN_ENTITIES;
+			}
+		});
+
+		benchmarks.add(new Benchmark("LevelCompiler.compile") {
+			private final Path levels = Paths.get("res", "level.csv");
+
+			@Override
+			int run() throws Exception {
+				// Compiles in memory, as on a stale pack or a reload.
+				BenchmarkRunner.sink += LevelCompiler.compile(this.levels).length;
+				return 1;
+			}
+		});
+
+		benchmarks.add(new Benchmark("LevelPack.decode") {
+			private final Path pack = Paths.get("res", "level.pack");
+
+			@Override
+			int run() throws Exception {
+				// Opens the pack and decodes every stage, as a full playthrough would.
+				List<GameSettings> stages = new LevelPack(this.pack);
+				for (GameSettings stage : stages)
+					BenchmarkRunner.sink += stage.getChangeDataList().size();
+				return stages.size();
+			}
+		});
+
+		// High scores are read and written in a scratch copy of res.
+		final Path scratch = Files.createTempDirectory("invaders-bench");
+		Files.createDirectories(scratch.resolve("res"));
+		Files.copy(Paths.get("res", "1Pscores.csv"), scratch.resolve("res").resolve("1Pscores.csv"),
+				StandardCopyOption.REPLACE_EXISTING);
+		// Deleted on exit in reverse order, so the files go first.
+		scratch.toFile().deleteOnExit();
+		scratch.resolve("res").toFile().deleteOnExit();
+		for (String file : new String[] { "1Pscores.csv", "1Pscores.dat", "1Pscores.journal",
+				"1Pscores.csv.tmp" })
+			scratch.resolve("res").resolve(file).toFile().deleteOnExit();
+		final String workingDirectory = System.getProperty("user.dir");
+
+		benchmarks.add(new Benchmark("FileManager.loadHighScores") {
+			@Override
+			void setup() {
+				System.setProperty("user.dir", scratch.toString());
+			}
+
+			@Override
+			int run() throws Exception {
+				BenchmarkRunner.sink += Core.getFileManager().loadHighScores("1P", 7).size();
+				return 1;
+			}
+
+			@Override
+			void tearDown() {
+				System.setProperty("user.dir", workingDirectory);
+			}
+		});
+
+		// Each invocation appends to the history, synced, and exports the CSV,
+		// waiting for the persistence worker to finish.
+		benchmarks.add(new Benchmark("FileManager.saveScore") {
+			private final Score score = new Score("BENCH", 10, "1P");
+
+			@Override
+			void setup() {
+				System.setProperty("user.dir", scratch.toString());
+			}
+
+			@Override
+			int run() throws Exception {
+				Core.getFileManager().saveScore(this.score);
+				Core.getPersistenceWorker().flush();
+				return 1;
+			}
+
+			@Override
+			void tearDown() {
+				System.setProperty("user.dir", workingDirectory);
+			}
+		});
+
+		return benchmarks;
+	}
+
+	/**
+	 * Finds the level with the most enemy ships.
+	 *
+	 * @param gameSettings
+	 *            Settings of every level.
+	 * @return Settings of the largest level.
+	 */
+	private static GameSettings largest(final List<GameSettings> gameSettings) {
+		GameSettings largest = gameSettings.get(0);
+		for (GameSettings settings : gameSettings)
+			if (settings.getFormationWidth() * settings.getFormationHeight()
+					> largest.getFormationWidth() * largest.getFormationHeight())
+				largest = settings;
+		return largest;
+	}
+
+	/**
+	 * Drives a game screen for a fixed number of updates, both players
+	 * sweeping across the screen and shooting.
+	 */
+	private static final class TickDriver implements HeadlessDriver {
+
+		/** Both players shooting while moving left. */
+		private static final int LEFT = InputManager.P1_LEFT | InputManager.P1_SHOOT
+				| InputManager.P2_LEFT | InputManager.P2_SHOOT;
+		/** Both players shooting while moving right. */
+		private static final int RIGHT = InputManager.P1_RIGHT | InputManager.P1_SHOOT
+				| InputManager.P2_RIGHT | InputManager.P2_SHOOT;
+
+		/** Updates run so far. */
+		int ticks;
+
+		@Override
+		public boolean beforeUpdate(final Screen screen, final long tick) {
+			if (tick >= GAME_TICKS)
+				return false;
+			Core.getInputManager().setPlayerActions((tick / 60) % 2 == 0 ? RIGHT : LEFT);
+			CLOCK.tick();
+			this.ticks++;
+			return true;
+		}
+	}
+}
@@ -1,13 +1,12 @@
 package Animations;
 
-import java.util.Random;
+import engine.GameRandom;
 /*
 * The basic background stars effect during the game
 * */
 public class BasicGameSpace {
 
     public final Star[] stars;
-    private final Random rand = new Random();
     private int[][] positions;
     private int speed = 0;
     private int numStars;
@@ -21,7 +20,8 @@ public class BasicGameSpace {
 
         for (int i = 0; i < this.numStars; i++) {
 
-            stars[i] = new Star(rand.nextInt(10,448), rand.nextInt(-500, 5), (randomSpeed()) ? 2 : 1);
+            stars[i] = new Star(GameRandom.get(GameRandom.Stream.BACKGROUND).nextInt(10,448),
+                    GameRandom.get(GameRandom.Stream.BACKGROUND).nextInt(-500, 5), (randomSpeed()) ? 2 : 1);
             positions[i][0] = stars[i].x;
             positions[i][1] = stars[i].y;
             positions[i][2] = stars[i].speed;
@@ -70,7 +70,7 @@ public class BasicGameSpace {
     }
 
     public boolean randomSpeed(){
-        double r = Math.random();
+        double r = GameRandom.get(GameRandom.Stream.BACKGROUND).nextDouble();
 
         return (r < 0.85);
     }
@@ -1,12 +1,12 @@
 package Animations;
 
 import java.awt.*;
-import java.util.Random;
+
+import engine.GameRandom;
 
 public class MenuSpace {
 
     public final Star[] stars;
-    private final Random rand = new Random();
     private int[][] positions;
     private int numStars;
     private Color color;
@@ -22,7 +22,8 @@ public class MenuSpace {
 
         for (int i = 0; i < this.numStars; i++) {
 
-            stars[i] = new Star(rand.nextInt(0,448), rand.nextInt(0, 520));
+            stars[i] = new Star(GameRandom.get(GameRandom.Stream.BACKGROUND).nextInt(0,448),
+                    GameRandom.get(GameRandom.Stream.BACKGROUND).nextInt(0, 520));
             positions[i][0] = stars[i].x;
             positions[i][1] = stars[i].y;
         }
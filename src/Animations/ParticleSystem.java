@@ -0,0 +1,142 @@
+package Animations;
+
+import java.util.SplittableRandom;
+
+import engine.GameRandom;
+
+/*
+* Explosion particles of every explosion on screen, kept in primitive arrays.
+* Particles live in a ring in spawn order; they all share the same lifetime,
+* so the oldest one is always the next to die. When the budget is used up,
+* new particles replace the oldest ones.
+* */
+public class ParticleSystem {
+
+    /** Particles spawned by one explosion. */
+    public static final int PARTICLES_PER_EXPLOSION = 40;
+    /** Lifetime of a particle, in updates. */
+    private static final int LIFE = 60;
+    /** Flag of particles from an enemy explosion. */
+    private static final byte ENEMY = 1;
+    /** Flag of particles from a final explosion. */
+    private static final byte LARGE = 2;
+
+    private final int capacity;
+    private final float[] x;
+    private final float[] y;
+    private final float[] dx;
+    private final float[] dy;
+    private final int[] life;
+    private final int[] argb;
+    private final byte[] flags;
+
+    /** Ring index of the oldest particle. */
+    private int first;
+    /** Number of particles in the ring. */
+    private int count;
+
+    /**
+     * @param budget Maximum number of particles alive at once.
+     */
+    public ParticleSystem(int budget) {
+        this.capacity = budget;
+        this.x = new float[budget];
+        this.y = new float[budget];
+        this.dx = new float[budget];
+        this.dy = new float[budget];
+        this.life = new int[budget];
+        this.argb = new int[budget];
+        this.flags = new byte[budget];
+    }
+
+    /**
+     * Spawns the particles of an explosion bursting from a point.
+     *
+     * @param startX X coordinate of the explosion.
+     * @param startY Y coordinate of the explosion.
+     * @param enemy Whether an enemy exploded.
+     * @param finalExplosion Whether the explosion uses large particles.
+     */
+    public void spawn(double startX, double startY, boolean enemy, boolean finalExplosion) {
+        byte particleFlags = (byte) ((enemy ? ENEMY : 0) | (finalExplosion ? LARGE : 0));
+        SplittableRandom random = GameRandom.get(GameRandom.Stream.PARTICLES);
+
+        for (int n = 0; n < PARTICLES_PER_EXPLOSION && this.capacity > 0; n++) {
+            if (this.count == this.capacity) {
+                // Budget used up: the oldest particle makes room.
+                this.first = (this.first + 1) % this.capacity;
+                this.count--;
+            }
+            int i = (this.first + this.count) % this.capacity;
+            this.count++;
+
+            double angle = 2 * Math.PI * random.nextDouble();
+            double speed = 2 + random.nextDouble() * 2;
+            this.x[i] = (float) startX;
+            this.y[i] = (float) startY;
+            this.dx[i] = (float) (Math.cos(angle) * speed);
+            this.dy[i] = (float) (Math.sin(angle) * speed);
+            this.argb[i] = 0xFFFF0000 | (random.nextInt(150) << 8);
+            this.life[i] = LIFE;
+            this.flags[i] = particleFlags;
+        }
+    }
+
+    /**
+     * Moves, slows and fades every particle, then drops the dead ones.
+     */
+    public void update() {
+        for (int k = 0; k < this.count; k++) {
+            int i = (this.first + k) % this.capacity;
+            if (this.life[i] <= 0) continue;
+
+            // update position
+            this.x[i] += this.dx[i];
+            this.y[i] += this.dy[i];
+
+            // gravity and damping
+            this.dy[i] += 0.1f;
+            this.dx[i] *= 0.98f;
+            this.dy[i] *= 0.98f;
+
+            // fade color
+            int alpha = Math.max(0, 255 * this.life[i] / LIFE);
+            this.argb[i] = (this.argb[i] & 0x00FFFFFF) | (alpha << 24);
+
+            // decrease life
+            this.life[i]--;
+        }
+
+        while (this.count > 0 && this.life[this.first] <= 0) {
+            this.first = (this.first + 1) % this.capacity;
+            this.count--;
+        }
+    }
+
+    /** Removes every particle. */
+    public void clear() {
+        this.first = 0;
+        this.count = 0;
+    }
+
+    /** @return Number of particles, alive or not; index them from 0 to size() - 1. */
+    public int size() { return this.count; }
+
+    public boolean isAlive(int k) { return this.life[index(k)] > 0; }
+
+    public float getX(int k) { return this.x[index(k)]; }
+
+    public float getY(int k) { return this.y[index(k)]; }
+
+    public int getAlpha(int k) { return this.argb[index(k)] >>> 24; }
+
+    public int getColor(int k) { return this.argb[index(k)]; }
+
+    public boolean isEnemy(int k) { return (this.flags[index(k)] & ENEMY) != 0; }
+
+    public boolean isLarge(int k) { return (this.flags[index(k)] & LARGE) != 0; }
+
+    private int index(int k) {
+        return (this.first + k) % this.capacity;
+    }
+}
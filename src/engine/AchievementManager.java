@@ -52,15 +52,10 @@ public class AchievementManager {
     }
 
     /**
-     * Converts the achievements into a boolean list and
-     * saves them using FileManager.
+     * Saves the unlocked achievements using FileManager.
      */
     public void saveToFile(String userName, String mode) throws IOException {
-        List<Boolean> flags = new ArrayList<>();
-        for (Achievement a : achievements) {
-            flags.add(a.isUnlocked());
-        }
-        FileManager.getInstance().unlockAchievement(userName, flags, mode); // mode 추가
+        FileManager.getInstance().unlockAchievement(userName, achievements, mode); // mode 추가
     }
 
     /** Returns the current achievement list. */
@@ -111,15 +106,15 @@ public class AchievementManager {
 
     private static final class Toast {
         final Achievement achievement;
-        final Cooldown ttl;
+        final TimerWheel.Timer ttl;
 
         Toast(Achievement achievement, int ms) {
             this.achievement = achievement;
-            this.ttl = Core.getCooldown(ms);
+            this.ttl = Core.getTimer(ms);
         }
 
         boolean alive() {
-            return !ttl.checkFinished();
+            return !ttl.isFinished();
         }
     }
 
@@ -0,0 +1,271 @@
+package engine;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Achievements of every player, kept in memory: a bit set per player, found
+ * by mode and name, and the list of completers of each achievement.
+ * Unlocks and lookups take the same time however many players there are.
+ *
+ * On disk, a CSV snapshot in the format of older versions, one row per
+ * player, and a log that each change is appended to. Once the log is long
+ * enough, it is folded into a new snapshot, which replaces the old one
+ * atomically. Replaying the log only sets bits, so replaying it over a
+ * snapshot that already has its changes does no harm. Changes are written
+ * by the persistence worker, so every access is synchronized.
+ */
+final class AchievementStore {
+
+    /** Log entries that trigger a compaction. */
+    private static final int COMPACT_EVERY = 32;
+    /** Most achievements a bit set holds. */
+    private static final int MAX_ACHIEVEMENTS = Long.SIZE;
+
+    /** Snapshot file. */
+    private final Path snapshot;
+    /** Change log file. */
+    private final Path log;
+    /** Achievement names, in column order. */
+    private final List<String> columns = new ArrayList<String>();
+    /** Column of each achievement, by lower case name. */
+    private final Map<String, Integer> columnOf = new HashMap<String, Integer>();
+    /** Unlocked achievements of each player, by "mode:name", in creation order. */
+    private final Map<String, Long> players = new LinkedHashMap<String, Long>();
+    /** Completers of each achievement, as "mode:name", in unlock order. */
+    private final List<List<String>> completers = new ArrayList<List<String>>();
+    /** Entries in the change log. */
+    private int logEntries;
+    /** Changes not yet in the change log, one entry per line. */
+    private final StringBuilder unwritten = new StringBuilder();
+    /** Entries not yet in the change log. */
+    private int unwrittenEntries;
+
+    /**
+     * Opens a store, loading the snapshot and replaying the change log.
+     *
+     * @param snapshot
+     *            Snapshot file, may be missing.
+     * @param log
+     *            Change log file, may be missing.
+     * @throws IOException
+     *             When the files can't be read.
+     */
+    AchievementStore(final Path snapshot, final Path log) throws IOException {
+        this.snapshot = snapshot;
+        this.log = log;
+
+        if (Files.exists(snapshot)) {
+            try (BufferedReader reader = Files.newBufferedReader(snapshot, StandardCharsets.UTF_8)) {
+                String line = reader.readLine();
+                if (line != null) {
+                    String[] header = line.split(",");
+                    for (int i = 2; i < header.length; i++)
+                        columnFor(header[i].trim());
+                }
+                while ((line = reader.readLine()) != null) {
+                    String[] row = line.split(",");
+                    if (row.length < 2)
+                        continue;
+                    long unlocked = 0;
+                    for (int i = 2; i < row.length && i - 2 < this.columns.size(); i++)
+                        if (row[i].trim().equals("1"))
+                            unlocked |= 1L << (i - 2);
+                    apply(row[0].trim(), row[1].trim(), unlocked);
+                }
+            }
+        }
+
+        if (Files.exists(log)) {
+            String changes = new String(Files.readAllBytes(log), StandardCharsets.UTF_8);
+            String[] entries = changes.split("\n");
+            // A last entry without its line end was torn by a crash, and is skipped.
+            int complete = changes.endsWith("\n") ? entries.length : entries.length - 1;
+            for (int i = 0; i < complete; i++) {
+                String[] entry = entries[i].split(",");
+                if (entry.length < 2)
+                    continue;
+                long unlocked = 0;
+                for (int j = 2; j < entry.length; j++)
+                    unlocked |= bitOf(columnFor(entry[j]));
+                apply(entry[0], entry[1], unlocked);
+                this.logEntries++;
+            }
+        }
+    }
+
+    /**
+     * Gets the names of the achievements, in column order.
+     *
+     * @return Achievement names.
+     */
+    synchronized List<String> getColumns() {
+        return Collections.unmodifiableList(this.columns);
+    }
+
+    /**
+     * Gets the achievements a player unlocked.
+     *
+     * @param mode
+     *            Game mode, "1" or "2".
+     * @param name
+     *            Player name.
+     * @return Bit of each unlocked achievement column, null if the player
+     *         is unknown.
+     */
+    synchronized Long getUnlocked(final String mode, final String name) {
+        return this.players.get(mode + ":" + name);
+    }
+
+    /**
+     * Gets the players who unlocked an achievement.
+     *
+     * @param achievement
+     *            Achievement name, in any case.
+     * @return Completers as "mode:name", in unlock order, or null if the
+     *         achievement is unknown.
+     */
+    synchronized List<String> getCompleters(final String achievement) {
+        Integer column = this.columnOf.get(achievement.trim().toLowerCase());
+        return column == null ? null : Collections.unmodifiableList(this.completers.get(column));
+    }
+
+    /**
+     * Unlocks achievements of a player, creating the player if unknown. The
+     * change is logged by the next call to writeChanges.
+     *
+     * @param mode
+     *            Game mode, "1" or "2".
+     * @param name
+     *            Player name.
+     * @param achievements
+     *            Names of the achievements to unlock, added as columns if
+     *            unknown.
+     */
+    synchronized void unlock(final String mode, final String name, final List<String> achievements) {
+        long unlocked = 0;
+        for (String achievement : achievements)
+            unlocked |= bitOf(columnFor(achievement));
+        Long current = getUnlocked(mode, name);
+        if (current != null && (current | unlocked) == current)
+            return;
+        apply(mode, name, unlocked);
+
+        this.unwritten.append(mode).append(',').append(name);
+        for (String achievement : achievements)
+            this.unwritten.append(',').append(achievement);
+        this.unwritten.append('\n');
+        this.unwrittenEntries++;
+    }
+
+    /**
+     * Appends the changes made since the last call to the change log, and
+     * compacts the log once it is long enough.
+     *
+     * @throws IOException
+     *             When the changes can't be written.
+     */
+    synchronized void writeChanges() throws IOException {
+        if (this.unwrittenEntries == 0)
+            return;
+        try (Writer writer = Files.newBufferedWriter(this.log, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            writer.write(this.unwritten.toString());
+        }
+        this.logEntries += this.unwrittenEntries;
+        this.unwritten.setLength(0);
+        this.unwrittenEntries = 0;
+
+        if (this.logEntries >= COMPACT_EVERY)
+            compact();
+    }
+
+    /**
+     * Writes every player to a new snapshot, replacing the old one
+     * atomically, and empties the change log.
+     *
+     * @throws IOException
+     *             When the snapshot can't be written.
+     */
+    private void compact() throws IOException {
+        StringBuilder csv = new StringBuilder("mode,player");
+        for (String column : this.columns)
+            csv.append(',').append(column);
+        csv.append(System.lineSeparator());
+        for (Map.Entry<String, Long> player : this.players.entrySet()) {
+            int separator = player.getKey().indexOf(':');
+            csv.append(player.getKey(), 0, separator).append(',')
+                    .append(player.getKey(), separator + 1, player.getKey().length());
+            for (int i = 0; i < this.columns.size(); i++)
+                csv.append((player.getValue() & bitOf(i)) != 0 ? ",1" : ",0");
+            csv.append(System.lineSeparator());
+        }
+        PersistenceWorker.writeAtomically(this.snapshot, csv.toString());
+
+        Files.deleteIfExists(this.log);
+        this.logEntries = 0;
+    }
+
+    /**
+     * Sets achievements of a player in memory.
+     *
+     * @param mode
+     *            Game mode.
+     * @param name
+     *            Player name.
+     * @param unlocked
+     *            Bits of the achievements to set.
+     */
+    private void apply(final String mode, final String name, final long unlocked) {
+        String key = mode + ":" + name;
+        Long current = this.players.get(key);
+        long before = current == null ? 0 : current;
+        this.players.put(key, before | unlocked);
+        for (long added = unlocked & ~before; added != 0; added &= added - 1)
+            this.completers.get(Long.numberOfTrailingZeros(added)).add(key);
+    }
+
+    /**
+     * Gets the column of an achievement, adding it if unknown.
+     *
+     * @param achievement
+     *            Achievement name.
+     * @return Column index.
+     * @throws IllegalStateException
+     *             When there are more achievements than a bit set holds.
+     */
+    private int columnFor(final String achievement) {
+        String key = achievement.trim().toLowerCase();
+        Integer column = this.columnOf.get(key);
+        if (column != null)
+            return column;
+        if (this.columns.size() == MAX_ACHIEVEMENTS)
+            throw new IllegalStateException("More than " + MAX_ACHIEVEMENTS + " achievements.");
+        this.columns.add(achievement.trim());
+        this.completers.add(new ArrayList<String>());
+        this.columnOf.put(key, this.columns.size() - 1);
+        return this.columns.size() - 1;
+    }
+
+    /**
+     * Gets the bit of a column.
+     *
+     * @param column
+     *            Column index.
+     * @return Bit set with only the column.
+     */
+    private static long bitOf(final int column) {
+        return 1L << column;
+    }
+}
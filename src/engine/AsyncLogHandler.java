@@ -0,0 +1,193 @@
+package engine;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.ErrorManager;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+/**
+ * Log handler that writes records to a file and the console from a
+ * background thread. Logging threads only hand the record over through a
+ * bounded queue, never waiting on the disk or the console: records are
+ * dropped when the queue is full, and the drop is logged once there is room.
+ * The writer formats whatever piled up since its last pass and flushes both
+ * outputs once per batch, instead of once per record.
+ */
+public final class AsyncLogHandler extends Handler {
+
+    /** Maximum number of records waiting to be written. */
+    private static final int CAPACITY = 4096;
+    /** Longest time a record waits for its batch to be written. */
+    private static final long BATCH_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+    /** Longest time flushing or closing waits for the writer. */
+    private static final long WAIT_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    /** Records dropped because the queue was full. */
+    private static final Metrics.Counter DROPPED = Metrics.counter("log.dropped");
+    /** Records written per batch. */
+    private static final Metrics.Histogram BATCH = Metrics.histogram("log.batch");
+
+    /** Records waiting to be written. */
+    private final LogRecordQueue records = new LogRecordQueue(CAPACITY);
+    /** Log file output. */
+    private final Writer file;
+    /** Console output, null if records only go to the file. */
+    private final Writer console;
+    /** Thread writing the records. */
+    private final Thread writer;
+    /** Records written so far. */
+    private volatile long written;
+    /** True once closed. */
+    private volatile boolean closed;
+    /** Drops already reported by the writer. */
+    private long reportedDrops;
+
+    /**
+     * Constructor, opens the log file and starts the writer.
+     *
+     * @param fileName
+     *            Log file, replaced if it exists.
+     * @param toConsole
+     *            True to also write every record to the console.
+     * @throws IOException
+     *             When the log file can't be opened.
+     */
+    public AsyncLogHandler(final String fileName, final boolean toConsole) throws IOException {
+        this.file = Files.newBufferedWriter(Paths.get(fileName), StandardCharsets.UTF_8);
+        this.console = toConsole ? new BufferedWriter(new OutputStreamWriter(System.err)) : null;
+        setFormatter(new MinimalFormatter());
+
+        this.writer = new Thread(this::write, "LogWriter");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    @Override
+    public void publish(final LogRecord record) {
+        if (this.closed || !isLoggable(record))
+            return;
+        if (!this.records.offer(record)) {
+            DROPPED.increment();
+            return;
+        }
+        // Warnings are written at once, anything else waits for the batch.
+        if (record.getLevel().intValue() >= Level.WARNING.intValue())
+            LockSupport.unpark(this.writer);
+    }
+
+    /**
+     * Waits until every record published so far is written, or for at most
+     * a second.
+     */
+    @Override
+    public void flush() {
+        long target = this.records.getOffered();
+        long deadline = System.nanoTime() + WAIT_NANOS;
+        while (this.written < target && this.writer.isAlive() && System.nanoTime() < deadline) {
+            LockSupport.unpark(this.writer);
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+    }
+
+    /**
+     * Writes every pending record and closes the log file. Records published
+     * afterwards are ignored. Closing twice does nothing.
+     */
+    @Override
+    public void close() {
+        if (this.closed)
+            return;
+        this.closed = true;
+        LockSupport.unpark(this.writer);
+        try {
+            this.writer.join(TimeUnit.NANOSECONDS.toMillis(WAIT_NANOS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** Writes batches of records until closed, then closes the outputs. */
+    private void write() {
+        boolean closing;
+        do {
+            // Read before draining, so records published before closing are written.
+            closing = this.closed;
+            int batch = this.records.drain(this::format);
+            long drops = DROPPED.get();
+            if (drops > this.reportedDrops) {
+                append(getFormatter().format(new LogRecord(Level.WARNING,
+                        (drops - this.reportedDrops) + " log records dropped, the queue was full.")));
+                this.reportedDrops = drops;
+                flushOutputs();
+            }
+            if (batch > 0) {
+                flushOutputs();
+                BATCH.record(batch);
+                this.written += batch;
+            }
+            if (!closing)
+                LockSupport.parkNanos(BATCH_NANOS);
+        } while (!closing);
+
+        try {
+            this.file.close();
+            if (this.console != null)
+                this.console.flush();
+        } catch (IOException e) {
+            reportError("Unable to close the log file.", e, ErrorManager.CLOSE_FAILURE);
+        }
+    }
+
+    /**
+     * Formats a record into the outputs, on the writer thread.
+     *
+     * @param record
+     *            Record to write.
+     */
+    private void format(final LogRecord record) {
+        String line;
+        try {
+            line = getFormatter().format(record);
+        } catch (RuntimeException e) {
+            reportError("Unable to format a log record.", e, ErrorManager.FORMAT_FAILURE);
+            return;
+        }
+        append(line);
+    }
+
+    /**
+     * Appends a formatted record to the outputs, on the writer thread.
+     *
+     * @param line
+     *            Formatted record.
+     */
+    private void append(final String line) {
+        try {
+            this.file.write(line);
+            if (this.console != null)
+                this.console.write(line);
+        } catch (IOException e) {
+            reportError("Unable to write a log record.", e, ErrorManager.WRITE_FAILURE);
+        }
+    }
+
+    /** Flushes the outputs once per batch, on the writer thread. */
+    private void flushOutputs() {
+        try {
+            this.file.flush();
+            if (this.console != null)
+                this.console.flush();
+        } catch (IOException e) {
+            reportError("Unable to flush the log.", e, ErrorManager.FLUSH_FAILURE);
+        }
+    }
+}
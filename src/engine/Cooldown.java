@@ -1,7 +1,7 @@
 package engine;
 
 /**
- * Imposes a cooldown period between two actions.
+ * Imposes a cooldown period between two actions, timed on a game clock.
  *
  * @author <a href="mailto:RobertoIA1987@gmail.com">Roberto Izquierdo Amo</a>
  *
@@ -16,15 +16,20 @@ public class Cooldown {
 	private int duration;
 	/** Beginning time. */
 	private long time;
+	/** Clock the cooldown is timed on. */
+	private final GameClock clock;
 
 	/**
 	 * Constructor, established the time until the action can be performed
 	 * again.
 	 *
+	 * @param clock
+	 *            Clock the cooldown is timed on.
 	 * @param milliseconds
 	 *            Time until cooldown period is finished.
 	 */
-	protected Cooldown(final int milliseconds) {
+	protected Cooldown(final GameClock clock, final int milliseconds) {
+		this.clock = clock;
 		this.milliseconds = milliseconds;
 		this.variance = 0;
 		this.duration = milliseconds;
@@ -35,12 +40,15 @@ public class Cooldown {
 	 * Constructor, established the time until the action can be performed
 	 * again, with a variation of +/- variance.
 	 *
+	 * @param clock
+	 *            Clock the cooldown is timed on.
 	 * @param milliseconds
 	 *            Time until cooldown period is finished.
 	 * @param variance
 	 *            Variance in the cooldown period.
 	 */
-	protected Cooldown(final int milliseconds, final int variance) {
+	protected Cooldown(final GameClock clock, final int milliseconds, final int variance) {
+		this.clock = clock;
 		this.milliseconds = milliseconds;
 		this.variance = variance;
 		this.time = 0;
@@ -53,7 +61,7 @@ public class Cooldown {
 	 */
 	public final boolean checkFinished() {
 		if ((this.time == 0)
-				|| this.time + this.duration < System.currentTimeMillis())
+				|| this.time + this.duration < this.clock.millis())
 			return true;
 		return false;
 	}
@@ -62,11 +70,11 @@ public class Cooldown {
 	 * Restarts the cooldown.
 	 */
 	public final void reset() {
-		this.time = System.currentTimeMillis();
+		this.time = this.clock.millis();
 		if (this.variance != 0)
 			this.duration = (this.milliseconds - this.variance)
-					+ (int) (Math.random()
-					* (this.milliseconds + this.variance));
+					+ GameRandom.get(GameRandom.Stream.COOLDOWN)
+					.nextInt(this.milliseconds + this.variance);
 	}
 
     public void addTime(int extraMs) {
@@ -82,7 +90,7 @@ public class Cooldown {
 
     public int getDuration() {
         if (this.time == 0) return 0; // cooldown hasn't started
-        long elapsed = System.currentTimeMillis() - this.time;
+        long elapsed = this.clock.millis() - this.time;
         return Math.max(0, this.duration - (int) elapsed);
     }
 
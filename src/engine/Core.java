@@ -1,10 +1,10 @@
 package engine;
 
 import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.logging.ConsoleHandler;
-import java.util.logging.FileHandler;
+import java.util.function.ToIntFunction;
 import java.util.logging.Handler;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -22,42 +22,57 @@ import screen.*;
  */
 public final class Core {
 
-    private static final int WIDTH = 448;
-    private static final int HEIGHT = 520;
-    private static final int FPS = 60;
+    static final int WIDTH = 448;
+    static final int HEIGHT = 520;
+    static final int FPS = 60;
 
     /** Lives per player (used to compute team pool in shared mode). */
-    private static final int MAX_LIVES = 3;
-    private static final int EXTRA_LIFE_FRECUENCY = 3;
+    static final int MAX_LIVES = 3;
+    static final int EXTRA_LIFE_FRECUENCY = 3;
 
     /** Frame to draw the screen on. */
     private static Frame frame;
     private static Screen currentScreen;
-    private static List<GameSettings> gameSettings;
     private static final Logger LOGGER = Logger.getLogger(Core.class.getSimpleName());
-    private static Handler fileHandler;
-    private static ConsoleHandler consoleHandler;
-    private static int NUM_LEVELS; // Total number of levels
+    /** Writes the log to a file and the console, off the game loop. */
+    private static Handler logHandler;
+    /** Saves game data off the game loop. */
+    private static final PersistenceWorker PERSISTENCE = new PersistenceWorker();
 
     /**
      * Test implementation.
      *
      * @param args
-     *             Program args, ignored.
+     *             Program args, "--record dir" records every game to a
+     *             replay in dir.
      */
     public static void main(final String[] args) throws IOException {
         try {
             LOGGER.setUseParentHandlers(false);
-            fileHandler = new FileHandler("log");
-            fileHandler.setFormatter(new MinimalFormatter());
-            consoleHandler = new ConsoleHandler();
-            consoleHandler.setFormatter(new MinimalFormatter());
-            LOGGER.addHandler(fileHandler);
-            LOGGER.addHandler(consoleHandler);
-            LOGGER.setLevel(Level.ALL);
+            logHandler = new AsyncLogHandler("log", true);
+            LOGGER.addHandler(logHandler);
+            // Per-frame events log at FINE, below this level.
+            LOGGER.setLevel(Level.INFO);
         } catch (Exception e) {
             e.printStackTrace();
         }
+        // Writes what is still queued however the game is closed.
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            PERSISTENCE.flush();
+            if (logHandler != null)
+                logHandler.close();
+        }, "shutdown"));
+
+        Metrics.dumpOnExit(Paths.get("res", "metrics.log"));
+
+        InputRecorder recorder = null;
+        if (args.length == 2 && args[0].equals("--record")) {
+            recorder = new InputRecorder(Paths.get(args[1]));
+            recorder.install();
+            LOGGER.info("Recording games to " + args[1] + ".");
+        }
+
+        SoundManager.preloadEffects();
 
         frame = new Frame(WIDTH, HEIGHT);
         InputManager input = InputManager.getInstance();
@@ -66,8 +81,22 @@ public final class Core {
         int width = frame.getWidth();
         int height = frame.getHeight();
 
-        gameSettings = GameSettings.getGameSettings();
-        NUM_LEVELS = gameSettings.size(); // Initialize total number of levels
+        // Compiles and checks the level pack before the first game, and before
+        // the watcher can reload level.csv.
+        GameSettings.getGameSettings();
+
+        // Levels and items edited while the game runs are played from the next level on.
+        // Not while recording: a replay plays the data it was recorded on.
+        if (recorder == null) {
+            ResourceWatcher resourceWatcher = new ResourceWatcher(Paths.get("res"));
+            resourceWatcher.watch("level.csv", GameSettings::reloadGameSettings);
+            resourceWatcher.watch("item_db.csv", ItemDB::reload);
+            try {
+                resourceWatcher.start();
+            } catch (IOException e) {
+                LOGGER.warning("Unable to watch res for changes: " + e.getMessage());
+            }
+        }
 
 
         // 2P mode: modified to null to allow for switch between 2 modes
@@ -102,33 +131,24 @@ public final class Core {
 
                 case 2:
                     // 2P mode: building gameState now using user choice
+                    // A fresh seed per game, logged so the game can be reproduced.
+                    long seed = System.nanoTime();
+                    if (recorder != null)
+                        recorder.startGame(seed, coopSelected, shipTypeP1, shipTypeP2);
+                    startGame(seed);
+                    LOGGER.info("Starting a game with seed " + seed + ".");
                     gameState = new GameState(1, MAX_LIVES, coopSelected, 0);
 
-                    do {
-                        // Extra life this level? Give it if team pool is below cap.
-                        int teamCap = gameState.isCoop() ? (MAX_LIVES * GameState.NUM_PLAYERS) : MAX_LIVES;
-                        boolean bonusLife = gameState.getLevel() % EXTRA_LIFE_FRECUENCY == 0
-                                && gameState.getLivesRemaining() < teamCap;
-
-                        currentScreen = new GameScreen(
-                                gameState,
-                                gameSettings.get(gameState.getLevel() - 1),
-                                bonusLife, width, height, FPS, shipTypeP1, shipTypeP2, achievementManager);
-
-                        LOGGER.info("Starting " + WIDTH + "x" + HEIGHT + " game screen at " + FPS + " fps.");
-                        returnCode = frame.setScreen(currentScreen);
-                        LOGGER.info("Closing game screen.");
-                        if (returnCode == 1) {
-                            break;
-                        }
-
-                        gameState = ((GameScreen) currentScreen).getGameState();
-
-                        if (gameState.teamAlive()) {
-                            gameState.nextLevel();
-                        }
-
-                    } while (gameState.teamAlive() && gameState.getLevel() <= gameSettings.size());
+                    returnCode = playLevels(gameState, width, height, shipTypeP1, shipTypeP2,
+                            achievementManager, screen -> {
+                                currentScreen = screen;
+                                LOGGER.info("Starting " + WIDTH + "x" + HEIGHT + " game screen at " + FPS + " fps.");
+                                int levelCode = frame.setScreen(screen);
+                                LOGGER.info("Closing game screen.");
+                                return levelCode;
+                            });
+                    if (recorder != null)
+                        recorder.endGame(gameState);
                     if (returnCode == 1) {
                         break;
                     }
@@ -219,11 +239,75 @@ public final class Core {
 
         } while (returnCode != 0);
 
-        fileHandler.flush();
-        fileHandler.close();
+        PERSISTENCE.flush();
+        logHandler.close();
         System.exit(0);
     }
 
+    /**
+     * Resets everything a game depends on besides its state: reseeds the
+     * randomness and clears what the last game left behind, including the
+     * time the last game spent paused and its pending timers.
+     *
+     * @param seed
+     *             Seed of all the game randomness.
+     */
+    static void startGame(final long seed) {
+        GameRandom.reseed(seed);
+        ItemManager.getInstance().resetPity();
+        gameClock = new PausableClock(clock);
+        timerWheel = new TimerWheel(gameClock);
+    }
+
+    /**
+     * Plays a game level by level, from the level of its state. A level
+     * gives a bonus life every EXTRA_LIFE_FRECUENCY levels while the team
+     * is below its cap of lives. Each level plays the stages last published,
+     * which a reload may have replaced. The game ends when the team dies,
+     * when no stage is left for the next level, or when the players quit.
+     *
+     * @param gameState
+     *             State of the game, carried from level to level.
+     * @param width
+     *             Width of the game screens.
+     * @param height
+     *             Height of the game screens.
+     * @param shipTypeP1
+     *             Player 1's ship type.
+     * @param shipTypeP2
+     *             Player 2's ship type.
+     * @param achievementManager
+     *             Achievements of the game.
+     * @param runner
+     *             Runs the screen of a level, returning its return code.
+     * @return Return code of the last level played, 1 if the players quit.
+     */
+    static int playLevels(final GameState gameState, final int width, final int height,
+                          final Ship.ShipType shipTypeP1, final Ship.ShipType shipTypeP2,
+                          final AchievementManager achievementManager,
+                          final ToIntFunction<GameScreen> runner) {
+        int returnCode = 0;
+        do {
+            // Extra life this level? Give it if team pool is below cap.
+            int teamCap = gameState.isCoop() ? (MAX_LIVES * GameState.NUM_PLAYERS) : MAX_LIVES;
+            boolean bonusLife = gameState.getLevel() % EXTRA_LIFE_FRECUENCY == 0
+                    && gameState.getLivesRemaining() < teamCap;
+
+            List<GameSettings> stages = GameSettings.getGameSettings();
+            if (gameState.getLevel() > stages.size())
+                break;
+            returnCode = runner.applyAsInt(new GameScreen(gameState,
+                    stages.get(gameState.getLevel() - 1), bonusLife,
+                    width, height, FPS, shipTypeP1, shipTypeP2, achievementManager));
+            if (returnCode == 1)
+                break;
+
+            if (gameState.teamAlive())
+                gameState.nextLevel();
+        } while (gameState.teamAlive());
+        return returnCode;
+    }
+
     /**
      * Constructor, not called.
      */
@@ -268,6 +352,15 @@ public final class Core {
         return FileManager.getInstance();
     }
 
+    /**
+     * Controls access to the persistence worker.
+     *
+     * @return Worker saving game data in the background.
+     */
+    public static PersistenceWorker getPersistenceWorker() {
+        return PERSISTENCE;
+    }
+
     /**
      * Controls creation of new cooldowns.
      *
@@ -276,7 +369,19 @@ public final class Core {
      * @return A new cooldown.
      */
     public static Cooldown getCooldown(final int milliseconds) {
-        return new Cooldown(milliseconds);
+        return new Cooldown(gameClock, milliseconds);
+    }
+
+    /**
+     * Controls creation of new cooldowns that keep running while the game
+     * clock is paused, for input that must work on the pause menu.
+     *
+     * @param milliseconds
+     *                     Duration of the cooldown.
+     * @return A new cooldown on the unpaused clock.
+     */
+    public static Cooldown getUnpausedCooldown(final int milliseconds) {
+        return new Cooldown(clock, milliseconds);
     }
 
     /**
@@ -299,7 +404,93 @@ public final class Core {
      * @return A new cooldown with variance.
      */
     public static Cooldown getVariableCooldown(final int milliseconds, final int variance) {
-        return new Cooldown(milliseconds, variance);
+        return new Cooldown(gameClock, milliseconds, variance);
+    }
+
+    /** Clock the game runs on, real time unless replaced. */
+    private static GameClock clock = new MonotonicClock();
+    /** Clock of cooldowns and game screens, follows clock unless paused. */
+    private static PausableClock gameClock = new PausableClock(clock);
+    /** Timers on the game clock, advanced once per update. */
+    private static TimerWheel timerWheel = new TimerWheel(gameClock);
+
+    /**
+     * Gets the current game time.
+     *
+     * @return Current time in milliseconds.
+     */
+    public static long currentTimeMillis() {
+        return gameClock.millis();
+    }
+
+    /**
+     * Controls access to the game clock, which pausing the game freezes.
+     *
+     * @return Clock of cooldowns and game screens.
+     */
+    public static PausableClock getGameClock() {
+        return gameClock;
+    }
+
+    /**
+     * Replaces the clock the game runs on, for example with simulated time
+     * when running without a window. Cooldowns created before keep their
+     * clock.
+     *
+     * @param source
+     *                     Clock the game runs on.
+     */
+    public static void setClock(final GameClock source) {
+        clock = source;
+        gameClock = new PausableClock(source);
+        timerWheel = new TimerWheel(gameClock);
+    }
+
+    /**
+     * Controls access to the timer wheel of the game clock.
+     *
+     * @return Wheel the game timers are scheduled on.
+     */
+    public static TimerWheel getTimerWheel() {
+        return timerWheel;
+    }
+
+    /**
+     * Controls creation of new timers, which unlike cooldowns expire without
+     * being polled.
+     *
+     * @param milliseconds
+     *                     Duration of the timer.
+     * @return A new timer, not started.
+     */
+    public static TimerWheel.Timer getTimer(final int milliseconds) {
+        return new TimerWheel.Timer(timerWheel, milliseconds, 0, null);
+    }
+
+    /**
+     * Controls creation of new timers that run a callback on expiry.
+     *
+     * @param milliseconds
+     *                     Duration of the timer.
+     * @param callback
+     *                     Run on the game loop when the timer expires.
+     * @return A new timer, not started.
+     */
+    public static TimerWheel.Timer getTimer(final int milliseconds, final Runnable callback) {
+        return new TimerWheel.Timer(timerWheel, milliseconds, 0, callback);
+    }
+
+    /**
+     * Controls creation of new timers with variance.
+     *
+     * @param milliseconds
+     *                     Duration of the timer.
+     * @param variance
+     *                     Variation in the timer duration.
+     * @return A new timer with variance, not started.
+     */
+    public static TimerWheel.Timer getVariableTimer(final int milliseconds, final int variance) {
+        return new TimerWheel.Timer(timerWheel, milliseconds, variance, null);
     }
 
     private static int volumeLevel = 50;
@@ -7,6 +7,7 @@ import java.awt.Font;
 import java.awt.FontFormatException;
 import java.awt.FontMetrics;
 import java.awt.Graphics;
+import java.awt.image.BufferStrategy;
 import java.awt.image.BufferedImage;
 import java.awt.Rectangle; // add this line
 import java.io.IOException;
@@ -15,11 +16,12 @@ import java.util.ArrayList;
 import java.util.*;
 import java.util.List;
 import java.util.Map;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import Animations.BasicGameSpace;
-import Animations.Explosion;
 import Animations.MenuSpace;
+import Animations.ParticleSystem;
 import com.sun.tools.javac.Main;
 import screen.Screen;
 import entity.Entity;
@@ -42,8 +44,8 @@ public final class DrawManager {
     private static FileManager fileManager;
     /** Application logger. */
     private static Logger logger;
-    /** Graphics context. */
-    private static Graphics graphics;
+    /** Page flipping strategy of the frame. */
+    private static BufferStrategy bufferStrategy;
     /** Buffer Graphics. */
     private static Graphics backBufferGraphics;
     /** Buffer image. */
@@ -59,8 +61,20 @@ public final class DrawManager {
 
     /** Sprite types mapped to their images. */
     private static Map<SpriteType, boolean[][]> spriteMap;
+    /** Sprites already rasterized by color and size. */
+    private static SpriteCache spriteCache;
 
-    private final java.util.List<Explosion> explosions = new java.util.ArrayList<>();
+    /** Font of the profiling overlay. */
+    private static final Font PROFILER_FONT = new Font(Font.MONOSPACED, Font.PLAIN, 10);
+    /** Background of the profiling overlay. */
+    private static final Color PROFILER_BACKGROUND = new Color(0, 0, 0, 180);
+    /** Time spent showing a finished frame. */
+    private static final Metrics.Histogram COMPLETE_DRAWING = Metrics.histogram("render.completeDrawing");
+
+    /** Maximum number of explosion particles alive at once. */
+    private static final int PARTICLE_BUDGET = 25 * ParticleSystem.PARTICLES_PER_EXPLOSION;
+    /** Particles of every explosion on screen. */
+    private final ParticleSystem particles = new ParticleSystem(PARTICLE_BUDGET);
 
     /**
      * Stars background animations for both game and main menu
@@ -70,6 +84,27 @@ public final class DrawManager {
     MenuSpace menuSpace = new MenuSpace(50);
     int explosion_size = 2;
 
+    /** Gradient stops shared by the star glows. */
+    private static final float[] STAR_FRACTIONS = {0.0f, 1.0f};
+    /** Gradient stops shared by the explosion particle glows. */
+    private static final float[] PARTICLE_FRACTIONS = {0.0f, 0.3f, 0.7f, 1.0f};
+    /** Glows of the game stars. */
+    private final GlowStampCache starGlows = new GlowStampCache(STAR_FRACTIONS,
+            new Color[]{new Color(255, 255, 200, 50), new Color(255, 255, 200, 50)});
+    /** Glows of the game stars on the last life. */
+    private final GlowStampCache lastLifeStarGlows = new GlowStampCache(STAR_FRACTIONS,
+            new Color[]{new Color(255, 0, 0, 100), new Color(255, 0, 0, 50)});
+    /** Glows of the menu stars, by menu color. */
+    private final Map<Color, GlowStampCache> menuStarGlows = new HashMap<Color, GlowStampCache>();
+    /** Glows of enemy explosion particles. */
+    private final GlowStampCache enemyParticleGlows = new GlowStampCache(PARTICLE_FRACTIONS,
+            new Color[]{new Color(255, 255, 250), new Color(255, 250, 180),
+                    new Color(255, 200, 220, 127), new Color(0, 0, 0, 0)});
+    /** Glows of player explosion particles. */
+    private final GlowStampCache playerParticleGlows = new GlowStampCache(PARTICLE_FRACTIONS,
+            new Color[]{new Color(255, 255, 180), new Color(255, 200, 0),
+                    new Color(255, 80, 0, 127), new Color(0, 0, 0, 0)});
+
 
     // Variables for hitbox fine-tuning
     private int menuHitboxOffset = 20; // add this line
@@ -160,6 +195,7 @@ public final class DrawManager {
             spriteMap.put(SpriteType.ItemBulletSpeedUp, new boolean[5][5]);
 
             fileManager.loadSprite(spriteMap);
+            spriteCache = new SpriteCache(spriteMap);
             logger.info("Finished loading the sprites.");
 
             // Font loading.
@@ -193,42 +229,97 @@ public final class DrawManager {
      */
     public void setFrame(final Frame currentFrame) {
         frame = currentFrame;
+        bufferStrategy = null;
     }
 
     /**
-     * First part of the drawing process. Initialises buffers, draws the
-     * background and prepares the images.
+     * First part of the drawing process. Clears the back buffer, draws the
+     * background and prepares the images. The back buffer is only recreated
+     * when the screen size changes.
      *
      * @param screen
      *               Screen to draw in.
      */
     public void initDrawing(final Screen screen) {
-        backBuffer = new BufferedImage(screen.getWidth(), screen.getHeight(),
-                BufferedImage.TYPE_INT_RGB);
-
-        graphics = frame.getGraphics();
-        backBufferGraphics = backBuffer.getGraphics();
+        if (backBuffer == null || backBuffer.getWidth() != screen.getWidth()
+                || backBuffer.getHeight() != screen.getHeight())
+            createBackBuffer(screen.getWidth(), screen.getHeight());
 
+        // The graphics outlive the frame, so undo state left by the last one.
+        ((Graphics2D) backBufferGraphics).setRenderingHint(
+                RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_DEFAULT);
         backBufferGraphics.setColor(Color.BLACK);
         backBufferGraphics
                 .fillRect(0, 0, screen.getWidth(), screen.getHeight());
 
-        fontRegularMetrics = backBufferGraphics.getFontMetrics(fontRegular);
-        fontBigMetrics = backBufferGraphics.getFontMetrics(fontBig);
-
         // drawBorders(screen);
         // drawGrid(screen);
     }
 
     /**
-     * Draws the completed drawing on screen.
+     * Creates the back buffer and its graphics, replacing the previous ones.
+     *
+     * @param width
+     *               Buffer width.
+     * @param height
+     *               Buffer height.
+     */
+    private void createBackBuffer(final int width, final int height) {
+        if (backBufferGraphics != null)
+            backBufferGraphics.dispose();
+
+        if (frame != null && frame.getGraphicsConfiguration() != null)
+            backBuffer = frame.getGraphicsConfiguration()
+                    .createCompatibleImage(width, height);
+        else
+            backBuffer = new BufferedImage(width, height,
+                    BufferedImage.TYPE_INT_RGB);
+        backBufferGraphics = backBuffer.createGraphics();
+
+        fontRegularMetrics = backBufferGraphics.getFontMetrics(fontRegular);
+        fontBigMetrics = backBufferGraphics.getFontMetrics(fontBig);
+        logger.info("Created " + width + "x" + height + " back buffer.");
+    }
+
+    /**
+     * Draws the completed drawing on screen, flipping the frame pages.
      *
      * @param screen
      *               Screen to draw on.
      */
     public void completeDrawing(final Screen screen) {
-        graphics.drawImage(backBuffer, frame.getInsets().left,
-                frame.getInsets().top, frame);
+        long start = System.nanoTime();
+        if (bufferStrategy == null)
+            createBufferStrategy();
+
+        Insets insets = frame.getInsets();
+        // Repeats the frame if the video memory was lost while drawing it.
+        do {
+            do {
+                Graphics graphics = bufferStrategy.getDrawGraphics();
+                graphics.drawImage(backBuffer, insets.left, insets.top, frame);
+                graphics.dispose();
+            } while (bufferStrategy.contentsRestored());
+            bufferStrategy.show();
+        } while (bufferStrategy.contentsLost());
+        Toolkit.getDefaultToolkit().sync();
+        COMPLETE_DRAWING.recordSince(start);
+    }
+
+    /**
+     * Creates the double buffered page flipping strategy of the frame,
+     * accelerated when the platform allows it.
+     */
+    private void createBufferStrategy() {
+        try {
+            frame.createBufferStrategy(2, new BufferCapabilities(
+                    new ImageCapabilities(true), new ImageCapabilities(true),
+                    BufferCapabilities.FlipContents.UNDEFINED));
+        } catch (AWTException e) {
+            logger.info("Accelerated page flipping unavailable, using default buffers.");
+            frame.createBufferStrategy(2);
+        }
+        bufferStrategy = frame.getBufferStrategy();
     }
 
     /**
@@ -243,8 +334,6 @@ public final class DrawManager {
      */
     public void drawEntity(final Entity entity, final int positionX,
                            final int positionY) {
-        boolean[][] image = spriteMap.get(entity.getSpriteType());
-
         // 2P mode: start with the entity's own color
         Color color = entity.getColor();
 
@@ -267,6 +356,7 @@ public final class DrawManager {
                 color = Color.MAGENTA; // P2 bullet
             // enemy bullets will keep their default color from the entity
         }
+        int argb = color.getRGB();
 
         /**
          * Makes A-type enemies semi-transparent when their health is 1.
@@ -278,40 +368,14 @@ public final class DrawManager {
             if ((enemy.getSpriteType() == SpriteType.EnemyShipA1
                     || enemy.getSpriteType() == SpriteType.EnemyShipA2)
                     && enemy.getHealth() == 1) {
-                color = new Color(color.getRed(), color.getGreen(), color.getBlue(), 32);
+                argb = (argb & 0x00FFFFFF) | (32 << 24);
             }
         }
 
-        // --- Scaling logic ---
-        // Original sprite dimensions
-        int spriteWidth = image.length;
-        int spriteHeight = image[0].length;
-
-        // Entity dimensions (modified via Bullet constructor or other entities)
-        int entityWidth = entity.getWidth();
-        int entityHeight = entity.getHeight();
-
-        // Calculate scaling ratios compared to original sprite
-        float widthRatio = (float) entityWidth / (spriteWidth * 2);
-        float heightRatio = (float) entityHeight / (spriteHeight * 2);
-        // --- End of scaling logic ---
-
-        // Set drawing color again
-        backBufferGraphics.setColor(color);
-        // Draw the sprite with scaling applied
-        for (int i = 0; i < spriteWidth; i++) {
-            for (int j = 0; j < spriteHeight; j++) {
-                if (image[i][j]) {
-                    // Apply calculated scaling ratio to pixel positions and size
-                    backBufferGraphics.fillRect(
-                            positionX + (int)(i * 2 * widthRatio),
-                            positionY + (int)(j * 2 * heightRatio),
-                            (int)Math.ceil(widthRatio * 2), // Adjust the width of the pixel
-                            (int)Math.ceil(heightRatio * 2) // Adjust the height of the pixel
-                    );
-                }
-            }
-        }
+        // The sprite is scaled to the entity size (e.g. bullets of ship types).
+        backBufferGraphics.drawImage(spriteCache.get(entity.getSpriteType(),
+                argb, entity.getWidth(), entity.getHeight()),
+                positionX, positionY, null);
     }
 
 
@@ -321,9 +385,10 @@ public final class DrawManager {
     }
 
     public void triggerExplosion(int x, int y, boolean enemy, boolean finalExplosion) {
-        logger.info("Enemy: "+enemy);
-        logger.info("final: "+finalExplosion);
-        explosions.add(new Explosion(x, y, enemy, finalExplosion));
+        if (logger.isLoggable(Level.FINE))
+            logger.fine("Explosion at (" + x + ", " + y + "), enemy: " + enemy
+                    + ", final: " + finalExplosion);
+        particles.spawn(x, y, enemy, finalExplosion);
     }
 
     public void drawExplosions(){
@@ -334,72 +399,31 @@ public final class DrawManager {
         g2d.setColor(Color.WHITE);
 
 
-        Iterator<Explosion> iterator = explosions.iterator();
-
-        while(iterator.hasNext()){
-            Explosion e = iterator.next();
-            e.update();
+        particles.update();
+        SplittableRandom random = GameRandom.get(GameRandom.Stream.RENDERING);
 
-            if (!e.isActive()) {
-                iterator.remove();
+        for (int k = 0; k < particles.size(); k++) {
+            if (!particles.isAlive(k)) {
                 continue;
             }
 
-            for(Explosion.Particle p : e.getParticles()){
-                if(!p.active){
-                    continue;
-                }
-
-                int baseSize;
-
-                Random random = new Random();
-                if (e.getSize() == 4)
-                    baseSize = random.nextInt(5) + 2;
-                else
-                    baseSize = random.nextInt(6)+18;
-
-                int flickerAlpha = Math.max(0, Math.min(255, p.color.getAlpha() - (int)(Math.random() * 50)));
-
+            int baseSize;
 
-                float[] dist = {0.0f, 0.3f, 0.7f, 1.0f};
-                Color[] colors;
-                if(e.enemy()){
-                    colors = new Color[]{
-                            new Color(255, 255, 250, flickerAlpha),
-                            new Color(255, 250, 180, flickerAlpha),
-                            new Color(255, 200, 220, flickerAlpha / 2),
-                            new Color(0, 0, 0, 0)
-                    };
-                }
-                else{
-                    colors = new Color[]{
-                            new Color(255, 255, 180, flickerAlpha),
-                            new Color(255, 200, 0, flickerAlpha),
-                            new Color(255, 80, 0, flickerAlpha / 2),
-                            new Color(0, 0, 0, 0)
-                    };
-                }
+            if (particles.isLarge(k))
+                baseSize = random.nextInt(6) + 18;
+            else
+                baseSize = random.nextInt(5) + 2;
 
-                RadialGradientPaint paint = new RadialGradientPaint(
-                        new Point((int) p.x, (int) p.y),
-                        baseSize,
-                        dist,
-                        colors
-                );
+            int flickerAlpha = Math.max(0, Math.min(255, particles.getAlpha(k) - random.nextInt(50)));
 
-                g2d.setPaint(paint);
-
-                int offsetX = (int) (Math.random() * 4 - 2);
-                int offsetY = (int) (Math.random() * 4 - 2);
-
-                g2d.fillOval(
-                        (int) (p.x - baseSize / 2 + offsetX),
-                        (int) (p.y - baseSize / 2 + offsetY),
-                        baseSize,
-                        baseSize
-                );
-            }
+            int offsetX = (int) (random.nextDouble() * 4 - 2);
+            int offsetY = (int) (random.nextDouble() * 4 - 2);
 
+            GlowStampCache glows = particles.isEnemy(k) ? enemyParticleGlows : playerParticleGlows;
+            g2d.drawImage(glows.get(baseSize, 0, flickerAlpha),
+                    (int) (particles.getX(k) - baseSize / 2 + offsetX),
+                    (int) (particles.getY(k) - baseSize / 2 + offsetY),
+                    null);
         }
     }
 
@@ -416,29 +440,17 @@ public final class DrawManager {
 
         backBufferGraphics.setColor(Color.WHITE);
         int[][] positions = menuSpace.getStarLocations();
+        GlowStampCache glows = menuStarGlows.computeIfAbsent(menuSpace.getColor(),
+                color -> new GlowStampCache(STAR_FRACTIONS,
+                        new Color[]{color, new Color(255, 255, 200, 0)}));
 
         for(int i = 0; i < menuSpace.getNumStars(); i++){
 
             int size = 1;
             int radius = size * 2;
 
-            float[] dist = {0.0f, 1.0f};
-            Color[] colors = {
-                    menuSpace.getColor(),
-                    new Color(255, 255, 200, 0)
-            };
-
-            RadialGradientPaint paint = new RadialGradientPaint(
-                    new Point(positions[i][0], positions[i][1]),
-                    radius,
-                    dist,
-                    colors
-            );
-            g2d.setPaint(paint);
-            g2d.fillOval(positions[i][0] - radius / 2, positions[i][1] - radius / 2, radius, radius);
-
-
-            backBufferGraphics.fillOval(positions[i][0], positions[i][1], size, size);
+            g2d.drawImage(glows.get(radius, size, 255),
+                    positions[i][0] - radius / 2, positions[i][1] - radius / 2, null);
         }
     }
 
@@ -465,33 +477,14 @@ public final class DrawManager {
 
         backBufferGraphics.setColor(Color.WHITE);
         int[][] positions = basicGameSpace.getStarLocations();
+        GlowStampCache glows = basicGameSpace.isLastLife() ? lastLifeStarGlows : starGlows;
         for(int i = 0; i < basicGameSpace.getNumStars(); i++){
 
             int size = (positions[i][2] < 2) ? 2 : 1;
             int radius = size * 2;
 
-            float[] dist = {0.0f, 1.0f};
-            Color[] colors = new Color[2];
-            if(basicGameSpace.isLastLife()){
-                colors[0] = new Color(255, 0, 0, 100);
-                colors[1] = new Color(255, 0, 0, 50);
-            }
-            else{
-                colors[0] = new Color(255, 255, 200, 50);
-                colors[1] = new Color(255, 255, 200, 50);
-            }
-
-            RadialGradientPaint paint = new RadialGradientPaint(
-                    new Point(positions[i][0] + size / 2, positions[i][1] + size / 2),
-                    radius,
-                    dist,
-                    colors
-            );
-            g2d.setPaint(paint);
-            g2d.fillOval(positions[i][0] - radius / 2, positions[i][1] - radius / 2, radius, radius);
-
-
-            backBufferGraphics.fillOval(positions[i][0], positions[i][1], size, size);
+            g2d.drawImage(glows.get(radius, size, 255),
+                    positions[i][0] - radius / 2, positions[i][1] - radius / 2, null);
         }
     }
     /**
@@ -837,6 +830,33 @@ public final class DrawManager {
         backBufferGraphics.setColor(Color.WHITE);
         drawCenteredRegularString(screen, returnMenu, screen.getHeight()-50);
     }//ADD This Screen
+
+    /**
+     * Draws the profiling overlay over the top left of the screen.
+     *
+     * @param screen
+     *               Screen to draw on.
+     * @param lines
+     *               Lines of the overlay.
+     */
+    public void drawProfilerOverlay(final Screen screen, final List<String> lines) {
+        backBufferGraphics.setFont(PROFILER_FONT);
+        FontMetrics metrics = backBufferGraphics.getFontMetrics();
+        int lineHeight = metrics.getHeight();
+        int width = 0;
+        for (String line : lines)
+            width = Math.max(width, metrics.stringWidth(line));
+
+        int x = 4;
+        int y = 44;
+        backBufferGraphics.setColor(PROFILER_BACKGROUND);
+        backBufferGraphics.fillRect(x, y, Math.min(width + 8, screen.getWidth() - x * 2),
+                lineHeight * lines.size() + 6);
+        backBufferGraphics.setColor(Color.YELLOW);
+        for (int i = 0; i < lines.size(); i++)
+            backBufferGraphics.drawString(lines.get(i), x + 4,
+                    y + 3 + metrics.getAscent() + i * lineHeight);
+    }
     /**
      * Draws high score screen title and instructions.
      *
@@ -0,0 +1,147 @@
+package engine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * Drop tables of an item database, compiled once so a roll costs the same
+ * whatever the number of tiers and items, and allocates nothing.
+ *
+ * The tier is drawn from an alias table: each column holds one tier with
+ * some probability and its alias otherwise, so a draw picks a column and
+ * flips one biased coin. The pity boost only ever takes one of a few values,
+ * so there is a table for each of them, built when the class loads. Items
+ * of a tier are equally likely, so they are an array indexed directly.
+ */
+final class DropTable {
+
+    /** Weight taken off NONE per roll without a drop. */
+    private static final double PITY_STEP = 0.05;
+    /** Most weight taken off NONE. */
+    private static final double MAX_PITY_BOOST = 0.5;
+    /** Pity counts with their own table, the last one for any count above. */
+    private static final int PITY_LEVELS = (int) Math.ceil(MAX_PITY_BOOST / PITY_STEP) + 1;
+
+    /** Tiers, by ordinal. */
+    private static final ItemManager.DropTier[] TIERS = ItemManager.DropTier.values();
+    /** Probability each column keeps its own tier, by pity count and column. */
+    private static final double[][] PROBABILITY = new double[PITY_LEVELS][TIERS.length];
+    /** Tier ordinal of each column's alias, by pity count and column. */
+    private static final int[][] ALIAS = new int[PITY_LEVELS][TIERS.length];
+
+    static {
+        for (int pity = 0; pity < PITY_LEVELS; pity++) {
+            double boost = Math.min(pity * PITY_STEP, MAX_PITY_BOOST);
+            double[] weights = new double[TIERS.length];
+            for (ItemManager.DropTier tier : TIERS)
+                weights[tier.ordinal()] = tier == ItemManager.DropTier.NONE
+                        ? tier.tierWeight * (1.0 - boost) : tier.tierWeight;
+            buildAlias(weights, PROBABILITY[pity], ALIAS[pity]);
+        }
+    }
+
+    /** Items of each tier, by tier ordinal, in database order. */
+    private final ItemData[][] items = new ItemData[TIERS.length][];
+
+    /**
+     * Compiles the tables of an item database.
+     *
+     * @param itemDB
+     *            Item database.
+     */
+    DropTable(final ItemDB itemDB) {
+        Logger logger = Core.getLogger();
+        for (ItemManager.DropTier tier : TIERS) {
+            List<ItemData> candidates = new ArrayList<ItemData>();
+            for (ItemData data : itemDB.getAllItems())
+                if (data.getDropTier().equalsIgnoreCase(tier.name()))
+                    candidates.add(data);
+            this.items[tier.ordinal()] = candidates.toArray(new ItemData[0]);
+            if (candidates.isEmpty() && tier != ItemManager.DropTier.NONE)
+                logger.warning("[ItemManager]: No items defined for tier " + tier);
+        }
+    }
+
+    /**
+     * Draws a tier.
+     *
+     * @param pityCounter
+     *            Rolls since the last drop.
+     * @param roll
+     *            Uniform random number in [0, 1).
+     * @return Drawn tier.
+     */
+    static ItemManager.DropTier rollTier(final int pityCounter, final double roll) {
+        int pity = Math.min(pityCounter, PITY_LEVELS - 1);
+        // The integer part picks the column, the fraction flips its coin.
+        double scaled = roll * TIERS.length;
+        int column = (int) scaled;
+        return scaled - column < PROBABILITY[pity][column]
+                ? TIERS[column] : TIERS[ALIAS[pity][column]];
+    }
+
+    /**
+     * Gets the items of a tier.
+     *
+     * @param tier
+     *            Drop tier.
+     * @return Items of the tier, empty if none. Not to be modified.
+     */
+    ItemData[] getItems(final ItemManager.DropTier tier) {
+        return this.items[tier.ordinal()];
+    }
+
+    /**
+     * Builds an alias table with Vose's method.
+     *
+     * @param weights
+     *            Weight of each outcome, not all zero.
+     * @param probability
+     *            Filled with the probability each column keeps its outcome.
+     * @param alias
+     *            Filled with the alias of each column.
+     */
+    private static void buildAlias(final double[] weights, final double[] probability, final int[] alias) {
+        int n = weights.length;
+        double total = 0.0;
+        for (double weight : weights)
+            total += weight;
+
+        double[] scaled = new double[n];
+        int[] small = new int[n];
+        int[] large = new int[n];
+        int smallCount = 0;
+        int largeCount = 0;
+        for (int i = 0; i < n; i++) {
+            scaled[i] = weights[i] * n / total;
+            if (scaled[i] < 1.0)
+                small[smallCount++] = i;
+            else
+                large[largeCount++] = i;
+        }
+
+        while (smallCount > 0 && largeCount > 0) {
+            int less = small[--smallCount];
+            int more = large[--largeCount];
+            probability[less] = scaled[less];
+            alias[less] = more;
+            scaled[more] = scaled[more] + scaled[less] - 1.0;
+            if (scaled[more] < 1.0)
+                small[smallCount++] = more;
+            else
+                large[largeCount++] = more;
+        }
+        // What is left is full up to rounding errors.
+        while (largeCount > 0) {
+            int column = large[--largeCount];
+            probability[column] = 1.0;
+            alias[column] = column;
+        }
+        while (smallCount > 0) {
+            int column = small[--smallCount];
+            probability[column] = 1.0;
+            alias[column] = column;
+        }
+    }
+}
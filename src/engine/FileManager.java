@@ -3,21 +3,22 @@ package engine;
 import java.awt.Font;
 import java.awt.FontFormatException;
 import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.io.OutputStream;
-import java.io.OutputStreamWriter;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.logging.Logger;
 
 import engine.DrawManager.SpriteType;
@@ -37,6 +38,18 @@ public final class FileManager {
      * Application logger.
      */
     private static Logger logger;
+    /**
+     * Score stores opened so far, by file path.
+     */
+    private final Map<String, ScoreStore> scoreStores = new HashMap<>();
+    /**
+     * Achievement stores opened so far, by snapshot path.
+     */
+    private final Map<String, AchievementStore> achievementStores = new HashMap<>();
+    /**
+     * Scores waiting to be appended to each store.
+     */
+    private final Map<ScoreStore, Queue<Score>> unsavedScores = new HashMap<>();
 
     /**
      * private constructor.
@@ -144,122 +157,224 @@ public final class FileManager {
     }
 
     /**
-     * Returns the application default scores if there is no user high scores
-     * file.
+     * Returns the application default scores of a mode, used to start its
+     * history.
      *
+     * @param mode
+     *            get game mode 1P/2P.
      * @return Default high scores.
      * @throws IOException
      *             In case of loading problems.
      */
-    private List<Score> loadDefaultHighScores() throws IOException {
-        List<Score> highScores = new ArrayList<>();
-        InputStream inputStream = null;
-        BufferedReader reader;
-
-        try {
-            inputStream = FileManager.class.getClassLoader().getResourceAsStream("1Pscores.csv");
-            reader = new BufferedReader(new InputStreamReader(inputStream));
-
-            // except first line
-            reader.readLine();
-            String input;
-            while ((input = reader.readLine()) != null) {
-                String[] pair = input.split(",");
-                String name = pair[0], score = pair[1];
-                String mode = pair[2];
-                Score highScore = new Score(name, Integer.parseInt(score), mode);
-                highScores.add(highScore);
-            }
-        } finally {
-            if (inputStream != null)
-                inputStream.close();
+    private List<Score> loadDefaultHighScores(final String mode) throws IOException {
+        InputStream inputStream = FileManager.class.getClassLoader()
+                .getResourceAsStream(mode + "scores.csv");
+        if (inputStream == null)
+            return new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
+            return readScores(reader, mode);
         }
-
-        return highScores;
     }
 
     /**
-     * Loads high scores from file, and returns a sorted list of pairs score -
-     * value.
+     * Reads scores in the CSV format of the exported high scores.
+     *
+     * @param reader
+     *            CSV with a header line, then one name,score per line.
      * @param mode
-     *      get game mode 1P/2P.
-     * @return Sorted list of scores - players.
+     *            get game mode 1P/2P.
+     * @return Scores, in file order.
      * @throws IOException
      *             In case of loading problems.
      */
-    public List<Score> loadHighScores(String mode) throws IOException {
-        List<Score> highScores = new ArrayList<>();
-        InputStream inputStream = null;
-        BufferedReader bufferedReader = null;
-
-        try {
-            String scoresPath = getFilePath(mode+"scores.csv");
-
-            File scoresFile = new File(scoresPath);
-            inputStream = new FileInputStream(scoresFile);
-            bufferedReader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
-            logger.info("Loading user high scores.");
-            // except first line
-            bufferedReader.readLine();
-            String input;
-            while ((input = bufferedReader.readLine()) != null) {
-                String[] pair = input.split(",");
-                String name = pair[0], score = pair[1];
-                Score highScore = new Score(name, Integer.parseInt(score), mode);
-                highScores.add(highScore);
-            }
-        } catch (FileNotFoundException e) {
-            // loads default if there's no user scores.
-            logger.info("Loading default high scores.");
-            highScores = loadDefaultHighScores();
-        } finally {
-            if (bufferedReader != null)
-                bufferedReader.close();
+    private static List<Score> readScores(final BufferedReader reader, final String mode)
+            throws IOException {
+        List<Score> scores = new ArrayList<>();
+        // except first line
+        reader.readLine();
+        String input;
+        while ((input = reader.readLine()) != null) {
+            String[] pair = input.split(",");
+            if (pair.length < 2)
+                continue;
+            scores.add(new Score(pair[0], Integer.parseInt(pair[1].trim()), mode));
         }
-
-        Collections.sort(highScores);
-        return highScores;
+        return scores;
     }
 
     /**
-     * Saves user high scores to disk.
+     * Gets the score store of a mode, opening it the first time. A new
+     * store starts from the scores of the CSV exported by older versions,
+     * or from the default scores, imported in the background.
      *
-     * @param highScores
-     *            High scores to save.
      * @param mode
      *            get game mode 1P/2P.
-     *
+     * @return Store of the mode.
      * @throws IOException
      *             In case of loading problems.
      */
-    public void saveHighScores(final List<Score> highScores, String mode) throws IOException {
-        OutputStream outputStream = null;
-        BufferedWriter bufferedWriter = null;
-
-        try {
-            String scoresPath = getFilePath(mode+"scores.csv");
+    private ScoreStore getScoreStore(final String mode) throws IOException {
+        String storePath = getFilePath(mode + "scores.dat");
+        ScoreStore store = scoreStores.get(storePath);
+        if (store != null)
+            return store;
+
+        store = new ScoreStore(Paths.get(storePath),
+                Paths.get(getFilePath(mode + "scores.journal")), mode);
+        if (store.getCount() == 0) {
+            List<Score> initialScores;
+            File csvFile = new File(getFilePath(mode + "scores.csv"));
+            if (csvFile.exists()) {
+                logger.info("Importing " + mode + " high scores from " + csvFile.getName() + ".");
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                        new FileInputStream(csvFile), StandardCharsets.UTF_8))) {
+                    initialScores = readScores(reader, mode);
+                }
+            } else {
+                logger.info("Loading default high scores.");
+                initialScores = loadDefaultHighScores(mode);
+            }
+            // Imported in the background, read from the queue meanwhile.
+            unsavedQueue(store).addAll(initialScores);
+            submitSave(store, Paths.get(getFilePath(mode + "scores.csv")));
+        }
+        scoreStores.put(storePath, store);
+        return store;
+    }
 
-            File scoresFile = new File(scoresPath);
+    /**
+     * Loads the best scores of a mode, one per player name, best first,
+     * including the scores still waiting to be saved, without waiting for
+     * them.
+     *
+     * @param mode
+     *      get game mode 1P/2P.
+     * @param count
+     *      Maximum number of scores.
+     * @return Sorted list of scores - players.
+     * @throws IOException
+     *             In case of loading problems.
+     */
+    public List<Score> loadHighScores(final String mode, final int count) throws IOException {
+        logger.info("Loading user high scores.");
+        ScoreStore store = getScoreStore(mode);
+        Queue<Score> unsaved = unsavedScores.get(store);
+        // Scores still being saved are merged in, never waited for. The
+        // worker appends a score before taking it off the queue, so the
+        // queue must be copied before the store is read: a score gone from
+        // the copy is then already in the store. A score in both is
+        // absorbed by the merge by name.
+        List<Score> pending = unsaved == null ? new ArrayList<Score>() : new ArrayList<>(unsaved);
+        if (pending.isEmpty())
+            return store.getBest(count);
+
+        Map<String, Score> bestByName = new LinkedHashMap<>();
+        for (Score score : store.getBest(count))
+            bestByName.put(score.getName(), score);
+        for (Score score : pending) {
+            Score best = bestByName.get(score.getName());
+            if (best == null || score.getScore() > best.getScore())
+                bestByName.put(score.getName(), score);
+        }
+        // Stable, so ties keep stored scores before newer ones.
+        List<Score> merged = new ArrayList<>(bestByName.values());
+        Collections.sort(merged);
+        return merged.size() > count ? new ArrayList<>(merged.subList(0, count)) : merged;
+    }
 
-            if (!scoresFile.exists())
-                scoresFile.createNewFile();
+    /**
+     * Adds a score to the history of its mode, then exports the high scores
+     * of the mode to CSV, in the background.
+     *
+     * @param score
+     *            Score to save.
+     * @throws IOException
+     *             In case of loading problems.
+     */
+    public void saveScore(final Score score) throws IOException {
+        ScoreStore store = getScoreStore(score.getMode());
+        unsavedQueue(store).add(score);
+        submitSave(store, Paths.get(getFilePath(score.getMode() + "scores.csv")));
+    }
 
-            outputStream = new FileOutputStream(scoresFile);
-            bufferedWriter = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+    /**
+     * Gets the scores waiting to be appended to a store.
+     *
+     * @param store
+     *            Scores of a mode.
+     * @return Queue of unsaved scores, oldest first.
+     */
+    private Queue<Score> unsavedQueue(final ScoreStore store) {
+        return unsavedScores.computeIfAbsent(store, key -> new ConcurrentLinkedQueue<>());
+    }
 
+    /**
+     * Appends the unsaved scores of a store, then exports its high scores
+     * to CSV, in the background.
+     *
+     * @param store
+     *            Scores of a mode.
+     * @param csvFile
+     *            CSV file of the mode.
+     */
+    private void submitSave(final ScoreStore store, final Path csvFile) {
+        final Queue<Score> unsaved = unsavedQueue(store);
+        // Scores queued before the previous save ran are appended together.
+        // They leave the queue once appended, so readers always see them.
+        Core.getPersistenceWorker().submit(csvFile.toString(), () -> {
             logger.info("Saving user high scores.");
-            bufferedWriter.write("player,score");
-            bufferedWriter.newLine();
-
-            for(Score score : highScores) {
-                bufferedWriter.write(score.getName() + "," + score.getScore());
-                bufferedWriter.newLine();
+            List<Score> batch = new ArrayList<>(unsaved);
+            if (store.getCount() == 0) {
+                // An import is written whole or not at all.
+                store.appendAll(batch);
+                for (int i = 0; i < batch.size(); i++)
+                    unsaved.remove();
+            } else {
+                // One by one, so a failed save doesn't append the others again.
+                for (Score next : batch) {
+                    store.append(next);
+                    unsaved.remove();
+                }
             }
+            exportHighScores(store, csvFile);
+        });
+    }
 
-        } finally {
-            if (bufferedWriter != null)
-                bufferedWriter.close();
+    /**
+     * Writes the high scores of a store to CSV, in the format older versions
+     * read.
+     *
+     * @param store
+     *            Scores of a mode.
+     * @param csvFile
+     *            CSV file, replaced atomically.
+     * @throws IOException
+     *             In case of saving problems.
+     */
+    private static void exportHighScores(final ScoreStore store, final Path csvFile) throws IOException {
+        StringBuilder csv = new StringBuilder("player,score").append(System.lineSeparator());
+        for (Score score : store.getBest(ScoreStore.INDEX_SIZE))
+            csv.append(score.getName()).append(',').append(score.getScore()).append(System.lineSeparator());
+        PersistenceWorker.writeAtomically(csvFile, csv.toString());
+    }
+
+    /**
+     * Gets the achievement store, opening it the first time.
+     *
+     * @return Achievements of every player.
+     * @throws IOException
+     *             In case of loading problems.
+     */
+    private AchievementStore getAchievementStore() throws IOException {
+        String achievementPath = getFilePath("achievement.csv");
+        AchievementStore store = achievementStores.get(achievementPath);
+        if (store == null) {
+            store = new AchievementStore(Paths.get(achievementPath),
+                    Paths.get(getFilePath("achievement.log")));
+            achievementStores.put(achievementPath, store);
         }
+        return store;
     }
 
     /**
@@ -271,45 +386,18 @@ public final class FileManager {
     public List<Boolean> searchAchievementsByName(String userName) throws IOException {
         List<Boolean> achievementList = new ArrayList<>();
 
-        try {
-            String achievementPath = getFilePath("achievement.csv");
-
-            try (BufferedReader bReader = new BufferedReader(
-                    new InputStreamReader(new FileInputStream(achievementPath), StandardCharsets.UTF_8))) {
-
-                bReader.readLine(); // Skip header
-                String line;
-                boolean found = false;
-
-                while ((line = bReader.readLine()) != null) {
-                    String[] playRecord = line.split(",");
-                    if (playRecord.length < 3) continue; // Minimum fields: mode, userName, at least 1 achievement
-
-                    String mode = playRecord[0].trim(); // Mode: "1" or "2"
-                    String name = playRecord[1].trim();
-
-                    if (name.equals(userName)) {
-                        found = true;
-                        logger.info("Loading user achievements.");
-                        // Achievements start from index 2
-                        for (int i = 2; i < playRecord.length; i++) {
-                            achievementList.add(playRecord[i].equals("1"));
-                        }
-                        break;
-                    }
-                }
-
-                if (!found) {
-                    logger.info("Loading default achievements.");
-                    for (int i = 0; i < 5; i++) { // Default to 5 achievements, all set to false
-                        achievementList.add(false);
-                    }
-                }
-            }
-
-        } catch (FileNotFoundException e) {
-            logger.info("Achievement file not found, loading default achievements.");
-            for (int i = 0; i < 5; i++) {
+        AchievementStore store = getAchievementStore();
+        Long unlocked = store.getUnlocked("1", userName);
+        if (unlocked == null)
+            unlocked = store.getUnlocked("2", userName);
+
+        if (unlocked != null) {
+            logger.info("Loading user achievements.");
+            for (int i = 0; i < store.getColumns().size(); i++)
+                achievementList.add((unlocked & (1L << i)) != 0);
+        } else {
+            logger.info("Loading default achievements.");
+            for (int i = 0; i < 5; i++) { // Default to 5 achievements, all set to false
                 achievementList.add(false);
             }
         }
@@ -321,74 +409,27 @@ public final class FileManager {
     /**
      * Unlocks achievements for a specific user.
      *
-     * @param userName             The name of the user.
-     * @param unlockedAchievement  A list of booleans representing which achievements have been unlocked.
+     * @param userName      The name of the user.
+     * @param achievements  Every achievement, unlocked or not.
+     * @param mode          Game mode, 1P or 2P.
      */
-    public void unlockAchievement(String userName, List<Boolean> unlockedAchievement, String mode) {
-        List<String[]> records = new ArrayList<>();
-
+    public void unlockAchievement(String userName, List<Achievement> achievements, String mode) {
         // Extract only numeric part from mode string (e.g., "1P" → "1", "2P" → "2")
         String numericMode = mode.replaceAll("[^0-9]", "");
 
-        try {
-            String achievementPath = getFilePath("achievement.csv");
-
-            try (BufferedReader bReader = new BufferedReader(
-                    new InputStreamReader(new FileInputStream(achievementPath), StandardCharsets.UTF_8))) {
-
-                String line;
-                boolean found = false;
-
-                while ((line = bReader.readLine()) != null) {
-                    String[] playRecord = line.split(",");
-
-                    // Skip invalid or incomplete lines
-                    if (playRecord.length < 3) {
-                        records.add(playRecord);
-                        continue;
-                    }
-
-                    String currentMode = playRecord[0].trim();
-                    String name = playRecord[1].trim();
-
-                    // ✅ Match both user name and mode to consider it the same record
-                    if (name.equals(userName) && currentMode.equals(numericMode)) {
-                        found = true;
-                        Logger.getLogger(getClass().getName()).info("Achievement has been updated.");
-                        for (int i = 2; i < playRecord.length; i++) {
-                            if (playRecord[i].equals("0") && unlockedAchievement.get(i - 2)) {
-                                playRecord[i] = "1";
-                            }
-                        }
-                    }
-
-                    records.add(playRecord);
-                }
-
-                // If no existing record found, create a new one
-                if (!found) {
-                    Logger.getLogger(getClass().getName()).info("User not found, creating new record.");
-                    String[] newRecord = new String[unlockedAchievement.size() + 2];
-                    newRecord[0] = numericMode; // Store numeric mode only
-                    newRecord[1] = userName;
-                    for (int i = 0; i < unlockedAchievement.size(); i++) {
-                        newRecord[i + 2] = unlockedAchievement.get(i) ? "1" : "0";
-                    }
-                    records.add(newRecord);
-                }
-            }
-
-            // Write the updated records back to the CSV file
-            try (BufferedWriter bWriter = new BufferedWriter(
-                    new OutputStreamWriter(new FileOutputStream(achievementPath), StandardCharsets.UTF_8))) {
-                for (String[] record : records) {
-                    bWriter.write(String.join(",", record));
-                    bWriter.newLine();
-                }
-            }
+        List<String> unlocked = new ArrayList<>();
+        for (Achievement achievement : achievements)
+            if (achievement.isUnlocked())
+                unlocked.add(achievement.getName());
 
+        try {
+            AchievementStore store = getAchievementStore();
+            store.unlock(numericMode, userName, unlocked);
+            logger.info("Achievement has been updated.");
+            // Unlocks made before the previous save ran are logged together.
+            Core.getPersistenceWorker().submit(getFilePath("achievement.log"), store::writeChanges);
         } catch (IOException e) {
-            Logger.getLogger(getClass().getName()).info("No achievements to save or error occurred.");
+            logger.info("No achievements to save or error occurred.");
         }
     }
 
@@ -404,52 +445,19 @@ public final class FileManager {
      * [2025-10-09] Added in commit: feat: add method to retrieve achievement completer
      */
     public List<String> getAchievementCompleter(Achievement achievement) {
-        List<String> completer = new ArrayList<>();
         try {
-            String achievementPath = getFilePath("achievement.csv");
-
-            try (BufferedReader bReader = new BufferedReader(
-                    new InputStreamReader(new FileInputStream(achievementPath), StandardCharsets.UTF_8))) {
-
-                String line;
-                String[] header = bReader.readLine().split(",");
-                int idx = -1;
-
-                // Find the column index of the given achievement name
-                for (int i = 2; i < header.length; i++) { // Achievements start from column index 2
-                    if (header[i].trim().equalsIgnoreCase(achievement.getName().trim())) {
-                        idx = i;
-                        break;
-                    }
-                }
-
-                if (idx == -1) {
-                    logger.warning("Achievement not found: " + achievement.getName());
-                    return completer;
-                }
-
-                // Parse each line in the file
-                while ((line = bReader.readLine()) != null) {
-                    String[] tokens = line.split(",");
-                    if (tokens.length <= idx) continue;
-
-                    String mode = tokens[0].trim();
-                    String playerName = tokens[1].trim();
-                    String value = tokens[idx].trim();
-
-                    if (value.equals("1")) {
-                        completer.add(mode + ":" + playerName);
-                    }
-                }
-
+            List<String> completer = getAchievementStore().getCompleters(achievement.getName());
+            if (completer == null) {
+                logger.warning("Achievement not found: " + achievement.getName());
+                return new ArrayList<>();
             }
-
+            return completer;
         } catch (IOException e) {
             logger.warning("Error reading achievement file. Returning default users...");
+            List<String> completer = new ArrayList<>();
             completer.add("1:ABC");
             completer.add("2:DEF");
+            return completer;
         }
-
-        return completer;
     }
 }
\ No newline at end of file
@@ -0,0 +1,163 @@
+package engine;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collects what the profiling overlay shows: percentiles of the frame time
+ * over the last second, how fast the game loop allocates, and the time of
+ * each update phase over the same second. F3 toggles the overlay in game.
+ */
+public final class FrameProfiler {
+
+	/** Length of the window the frame and phase time percentiles cover. */
+	private static final long WINDOW_NANOS = 1000000000L;
+	/** Update phases shown, by histogram name. */
+	private static final String[] PHASES = { "update.input", "update.movement",
+			"update.collisions", "update.cleanBullets", "update.items", "update.timers",
+			"render.draw", "render.completeDrawing", "sound.submit" };
+
+	/** Every frame time, for the dump on exit. */
+	private static final Metrics.Histogram FRAMES = Metrics.histogram("frame");
+	/** Frame times of the current window. */
+	private static final Metrics.Histogram WINDOW = new Metrics.Histogram();
+	/** Phase times of the current window, in the order of PHASES. */
+	private static final Metrics.Histogram[] PHASE_WINDOWS = phaseWindows();
+	/** Allocation counter of the current thread, or null if unsupported. */
+	private static final com.sun.management.ThreadMXBean ALLOCATIONS = allocationCounter();
+
+	/** True while the overlay is shown. */
+	private static boolean visible;
+	/** Start of the current window. */
+	private static long windowStart = System.nanoTime();
+	/** Bytes the game loop had allocated at the start of the window. */
+	private static long windowAllocated = allocatedBytes();
+	/** Frame time percentiles of the last window: p50, p95, p99, max. */
+	private static final long[] framePercentiles = new long[4];
+	/** Phase time percentiles of the last window, p50 and p99 per phase. */
+	private static final long[][] phasePercentiles = new long[PHASES.length][2];
+	/** Frames per second of the last window. */
+	private static long framesPerSecond;
+	/** Bytes per second the game loop allocated in the last window, -1 if unknown. */
+	private static long allocationRate = -1;
+
+	/**
+	 * Constructor, not called.
+	 */
+	private FrameProfiler() {
+
+	}
+
+	/**
+	 * Records the time between two rendered frames, on the game loop.
+	 *
+	 * @param frameNanos
+	 *            Time since the last frame, in nanoseconds.
+	 */
+	public static void frameRendered(final long frameNanos) {
+		FRAMES.record(frameNanos);
+		WINDOW.record(frameNanos);
+
+		long now = System.nanoTime();
+		long elapsed = now - windowStart;
+		if (elapsed < WINDOW_NANOS)
+			return;
+		framePercentiles[0] = WINDOW.getPercentile(50);
+		framePercentiles[1] = WINDOW.getPercentile(95);
+		framePercentiles[2] = WINDOW.getPercentile(99);
+		framePercentiles[3] = WINDOW.getMax();
+		framesPerSecond = WINDOW.getCount() * WINDOW_NANOS / elapsed;
+		long allocated = allocatedBytes();
+		allocationRate = allocated < 0 || windowAllocated < 0
+				? -1 : (allocated - windowAllocated) * WINDOW_NANOS / elapsed;
+		windowAllocated = allocated;
+		windowStart = now;
+		WINDOW.reset();
+		for (int i = 0; i < PHASES.length; i++) {
+			phasePercentiles[i][0] = PHASE_WINDOWS[i].getPercentile(50);
+			phasePercentiles[i][1] = PHASE_WINDOWS[i].getPercentile(99);
+			PHASE_WINDOWS[i].reset();
+		}
+	}
+
+	/**
+	 * Shows the overlay if hidden, hides it if shown.
+	 */
+	public static void toggle() {
+		visible = !visible;
+	}
+
+	/**
+	 * Checks if the overlay is shown.
+	 *
+	 * @return True while the overlay is shown.
+	 */
+	public static boolean isVisible() {
+		return visible;
+	}
+
+	/**
+	 * Describes the last window for the overlay.
+	 *
+	 * @param bullets
+	 *            Bullets on screen.
+	 * @param items
+	 *            Items on screen.
+	 * @param enemies
+	 *            Enemy ships left.
+	 * @return Lines of the overlay.
+	 */
+	public static List<String> describe(final int bullets, final int items, final int enemies) {
+		List<String> lines = new ArrayList<String>();
+		lines.add(String.format("FPS %d  frame p50 %.1f p95 %.1f p99 %.1f max %.1f ms",
+				framesPerSecond, framePercentiles[0] / 1e6, framePercentiles[1] / 1e6,
+				framePercentiles[2] / 1e6, framePercentiles[3] / 1e6));
+		lines.add(allocationRate < 0 ? "alloc n/a"
+				: String.format("alloc %.2f MB/s", allocationRate / (1024.0 * 1024.0)));
+		lines.add(String.format("bullets %d  items %d  enemies %d  timers %d",
+				bullets, items, enemies, Core.getTimerWheel().getPending()));
+		for (int i = 0; i < PHASES.length; i++)
+			lines.add(String.format("%-22s p50 %6.1f p99 %7.1f us", PHASES[i],
+					phasePercentiles[i][0] / 1e3, phasePercentiles[i][1] / 1e3));
+		return lines;
+	}
+
+	/**
+	 * Gets the window histograms of the phases, recorded alongside the
+	 * histograms the metrics dump reports.
+	 *
+	 * @return Histogram of the current window per phase.
+	 */
+	private static Metrics.Histogram[] phaseWindows() {
+		Metrics.Histogram[] windows = new Metrics.Histogram[PHASES.length];
+		for (int i = 0; i < PHASES.length; i++)
+			windows[i] = Metrics.histogram(PHASES[i]).getWindow();
+		return windows;
+	}
+
+	/**
+	 * Gets the allocation counter of threads, when the JVM has one.
+	 *
+	 * @return Thread bean counting allocations, or null.
+	 */
+	private static com.sun.management.ThreadMXBean allocationCounter() {
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		if (!(threads instanceof com.sun.management.ThreadMXBean))
+			return null;
+		com.sun.management.ThreadMXBean counter = (com.sun.management.ThreadMXBean) threads;
+		if (!counter.isThreadAllocatedMemorySupported() || !counter.isThreadAllocatedMemoryEnabled())
+			return null;
+		return counter;
+	}
+
+	/**
+	 * Gets the bytes the current thread allocated so far.
+	 *
+	 * @return Allocated bytes, or -1 if unknown.
+	 */
+	private static long allocatedBytes() {
+		return ALLOCATIONS == null ? -1 : ALLOCATIONS.getCurrentThreadAllocatedBytes();
+	}
+}
@@ -0,0 +1,17 @@
+package engine;
+
+/**
+ * Source of the time gameplay runs on. Cooldowns read their time from a
+ * clock instead of the wall clock, so the game can run on simulated time,
+ * or freeze all its timers at once while paused.
+ */
+public interface GameClock {
+
+	/**
+	 * Gets the current time on this clock. Never 0, as cooldowns treat a 0
+	 * start time as not started.
+	 *
+	 * @return Current time, in milliseconds.
+	 */
+	long millis();
+}
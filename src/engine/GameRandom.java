@@ -0,0 +1,83 @@
+package engine;
+
+import java.util.SplittableRandom;
+
+/**
+ * Central source of randomness. Every subsystem draws from its own stream,
+ * split from a single seed, so one subsystem drawing more or less often
+ * never changes what the others get: a game is reproduced exactly by its
+ * seed, whether or not it is rendered.
+ *
+ * Streams are replaced on reseed, so callers get them on each use instead
+ * of keeping them.
+ */
+public final class GameRandom {
+
+	/** Subsystems with their own random stream. */
+	public enum Stream {
+		/** Durations of cooldowns with variance. */
+		COOLDOWN,
+		/** Enemy formation shooters. */
+		FORMATION,
+		/** Item drops. */
+		ITEMS,
+		/** Explosion particles. */
+		PARTICLES,
+		/** Background stars. */
+		BACKGROUND,
+		/** Per-frame drawing effects, such as particle flicker. */
+		RENDERING,
+		/** Scripted players of headless simulations. */
+		BOT
+	}
+
+	/** Seed of the current streams. */
+	private static long seed;
+	/** Current stream of each subsystem, by ordinal. */
+	private static final SplittableRandom[] streams = new SplittableRandom[Stream.values().length];
+
+	static {
+		reseed(System.nanoTime());
+	}
+
+	/**
+	 * Private constructor.
+	 */
+	private GameRandom() {
+	}
+
+	/**
+	 * Restarts every stream from a seed.
+	 *
+	 * @param newSeed
+	 *            Seed all streams are split from.
+	 */
+	public static void reseed(final long newSeed) {
+		seed = newSeed;
+		SplittableRandom root = new SplittableRandom(newSeed);
+		// Split in declaration order, so each stream only depends on the seed.
+		for (int i = 0; i < streams.length; i++)
+			streams[i] = root.split();
+	}
+
+	/**
+	 * Getter for the seed of the current streams.
+	 *
+	 * @return Seed.
+	 */
+	public static long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * Gets the stream of a subsystem. Not thread safe: streams are only used
+	 * from the game thread.
+	 *
+	 * @param stream
+	 *            Subsystem.
+	 * @return Random stream.
+	 */
+	public static SplittableRandom get(final Stream stream) {
+		return streams[stream.ordinal()];
+	}
+}
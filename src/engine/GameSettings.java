@@ -1,8 +1,9 @@
 package engine;
 
 import java.awt.*;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.nio.file.*;
@@ -17,6 +18,10 @@ import java.util.logging.Logger;
 public class GameSettings {
 
 	private static final Logger LOGGER = Logger.getLogger(Core.class.getSimpleName());
+	/** Level file edited by designers. */
+	private static final Path LEVEL_CSV = Paths.get("res", "level.csv");
+	/** Level file the game loads, compiled from LEVEL_CSV. */
+	private static final Path LEVEL_PACK = Paths.get("res", "level.pack");
 	/** Width of the level's enemy formation. */
 	private int formationWidth;
 	/** Height of the level's enemy formation. */
@@ -53,16 +58,6 @@ public class GameSettings {
 		}
 	}
 
-	// StageData: Structure of GameSettings + List<ChangeData> at each stage
-	public static class StageData {
-		public GameSettings settings;
-		public List<ChangeData> changeList;
-		public StageData(GameSettings settings, List<ChangeData> changeList) {
-			this.settings = settings;
-			this.changeList = changeList;
-		}
-	}
-
 	public static Color hexToColor(String hex) {
 		if(hex.startsWith("#")) hex = hex.substring(1);
 		if(hex.length() > 6) {
@@ -79,84 +74,61 @@ public class GameSettings {
 		return new Color(rgb);
 	}
 
-	public static List<StageData> parseStages(Path path) throws Exception {
-		String raw = Files.readString(path);
-		raw = raw.replace("\uFEFF", "");
-		raw = raw.replaceAll("(?m)^\\s*//.*$", "");
-
-		String[] stageBlocks = raw.split("&");
-		List<StageData> result = new ArrayList<>();
-		for(String block: stageBlocks) {
-			List<String> lines = Arrays.stream(block.split("\n"))
-					.map(String::trim)
-					.filter(s -> !s.isEmpty() && !s.startsWith("//")) // Deleting comments and empty lines
-					.toList();
-			if(lines.isEmpty()) continue;
-
-			String[] ints = lines.get(0).split(",");
-			GameSettings settings = new GameSettings(
-					Integer.parseInt(ints[0].trim()),
-					Integer.parseInt(ints[1].trim()),
-					Integer.parseInt(ints[2].trim()),
-					Integer.parseInt(ints[3].trim())
-			);
-
-			List<ChangeData> changeList = new ArrayList<>();
-			for(int i = 1; i < lines.size(); i++) {
-				String[] parts = lines.get(i).split(",");
-				int x = Integer.parseInt(parts[0].trim());
-				int y = Integer.parseInt(parts[1].trim());
-				int z = Integer.parseInt(parts[2].trim());
-				int w = Integer.parseInt(parts[3].trim());
-				Color color = null;
-				if(parts.length >= 5) {
-					String hex = parts[4].trim();
-					if(hex.startsWith("#")) hex = hex.substring(1);
-					color = hexToColor(hex);
-				}
-				changeList.add(new ChangeData(x, y, z, w, color));
-			}
-			result.add(new StageData(settings, changeList));
-		}
-
-		return result;
-	}
-
 	private List<ChangeData> changeDataList;
 	public final List<ChangeData> getChangeDataList() {
 		return changeDataList;
 	}
 
-	public static List<GameSettings> getGameSettings(){
-		List<GameSettings> result = new ArrayList<>();
-		List<StageData> stageDataList;
-
-		GameSettings setting;
-
-		try {
-			stageDataList = parseStages(Paths.get("res", "level.csv"));
-			for(StageData s : stageDataList) {
-				setting = s.settings;
-				setting.changeDataList = new ArrayList<>();
+	/** Stages last published, null until first loaded. */
+	private static volatile List<GameSettings> levels;
 
-				setting.changeDataList.addAll(s.changeList);
-				result.add(setting);
+	/**
+	 * Gets the stages last published. The first call loads them from the
+	 * level pack, compiling res/level.csv into it first if the pack is
+	 * missing or older than the CSV, and closes the game if they can't be
+	 * loaded. Stages are decoded when first asked for.
+	 *
+	 * @return Settings of every stage.
+	 */
+	public static List<GameSettings> getGameSettings(){
+		if (levels != null)
+			return levels;
+		synchronized (GameSettings.class) {
+			if (levels != null)
+				return levels;
+			try {
+				if (LevelCompiler.isStale(LEVEL_CSV, LEVEL_PACK)) {
+					int stages = LevelCompiler.compile(LEVEL_CSV, LEVEL_PACK);
+					LOGGER.info("Compiled " + stages + " stages of level.csv into level.pack.");
+				}
+				levels = new LevelPack(LEVEL_PACK);
+				return levels;
+			} catch (IOException e) {
+				LOGGER.info("Failed Loading Data: " + e.getMessage());
+				LOGGER.info("By the error, game is closing.");
+				System.exit(1);
+				return Collections.emptyList();
 			}
-		} catch (Exception e) {
-			LOGGER.info("Failed Loading Data: There is no such file named " + e.getMessage());
-			LOGGER.info("By the error, game is closing.");
-			System.exit(1);
-			return Collections.emptyList();
-		}
-
-		if(stageDataList.isEmpty()) {
-			LOGGER.info("Failed Loading Data: There is no data in level.csv file.");
-			LOGGER.info("By the error, game is closing.");
-			System.exit(1);
-			return Collections.emptyList();
 		}
+	}
 
-		return result;
+	/**
+	 * Compiles res/level.csv again and publishes its stages, which the next
+	 * game screen plays. Screens already created keep their stage. The new
+	 * stages are decoded from memory rather than written over level.pack,
+	 * which the stages published before may still have mapped, and which
+	 * some systems refuse to replace while mapped. The next start compiles
+	 * level.pack again, as it is then older than the CSV.
+	 *
+	 * @throws IOException
+	 *             When the CSV can't be read or has invalid stages, keeping
+	 *             the stages published before.
+	 */
+	public static void reloadGameSettings() throws IOException {
+		List<GameSettings> reloaded = new LevelPack(ByteBuffer.wrap(LevelCompiler.compile(LEVEL_CSV)),
+				LEVEL_CSV.toString());
+		levels = reloaded;
+		LOGGER.info("Compiled " + reloaded.size() + " stages of level.csv.");
 	}
 
 
@@ -3,6 +3,7 @@ package engine;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.logging.Level;
 import engine.ItemEffect.ItemEffectType;
 
 /**
@@ -37,12 +38,13 @@ public class GameState {
     private static int coins = 0; // ADD THIS LINE - edited for 2P mode
 
     private static class EffectState {
-        Cooldown cooldown;
+        /** Expires the effect, so it never has to be polled. */
+        TimerWheel.Timer timer;
         boolean active;
         Integer effectValue;
 
         EffectState() {
-            this.cooldown = null;
+            this.timer = null;
             this.active = false;
             this.effectValue = null;
         }
@@ -165,7 +167,8 @@ public class GameState {
         Integer multiplier = getEffectValue(p, ItemEffect.ItemEffectType.SCOREBOOST);
         if (multiplier != null) {
             realDelta = delta * multiplier;
-            logger.info("[GameState] Player " + (p + 1) + " ScoreBoost active (x" + multiplier + "). Score changed from " + delta + " to " + realDelta);
+            if (logger.isLoggable(Level.FINE))
+                logger.fine("[GameState] Player " + (p + 1) + " ScoreBoost active (x" + multiplier + "). Score changed from " + delta + " to " + realDelta);
         }
 		score[p] += realDelta;
 	}
@@ -285,18 +288,19 @@ public class GameState {
 
         String valueStr = (effectValue != null) ? " (value: " + effectValue + ")" : "";
 
-        if (state.active && state.cooldown != null) {
+        if (state.active && state.timer != null) {
             // Extend existing effect
-            state.cooldown.addTime(durationSeconds * 1000);
+            state.timer.addTime(durationSeconds * 1000);
 
             state.effectValue = effectValue;
 
             logger.info("[GameState] Player " + playerIndex + " extended " + type
-                    + valueStr + ") by " + durationSeconds + "s to " + state.cooldown.getDuration() );
+                    + valueStr + ") by " + durationSeconds + "s to " + state.timer.getRemaining() );
         } else {
-            // Start new effect
-            state.cooldown = Core.getCooldown(durationSeconds * 1000);
-            state.cooldown.reset();
+            // Start new effect, cleared by its timer on expiry
+            state.timer = Core.getTimer(durationSeconds * 1000,
+                    () -> expireEffect(playerIndex, type, state));
+            state.timer.reset();
             state.active = true;
 
             state.effectValue = effectValue;
@@ -313,9 +317,7 @@ public class GameState {
         if (effects == null) return false;
 
         EffectState state = effects.get(type);
-        if (state == null || !state.active) return false;
-
-        return !state.cooldown.checkFinished();
+        return state != null && state.active;
     }
 
     /**
@@ -337,30 +339,15 @@ public class GameState {
         EffectState state = effects.get(type);
         if (state == null || !state.active) return null;
 
-        // Check if effect is still valid (not expired)
-        if (state.cooldown != null && state.cooldown.checkFinished()) {
-            return null;
-        }
-
         return state.effectValue;
     }
 
-    /** Call this each frame to clean up expired effects */
-    public void updateEffects() {
-        for (int p = 0; p < NUM_PLAYERS; p++) {
-            Map<ItemEffectType, EffectState> effects = playerEffects.get(p);
-            if (effects == null) continue;
-
-            for (Map.Entry<ItemEffectType, EffectState> entry : effects.entrySet()) {
-                EffectState state = entry.getValue();
-                if (state.active && state.cooldown != null && state.cooldown.checkFinished()) {
-                    logger.info("[GameState] Player " + p + " effect " + entry.getKey() + " expired.");
-                    state.active = false;
-                    state.cooldown = null;  // Release reference
-                    state.effectValue = null;
-                }
-            }
-        }
+    /** Clears an effect when its timer expires */
+    private void expireEffect(int playerIndex, ItemEffectType type, EffectState state) {
+        logger.info("[GameState] Player " + playerIndex + " effect " + type + " expired.");
+        state.active = false;
+        state.timer = null;  // Release reference
+        state.effectValue = null;
     }
 
     /** Clear all active effects for a specific player */
@@ -377,8 +364,10 @@ public class GameState {
             EffectState state = entry.getValue();
             // if state active then false
             if (state.active) {
+                if (state.timer != null)
+                    state.timer.cancel();
                 state.active = false;
-                state.cooldown = null;
+                state.timer = null;
                 state.effectValue = null;
             }
         }
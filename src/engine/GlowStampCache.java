@@ -0,0 +1,96 @@
+package engine;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RadialGradientPaint;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Keeps pre-rendered glows of one radial gradient palette, so stars and
+ * particles are drawn as image stamps instead of building a gradient paint
+ * for each of them. A glow is an oval whose diameter equals the gradient
+ * radius, optionally with a small core drawn from its center.
+ */
+final class GlowStampCache {
+
+    /** Number of opacity levels a glow is quantized to. */
+    private static final int ALPHA_BUCKETS = 16;
+
+    /** Relative positions of the gradient colors. */
+    private final float[] fractions;
+    /** Gradient colors at full opacity. */
+    private final Color[] colors;
+    /** Rendered stamps, by packed diameter, core and opacity level. */
+    private final Map<Integer, BufferedImage> stamps = new HashMap<Integer, BufferedImage>();
+
+    /**
+     * Constructor, sets the gradient of the glows.
+     *
+     * @param fractions
+     *            Relative positions of the gradient colors, from the center.
+     * @param colors
+     *            Gradient colors at full opacity.
+     */
+    GlowStampCache(final float[] fractions, final Color[] colors) {
+        this.fractions = fractions;
+        this.colors = colors;
+    }
+
+    /**
+     * Gets a glow stamp, rendering it if needed. Its top left corner goes at
+     * the glow center minus half the diameter.
+     *
+     * @param diameter
+     *            Diameter of the glow, also the gradient radius.
+     * @param core
+     *            Size of the core drawn from the center, 0 for none.
+     * @param alpha
+     *            Opacity applied to the gradient colors, 0 to 255.
+     * @return Glow stamp.
+     */
+    BufferedImage get(final int diameter, final int core, final int alpha) {
+        int bucket = (Math.max(0, Math.min(255, alpha)) * (ALPHA_BUCKETS - 1) + 127) / 255;
+        int key = (diameter << 16) | (core << 8) | bucket;
+        BufferedImage stamp = this.stamps.get(key);
+        if (stamp == null) {
+            stamp = render(diameter, core, bucket * 255 / (ALPHA_BUCKETS - 1));
+            this.stamps.put(key, stamp);
+        }
+        return stamp;
+    }
+
+    /**
+     * Renders a glow stamp.
+     *
+     * @param diameter
+     *            Diameter of the glow, also the gradient radius.
+     * @param core
+     *            Size of the core drawn from the center, 0 for none.
+     * @param alpha
+     *            Opacity applied to the gradient colors, 0 to 255.
+     * @return New glow stamp.
+     */
+    private BufferedImage render(final int diameter, final int core, final int alpha) {
+        Color[] scaled = new Color[this.colors.length];
+        for (int i = 0; i < scaled.length; i++) {
+            Color color = this.colors[i];
+            scaled[i] = new Color(color.getRed(), color.getGreen(), color.getBlue(),
+                    color.getAlpha() * alpha / 255);
+        }
+
+        BufferedImage stamp = SpriteCache.createImage(diameter, diameter);
+        Graphics2D graphics = stamp.createGraphics();
+        graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
+                RenderingHints.VALUE_ANTIALIAS_ON);
+        graphics.setPaint(new RadialGradientPaint(diameter / 2f, diameter / 2f,
+                diameter, this.fractions, scaled));
+        graphics.fillOval(0, 0, diameter, diameter);
+        if (core > 0)
+            graphics.fillOval(diameter / 2, diameter / 2, core, core);
+        graphics.dispose();
+        return stamp;
+    }
+}
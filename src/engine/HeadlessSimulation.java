@@ -0,0 +1,263 @@
+package engine;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+
+import entity.Ship;
+import screen.HeadlessDriver;
+import screen.Screen;
+
+/**
+ * Plays whole games without a window, sound or real time, as fast as the CPU
+ * allows, with a bot or a replay in place of the players. Meant for batch
+ * balance tests on machines without a display.
+ *
+ * Usage: HeadlessSimulation [--games n] [--seed n] [--coop]
+ * [--bot sweep|idle] [--max-ticks n]
+ */
+public final class HeadlessSimulation implements HeadlessDriver {
+
+    /** Game time of one update. */
+    static final long TICK_NANOS = 1000000000L / Core.FPS;
+    /** Default limit of updates per level, ten minutes of game time. */
+    static final int DEFAULT_MAX_TICKS = Core.FPS * 60 * 10;
+    /** Game time every game starts at, past zero as cooldowns treat 0 as unset. */
+    static final long GAME_START_NANOS = 1000000000L;
+
+    /** Bot playing the game. */
+    public enum Bot {
+        /** Never moves nor shoots. */
+        IDLE,
+        /** Always shoots, moving one way then the other at random. */
+        SWEEP
+    }
+
+    /** Maximum updates per level. */
+    private final int maxTicks;
+    /** Input manager the input is pressed on. */
+    private final InputManager inputManager = Core.getInputManager();
+    /** Simulated game time, one update per update. */
+    private final TickClock clock = new TickClock(TICK_NANOS, GAME_START_NANOS);
+    /** Input of the current game. */
+    private PlayerInput input;
+    /** Real time of one update, 0 to run as fast as possible. */
+    private long pacingNanos;
+    /** Real time the next update is due at, when paced. */
+    private long nextUpdateNanos;
+    /** True if the current game was stopped early. */
+    private boolean stopped;
+
+    /**
+     * Constructor, sets the update limit.
+     *
+     * @param maxTicks
+     *            Maximum updates per level, before it is given up.
+     */
+    public HeadlessSimulation(final int maxTicks) {
+        this.maxTicks = maxTicks;
+    }
+
+    /**
+     * Runs a batch of games from the command line and prints their results.
+     *
+     * @param args
+     *            Options, see the class description.
+     */
+    public static void main(final String[] args) {
+        System.setProperty("java.awt.headless", "true");
+
+        int games = 1;
+        long seed = System.nanoTime();
+        boolean coop = false;
+        Bot bot = Bot.SWEEP;
+        int maxTicks = DEFAULT_MAX_TICKS;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--games":
+                        games = Integer.parseInt(args[++i]);
+                        break;
+                    case "--seed":
+                        seed = Long.parseLong(args[++i]);
+                        break;
+                    case "--coop":
+                        coop = true;
+                        break;
+                    case "--bot":
+                        bot = Bot.valueOf(args[++i].toUpperCase());
+                        break;
+                    case "--max-ticks":
+                        maxTicks = Integer.parseInt(args[++i]);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown option " + args[i]);
+                }
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Invalid arguments: " + e.getMessage());
+            System.err.println("Usage: HeadlessSimulation [--games n] [--seed n] [--coop]"
+                    + " [--bot sweep|idle] [--max-ticks n]");
+            System.exit(2);
+        }
+
+        HeadlessSimulation simulation = new HeadlessSimulation(maxTicks);
+        simulation.install();
+
+        long totalScore = 0;
+        long start = System.nanoTime();
+        for (int game = 1; game <= games; game++) {
+            // Each game can be played again alone with --seed.
+            long gameSeed = seed + game - 1;
+            PlayerInput input = bot == Bot.SWEEP ? new SweepBot() : () -> 0;
+            GameState state = simulation.playGame(coop,
+                    Ship.ShipType.NORMAL, Ship.ShipType.NORMAL, gameSeed, input);
+            totalScore += state.getScore();
+            System.out.println("game " + game + " (seed " + gameSeed + "): level " + state.getLevel()
+                    + ", score " + state.getScore()
+                    + ", lives " + state.getLivesRemaining()
+                    + ", bullets " + state.getBulletsShot()
+                    + ", kills " + state.getShipsDestroyed()
+                    + (simulation.wasStopped() ? ", timed out" : ""));
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d games in %.2f s, mean score %.1f%n",
+                games, seconds, (double) totalScore / games);
+    }
+
+    /**
+     * Makes every screen and cooldown run on this simulation, with logging
+     * reduced to warnings and sound disabled.
+     */
+    public void install() {
+        // Only warnings, so level and save messages don't slow a fast run.
+        Core.getLogger().setLevel(Level.WARNING);
+        SoundManager.setEnabled(false);
+        Core.setClock(this.clock);
+        Screen.setHeadlessDriver(this);
+    }
+
+    /**
+     * Limits the simulation speed, as a multiple of real time.
+     *
+     * @param speed
+     *            Maximum speed, or 0 to run as fast as possible.
+     */
+    public void setSpeed(final double speed) {
+        this.pacingNanos = speed > 0 ? (long) (TICK_NANOS / speed) : 0;
+    }
+
+    /**
+     * Plays a game from the first level until the team dies, every level is
+     * cleared, the players quit, or the game is stopped early.
+     *
+     * @param coop
+     *            True for two players.
+     * @param shipTypeP1
+     *            Player 1's ship type.
+     * @param shipTypeP2
+     *            Player 2's ship type.
+     * @param seed
+     *            Seed of all the game randomness.
+     * @param input
+     *            Input of the players.
+     * @return Final state of the game.
+     */
+    public GameState playGame(final boolean coop,
+                              final Ship.ShipType shipTypeP1, final Ship.ShipType shipTypeP2,
+                              final long seed, final PlayerInput input) {
+        // The clock restarts first, as the game's timers follow it.
+        this.clock.restart();
+        Core.startGame(seed);
+        GameState gameState = new GameState(1, Core.MAX_LIVES, coop, 0);
+        AchievementManager achievementManager = new AchievementManager();
+        this.input = input;
+        this.stopped = false;
+        this.nextUpdateNanos = System.nanoTime();
+
+        Core.playLevels(gameState, Core.WIDTH, Core.HEIGHT, shipTypeP1, shipTypeP2,
+                achievementManager, screen -> {
+                    screen.initialize();
+                    int returnCode = screen.run();
+                    // A stopped game ends like one the players quit.
+                    return this.stopped ? 1 : returnCode;
+                });
+
+        InputManager.resetKeys();
+        return gameState;
+    }
+
+    /**
+     * Checks if the last game was stopped early, by the update limit or by
+     * running out of input.
+     *
+     * @return True if the last game was stopped.
+     */
+    public boolean wasStopped() {
+        return this.stopped;
+    }
+
+    /**
+     * Advances the game time by one update and presses the next input.
+     *
+     * @param screen
+     *            Screen about to be updated.
+     * @param tick
+     *            Number of updates the screen already ran.
+     * @return False once the level hits the update limit or input runs out.
+     */
+    @Override
+    public boolean beforeUpdate(final Screen screen, final long tick) {
+        int actions = tick < this.maxTicks ? this.input.nextActions() : -1;
+        if (actions < 0) {
+            this.stopped = true;
+            return false;
+        }
+        this.inputManager.setPlayerActions(actions);
+        this.clock.tick();
+
+        if (this.pacingNanos > 0) {
+            this.nextUpdateNanos += this.pacingNanos;
+            long wait = this.nextUpdateNanos - System.nanoTime();
+            if (wait > 0)
+                LockSupport.parkNanos(wait);
+        }
+        return true;
+    }
+
+    /**
+     * Bot that always shoots, moving one way then the other at random.
+     */
+    private static final class SweepBot implements PlayerInput {
+
+        /** Shortest time the bot keeps moving one way, in updates. */
+        private static final int MIN_SWEEP_TICKS = 20;
+        /** Longest time the bot keeps moving one way, in updates. */
+        private static final int MAX_SWEEP_TICKS = 120;
+
+        /** Direction each player moves to, -1 left or 1 right. */
+        private final int[] directions = { 1, -1 };
+        /** Updates left before each player turns around. */
+        private final int[] sweepTicks = new int[GameState.NUM_PLAYERS];
+
+        /**
+         * Decides the next actions of both players.
+         *
+         * @return Pressed action flags.
+         */
+        @Override
+        public int nextActions() {
+            SplittableRandom random = GameRandom.get(GameRandom.Stream.BOT);
+            for (int p = 0; p < GameState.NUM_PLAYERS; p++) {
+                if (--this.sweepTicks[p] <= 0) {
+                    this.directions[p] = random.nextBoolean() ? 1 : -1;
+                    this.sweepTicks[p] = random.nextInt(MIN_SWEEP_TICKS, MAX_SWEEP_TICKS + 1);
+                }
+            }
+            return (this.directions[0] < 0 ? InputManager.P1_LEFT : InputManager.P1_RIGHT)
+                    | InputManager.P1_SHOOT
+                    | (this.directions[1] < 0 ? InputManager.P2_LEFT : InputManager.P2_RIGHT)
+                    | InputManager.P2_SHOOT;
+        }
+    }
+}
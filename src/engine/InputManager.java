@@ -22,12 +22,31 @@ public final class InputManager implements KeyListener, MouseListener, MouseMoti
 
 	/** Number of recognised keys. */
 	private static final int NUM_KEYS = 256;
-	/** Array with the keys marked as pressed or not. */
+	/** Array with the keys marked as pressed or not, as seen by screens. */
 	private static boolean[] keys;
+	/** Keys pressed right now, latched into keys before each update. */
+	private static boolean[] liveKeys;
 
     /** Mouse pressed state. */
     private static  boolean mousePressed; // add this line
 
+	/** Action flag of player 1 moving left. */
+	public static final int P1_LEFT = 1;
+	/** Action flag of player 1 moving right. */
+	public static final int P1_RIGHT = 1 << 1;
+	/** Action flag of player 1 shooting. */
+	public static final int P1_SHOOT = 1 << 2;
+	/** Action flag of player 2 moving left. */
+	public static final int P2_LEFT = 1 << 3;
+	/** Action flag of player 2 moving right. */
+	public static final int P2_RIGHT = 1 << 4;
+	/** Action flag of player 2 shooting. */
+	public static final int P2_SHOOT = 1 << 5;
+	/** Action flag of pausing or resuming. */
+	public static final int PAUSE = 1 << 6;
+	/** Action flag of quitting to the menu while paused. */
+	public static final int QUIT = 1 << 7;
+
 	/** Singleton instance of the class. */
 	private static InputManager instance;
     /** Last character typed. */
@@ -70,6 +89,7 @@ public final class InputManager implements KeyListener, MouseListener, MouseMoti
 	 */
 	private InputManager() {
 		keys = new boolean[NUM_KEYS];
+		liveKeys = new boolean[NUM_KEYS];
         lastCharTyped = '\0';
         charTyped = false;
 	}
@@ -176,6 +196,68 @@ public final class InputManager implements KeyListener, MouseListener, MouseMoti
         return isKeyDown(player2Keys[2]);
     }
 
+	/**
+	 * Sets the state of a key directly, to script input when running without
+	 * a window.
+	 *
+	 * @param keyCode
+	 *            Key number to change.
+	 * @param pressed
+	 *            New key state.
+	 */
+	public void setKeyDown(final int keyCode, final boolean pressed) {
+		if (keyCode >= 0 && keyCode < NUM_KEYS) {
+			keys[keyCode] = pressed;
+			liveKeys[keyCode] = pressed;
+		}
+	}
+
+	/**
+	 * Gets the game actions currently pressed, as the sum of the action
+	 * flags. Shooting follows the keys GameScreen fires on.
+	 *
+	 * @return Pressed action flags.
+	 */
+	public int getPlayerActions() {
+		int actions = 0;
+		if (isP1LeftPressed()) actions |= P1_LEFT;
+		if (isP1RightPressed()) actions |= P1_RIGHT;
+		if (isKeyDown(KeyEvent.VK_SPACE)) actions |= P1_SHOOT;
+		if (isP2LeftPressed()) actions |= P2_LEFT;
+		if (isP2RightPressed()) actions |= P2_RIGHT;
+		if (isKeyDown(KeyEvent.VK_ENTER)) actions |= P2_SHOOT;
+		if (isKeyDown(KeyEvent.VK_ESCAPE)) actions |= PAUSE;
+		if (isKeyDown(KeyEvent.VK_BACK_SPACE)) actions |= QUIT;
+		return actions;
+	}
+
+	/**
+	 * Presses exactly the keys of the given game actions, to script input
+	 * when running without a window.
+	 *
+	 * @param actions
+	 *            Pressed action flags.
+	 */
+	public void setPlayerActions(final int actions) {
+		setKeyDown(player1Keys[0], (actions & P1_LEFT) != 0);
+		setKeyDown(player1Keys[1], (actions & P1_RIGHT) != 0);
+		setKeyDown(KeyEvent.VK_SPACE, (actions & P1_SHOOT) != 0);
+		setKeyDown(player2Keys[0], (actions & P2_LEFT) != 0);
+		setKeyDown(player2Keys[1], (actions & P2_RIGHT) != 0);
+		setKeyDown(KeyEvent.VK_ENTER, (actions & P2_SHOOT) != 0);
+		setKeyDown(KeyEvent.VK_ESCAPE, (actions & PAUSE) != 0);
+		setKeyDown(KeyEvent.VK_BACK_SPACE, (actions & QUIT) != 0);
+	}
+
+	/**
+	 * Takes the keys pressed right now as the state seen by screens, so key
+	 * events arriving in the middle of an update only count from the next
+	 * one.
+	 */
+	public void latchKeys() {
+		System.arraycopy(liveKeys, 0, keys, 0, NUM_KEYS);
+	}
+
 	/**
 	 * Changes the state of the key to pressed.
 	 *
@@ -185,7 +267,7 @@ public final class InputManager implements KeyListener, MouseListener, MouseMoti
 	@Override
 	public void keyPressed(final KeyEvent key) {
 		if (key.getKeyCode() >= 0 && key.getKeyCode() < NUM_KEYS) {
-            keys[key.getKeyCode()] = true;
+            liveKeys[key.getKeyCode()] = true;
             lastPressedKey = key.getKeyCode();
         }
 	}
@@ -199,7 +281,7 @@ public final class InputManager implements KeyListener, MouseListener, MouseMoti
 	@Override
 	public void keyReleased(final KeyEvent key) {
 		if (key.getKeyCode() >= 0 && key.getKeyCode() < NUM_KEYS)
-			keys[key.getKeyCode()] = false;
+			liveKeys[key.getKeyCode()] = false;
 	}
 
 	/**
@@ -233,21 +315,14 @@ public final class InputManager implements KeyListener, MouseListener, MouseMoti
         String projectPath = System.getProperty("user.dir");
         return new File(projectPath + File.separator + "res" + File.separator + KEY_CONFIG_FILE);
     }
-    // write a key code in a keyconfig.txt file
+    // write a key code in a keyconfig.txt file, in the background
     public void saveKeyConfig() {
-        try {
-            File file = getKeyConfigFile();
-            File folder = file.getParentFile();
-            if (!folder.exists()) folder.mkdirs();
-
-            try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
-                writer.write(player1Keys[0] + "," + player1Keys[1] + "," + player1Keys[2]);
-                writer.newLine();
-                writer.write(player2Keys[0] + "," + player2Keys[1] + "," + player2Keys[2]);
-            }
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+        File file = getKeyConfigFile();
+        String keyConfig = player1Keys[0] + "," + player1Keys[1] + "," + player1Keys[2]
+                + System.lineSeparator()
+                + player2Keys[0] + "," + player2Keys[1] + "," + player2Keys[2];
+        Core.getPersistenceWorker().submit(file.getPath(),
+                () -> PersistenceWorker.writeAtomically(file.toPath(), keyConfig));
     }
     // Import a file and change the saved input key code
     public void loadKeyConfig() {
@@ -290,6 +365,7 @@ public final class InputManager implements KeyListener, MouseListener, MouseMoti
     public static void resetKeys() {
         for (int i = 0; i < NUM_KEYS; i++) {
             keys[i] = false;
+            liveKeys[i] = false;
         }
     }
 
@@ -0,0 +1,119 @@
+package engine;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.logging.Logger;
+
+import entity.Ship;
+import screen.GameScreen;
+import screen.Screen;
+import screen.TickListener;
+
+/**
+ * Records the player actions of every update of a game into a replay file.
+ * While recording, the game time advances by exactly one update per update
+ * instead of following the wall clock, so the headless replay sees the same
+ * cooldowns expire on the same updates as the recorded game. The level and
+ * item data are hashed and loaded once, when the recorder is installed, and
+ * the game doesn't reload them while recording, so every replay holds the
+ * hash of the data it was played on.
+ */
+public final class InputRecorder implements TickListener {
+
+    /** Application logger. */
+    private final Logger logger = Core.getLogger();
+    /** Input manager the actions are read from. */
+    private final InputManager inputManager = Core.getInputManager();
+    /** Directory the replays are written to. */
+    private final Path directory;
+    /** Game time, advanced by one update per update. */
+    private final TickClock clock = new TickClock(HeadlessSimulation.TICK_NANOS,
+            HeadlessSimulation.GAME_START_NANOS);
+    /** Hash of the level and item data games are played on, -1 if unknown. */
+    private long dataHash = -1;
+    /** Replay of the current game, null between games. */
+    private InputReplay replay;
+
+    /**
+     * Constructor, sets the destination of the replays.
+     *
+     * @param directory
+     *            Directory the replays are written to.
+     */
+    public InputRecorder(final Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Makes the game run on update-based time and starts listening to its
+     * updates. Hashes the level and item files, then loads them, so the
+     * games recorded play the data of the hash.
+     */
+    public void install() {
+        try {
+            this.dataHash = InputReplay.hashGameData();
+        } catch (IOException e) {
+            this.logger.warning("Unable to hash the levels and items, not recording: " + e.getMessage());
+        }
+        GameSettings.getGameSettings();
+        ItemDB.getCurrent();
+        Core.setClock(this.clock);
+        Screen.setTickListener(this);
+    }
+
+    /**
+     * Starts recording a game. Call before the game is started, as this
+     * restarts the game time.
+     *
+     * @param seed
+     *            Seed of the game randomness.
+     * @param coop
+     *            True for a two player game.
+     * @param shipTypeP1
+     *            Player 1's ship type.
+     * @param shipTypeP2
+     *            Player 2's ship type.
+     */
+    public void startGame(final long seed, final boolean coop,
+                          final Ship.ShipType shipTypeP1, final Ship.ShipType shipTypeP2) {
+        // Same start time as the replay, so times round to the same milliseconds.
+        this.clock.restart();
+        this.replay = this.dataHash < 0 ? null
+                : new InputReplay(seed, this.dataHash, coop, shipTypeP1, shipTypeP2);
+    }
+
+    /**
+     * Advances the game time, and records the actions of game updates.
+     *
+     * @param screen
+     *            Screen about to be updated.
+     */
+    @Override
+    public void beforeUpdate(final Screen screen) {
+        this.clock.tick();
+        if (this.replay != null && screen instanceof GameScreen)
+            this.replay.append(this.inputManager.getPlayerActions());
+    }
+
+    /**
+     * Stops recording the game and writes its replay.
+     *
+     * @param gameState
+     *            Final state of the game.
+     */
+    public void endGame(final GameState gameState) {
+        if (this.replay == null)
+            return;
+        this.replay.setResult(gameState.getLevel(), gameState.getScore());
+        Path file = this.directory.resolve("replay-" + this.replay.getSeed() + ".rpl");
+        try {
+            Files.createDirectories(this.directory);
+            this.replay.write(file);
+            this.logger.info("Replay written to " + file + ".");
+        } catch (IOException e) {
+            this.logger.warning("Unable to write replay " + file + ": " + e.getMessage());
+        }
+        this.replay = null;
+    }
+}
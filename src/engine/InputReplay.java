@@ -0,0 +1,274 @@
+package engine;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+import entity.Ship;
+
+/**
+ * Input of a whole recorded game, with what is needed to play it again: the
+ * seed, the mode, the ship types and a hash of the level and item data it
+ * was played on.
+ * The player actions of each update are stored run-length encoded, as they
+ * rarely change from one update to the next. The final level and score are
+ * kept too, to verify the replay reaches them.
+ *
+ * File layout: magic, version, seed, data hash, coop flag, ship types, then
+ * (varint length, actions byte) runs ended by a zero length, then the final
+ * level and score.
+ */
+public final class InputReplay implements PlayerInput {
+
+    /** Start of every replay file, "INVR". */
+    private static final int MAGIC = 0x494E5652;
+    /** Version of the file layout. */
+    private static final int VERSION = 2;
+
+    /** Seed of the game randomness. */
+    private final long seed;
+    /** Hash of the level and item files the game was played on. */
+    private final long dataHash;
+    /** True for a two player game. */
+    private final boolean coop;
+    /** Player 1's ship type. */
+    private final Ship.ShipType shipTypeP1;
+    /** Player 2's ship type. */
+    private final Ship.ShipType shipTypeP2;
+    /** Actions of each run. */
+    private byte[] runActions = new byte[64];
+    /** Updates of each run. */
+    private int[] runLengths = new int[64];
+    /** Number of runs. */
+    private int runCount;
+    /** Level reached at the end of the game. */
+    private int finalLevel;
+    /** Score at the end of the game. */
+    private int finalScore;
+
+    /** Run being played. */
+    private int playRun;
+    /** Updates of the run already played. */
+    private int playOffset;
+
+    /**
+     * Constructor, starts an empty replay.
+     *
+     * @param seed
+     *            Seed of the game randomness.
+     * @param dataHash
+     *            Hash of the level and item files.
+     * @param coop
+     *            True for a two player game.
+     * @param shipTypeP1
+     *            Player 1's ship type.
+     * @param shipTypeP2
+     *            Player 2's ship type.
+     */
+    public InputReplay(final long seed, final long dataHash, final boolean coop,
+                       final Ship.ShipType shipTypeP1, final Ship.ShipType shipTypeP2) {
+        this.seed = seed;
+        this.dataHash = dataHash;
+        this.coop = coop;
+        this.shipTypeP1 = shipTypeP1;
+        this.shipTypeP2 = shipTypeP2;
+    }
+
+    /**
+     * Appends the actions of one update.
+     *
+     * @param actions
+     *            Pressed action flags.
+     */
+    public void append(final int actions) {
+        if (this.runCount > 0 && this.runActions[this.runCount - 1] == (byte) actions) {
+            this.runLengths[this.runCount - 1]++;
+            return;
+        }
+        if (this.runCount == this.runActions.length) {
+            this.runActions = Arrays.copyOf(this.runActions, this.runCount * 2);
+            this.runLengths = Arrays.copyOf(this.runLengths, this.runCount * 2);
+        }
+        this.runActions[this.runCount] = (byte) actions;
+        this.runLengths[this.runCount] = 1;
+        this.runCount++;
+    }
+
+    /**
+     * Sets the result the game reached.
+     *
+     * @param level
+     *            Final level.
+     * @param score
+     *            Final score.
+     */
+    public void setResult(final int level, final int score) {
+        this.finalLevel = level;
+        this.finalScore = score;
+    }
+
+    /**
+     * Gets the actions of the next update, replaying the recorded input.
+     *
+     * @return Pressed action flags, or -1 at the end of the recording.
+     */
+    @Override
+    public int nextActions() {
+        if (this.playRun >= this.runCount)
+            return -1;
+        int actions = this.runActions[this.playRun] & 0xFF;
+        if (++this.playOffset == this.runLengths[this.playRun]) {
+            this.playRun++;
+            this.playOffset = 0;
+        }
+        return actions;
+    }
+
+    /**
+     * Writes the replay to a file.
+     *
+     * @param file
+     *            Destination file.
+     * @throws IOException
+     *             When the file can't be written.
+     */
+    public void write(final Path file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeLong(this.seed);
+            out.writeLong(this.dataHash);
+            out.writeBoolean(this.coop);
+            out.writeByte(this.shipTypeP1.ordinal());
+            out.writeByte(this.shipTypeP2.ordinal());
+            for (int i = 0; i < this.runCount; i++) {
+                writeVarInt(out, this.runLengths[i]);
+                out.writeByte(this.runActions[i]);
+            }
+            writeVarInt(out, 0);
+            out.writeInt(this.finalLevel);
+            out.writeInt(this.finalScore);
+        }
+    }
+
+    /**
+     * Reads a replay from a file.
+     *
+     * @param file
+     *            Replay file.
+     * @return Replay, ready to play from its start.
+     * @throws IOException
+     *             When the file can't be read or isn't a replay.
+     */
+    public static InputReplay read(final Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC)
+                throw new IOException("Not a replay file: " + file);
+            int version = in.readUnsignedByte();
+            if (version != VERSION)
+                throw new IOException("Unsupported replay version " + version);
+            long seed = in.readLong();
+            long dataHash = in.readLong();
+            boolean coop = in.readBoolean();
+            Ship.ShipType[] shipTypes = Ship.ShipType.values();
+            int shipTypeP1 = in.readUnsignedByte();
+            int shipTypeP2 = in.readUnsignedByte();
+            if (shipTypeP1 >= shipTypes.length || shipTypeP2 >= shipTypes.length)
+                throw new IOException("Unknown ship type in " + file);
+
+            InputReplay replay = new InputReplay(seed, dataHash, coop,
+                    shipTypes[shipTypeP1], shipTypes[shipTypeP2]);
+            for (int length = readVarInt(in); length > 0; length = readVarInt(in)) {
+                byte actions = in.readByte();
+                replay.append(actions);
+                replay.runLengths[replay.runCount - 1] += length - 1;
+            }
+            replay.setResult(in.readInt(), in.readInt());
+            return replay;
+        }
+    }
+
+    /**
+     * Hashes the level and item files, so a replay is only played on the
+     * levels and drops it was recorded on.
+     *
+     * @return CRC32 of res/level.csv followed by res/item_db.csv.
+     * @throws IOException
+     *             When a file can't be read.
+     */
+    public static long hashGameData() throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(Files.readAllBytes(Paths.get("res", "level.csv")));
+        crc.update(Files.readAllBytes(Paths.get("res", "item_db.csv")));
+        return crc.getValue();
+    }
+
+    /**
+     * Writes an unsigned variable-length integer, 7 bits per byte.
+     */
+    private static void writeVarInt(final DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    /**
+     * Reads an unsigned variable-length integer, 7 bits per byte.
+     */
+    private static int readVarInt(final DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+                return value;
+        }
+        throw new IOException("Malformed replay length");
+    }
+
+    /** @return Seed of the game randomness. */
+    public long getSeed() {
+        return this.seed;
+    }
+
+    /** @return Hash of the level and item files the game was played on. */
+    public long getDataHash() {
+        return this.dataHash;
+    }
+
+    /** @return True for a two player game. */
+    public boolean isCoop() {
+        return this.coop;
+    }
+
+    /** @return Player 1's ship type. */
+    public Ship.ShipType getShipTypeP1() {
+        return this.shipTypeP1;
+    }
+
+    /** @return Player 2's ship type. */
+    public Ship.ShipType getShipTypeP2() {
+        return this.shipTypeP2;
+    }
+
+    /** @return Level reached at the end of the game. */
+    public int getFinalLevel() {
+        return this.finalLevel;
+    }
+
+    /** @return Score at the end of the game. */
+    public int getFinalScore() {
+        return this.finalScore;
+    }
+}
@@ -10,29 +10,99 @@ import java.util.logging.Logger;
  *
  * Supports both legacy CSV format (5 columns) and new format with cost (6 columns):
  * type,spriteType,dropTier,effectValue,effectDuration[,cost]
+ *
+ * A database never changes once loaded. Reloading the file publishes a new
+ * one, returned by getCurrent from then on.
  */
 public class ItemDB {
     /** Path to the item database CSV file. */
     private static final String FILE_PATH = "res/item_db.csv";
-    /** Map of item type name to its corresponding ItemData. */
-    private final Map<String, ItemData> itemMap = new HashMap<>();
+    /** Database last published, null until first loaded. */
+    private static volatile ItemDB current;
+
+    /** Map of item type name to its corresponding ItemData, unmodifiable. */
+    private final Map<String, ItemData> itemMap;
 
     /**
      * Constructor.
      * Automatically loads the CSV file into memory.
      */
     public ItemDB() {
-        loadItemDB();
+        Map<String, ItemData> items = new HashMap<>();
+        try {
+            items = readItems();
+        } catch (FileNotFoundException e) {
+            Logger l = Core.getLogger();
+            l.severe("Item DB file not found: " + FILE_PATH + " (" + e.getMessage() + ")");
+        } catch (IOException e) {
+            Logger l = Core.getLogger();
+            l.severe("Failed to load item database from " + FILE_PATH + ": " + e.getMessage());
+        }
+        this.itemMap = Collections.unmodifiableMap(items);
+    }
+
+    /**
+     * Constructor of a validated database.
+     *
+     * @param items
+     *            Items by type.
+     */
+    private ItemDB(final Map<String, ItemData> items) {
+        this.itemMap = Collections.unmodifiableMap(items);
+    }
+
+    /**
+     * Returns the database last published, loading it the first time.
+     *
+     * @return Current item database.
+     */
+    public static ItemDB getCurrent() {
+        ItemDB db = current;
+        if (db == null) {
+            synchronized (ItemDB.class) {
+                if (current == null)
+                    current = new ItemDB();
+                db = current;
+            }
+        }
+        return db;
     }
 
     /**
-     * Loads all item data from the CSV file into the itemMap.
+     * Reads the CSV file again and publishes it if valid: it has items, and
+     * each item's drop tier is one the item manager rolls. The next game
+     * screen drops the new items.
+     *
+     * @throws IOException
+     *             When the file can't be read or is invalid, keeping the
+     *             database published before.
+     */
+    public static void reload() throws IOException {
+        Map<String, ItemData> items = readItems();
+        if (items.isEmpty())
+            throw new IOException(FILE_PATH + " has no items.");
+        for (ItemData data : items.values()) {
+            try {
+                ItemManager.DropTier.valueOf(data.getDropTier().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Unknown drop tier " + data.getDropTier() + " for " + data.getType() + ".");
+            }
+        }
+        current = new ItemDB(items);
+    }
+
+    /**
+     * Loads all item data from the CSV file.
      * The CSV format is expected as:
      * type, spriteType, dropTier, effectValue, effectDuration, cost
      *
+     * @return Items by type.
+     * @throws IOException
+     *             When the file can't be read.
      */
-    private void loadItemDB() {
+    private static Map<String, ItemData> readItems() throws IOException {
         Logger logger = Core.getLogger();
+        Map<String, ItemData> itemMap = new HashMap<>();
 
         try (BufferedReader br = new BufferedReader(new FileReader(FILE_PATH))) {
             String line;
@@ -88,13 +158,8 @@ public class ItemDB {
                 ItemData data = new ItemData(type, spriteType, dropTier, effectValue, effectDuration, cost);
                 itemMap.put(type, data);
             }
-        } catch (FileNotFoundException e) {
-            Logger l = Core.getLogger();
-            l.severe("Item DB file not found: " + FILE_PATH + " (" + e.getMessage() + ")");
-        } catch (IOException e) {
-            Logger l = Core.getLogger();
-            l.severe("Failed to load item database from " + FILE_PATH + ": " + e.getMessage());
         }
+        return itemMap;
     }
 
     /**
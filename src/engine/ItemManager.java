@@ -1,6 +1,6 @@
 package engine;
 
-import java.util.Random;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import entity.EnemyShip;
@@ -25,13 +25,43 @@ public final class ItemManager {
         return instance;
     }
 
-    /** Random Roll for item */
-    private final Random itemRoll = new Random();
     /** Counter for pity system, increases when no item is dropped. */
     private int pityCounter = 0;
 
-    /** Item database loaded from CSV. */
-    private final ItemDB itemDB = new ItemDB();
+    /**
+     * Resets the pity counter, so a new game doesn't depend on the last one.
+     */
+    void resetPity() {
+        this.pityCounter = 0;
+    }
+
+    /** Item database loaded from CSV, the one published when the level started. */
+    private ItemDB itemDB = ItemDB.getCurrent();
+    /** Drop tables compiled from itemDB. */
+    private DropTable dropTable = new DropTable(this.itemDB);
+
+    /**
+     * Picks up the item database published since the last level, so items
+     * reloaded while playing drop from the next level on.
+     */
+    public void beginLevel() {
+        ItemDB current = ItemDB.getCurrent();
+        if (current != this.itemDB) {
+            this.itemDB = current;
+            this.dropTable = new DropTable(current);
+        }
+    }
+
+    /**
+     * Returns the data of an item in the database of the current level.
+     *
+     * @param type
+     *            type of the item.
+     * @return ItemData object, or null if not found.
+     */
+    public ItemData getItemData(final String type) {
+        return this.itemDB.getItemData(type);
+    }
 
     /** -------------------------- ITEM DATA -------------------------- **/
 
@@ -47,23 +77,12 @@ public final class ItemManager {
         DropTier(double tierWeight) { this.tierWeight = Math.max(0.0, tierWeight); }
     }
 
-    /** -------------------------- INIT -------------------------- **/
-
-    /** Total weight of all item tiers except NONE. */
-    private static final double ITEM_WEIGHT;
-
-    static {
-        double sum = 0.0;
-        for (DropTier t : DropTier.values()) {
-            if (t != DropTier.NONE) sum += t.tierWeight;
-        }
-        ITEM_WEIGHT = sum;
-    }
-
     /** -------------------------- MAIN -------------------------- **/
 
     /**
-     * Determines and returns the item dropped by the given enemy.
+     * Determines and returns the item dropped by the given enemy. Rolls
+     * allocate nothing but the pooled item, as one frame can kill many
+     * enemies.
      *
      * @param enemy
      *            enemy ship that was defeated.
@@ -72,54 +91,26 @@ public final class ItemManager {
     public Item obtainDrop(final EnemyShip enemy) {
         if (enemy == null) return null;
 
-        // Pity Boost
-        double pityBoost = Math.min(pityCounter * 0.05, 0.5);
-        double boostedNoneWeight = DropTier.NONE.tierWeight * (1.0 - pityBoost);
-
-        // Roll Item
-        double dropRoll = itemRoll.nextDouble() * (ITEM_WEIGHT + boostedNoneWeight);
-        this.logger.info(String.format("[ItemManager]: DropRoll %.1f", dropRoll));
-
-        DropTier chosenTier = DropTier.NONE;
-        double acc = 0.0;
-
-        for (DropTier tier : DropTier.values()) {
-            double weight = tier.tierWeight;
-
-            if (tier == DropTier.NONE) {
-                weight = boostedNoneWeight;
-            }
-
-            acc += weight;
-
-            if (dropRoll < acc) {
-                chosenTier = tier;
-                break;
-            }
-        }
+        // Roll Tier, the pity counter picking the table
+        DropTier chosenTier = DropTable.rollTier(pityCounter,
+                GameRandom.get(GameRandom.Stream.ITEMS).nextDouble());
 
         // Calculate Pity
         if (chosenTier == DropTier.NONE) {
             pityCounter++;
-            logger.info(String.format("[ItemManager]: Tier=NONE (pity=%d)", pityCounter));
+            if (logger.isLoggable(Level.FINE))
+                logger.fine("[ItemManager]: Tier=NONE (pity=" + pityCounter + ")");
             return null;
         }
 
         pityCounter = 0;
 
-        // Load item list from CSV by DropTier
-        java.util.List<ItemData> candidates = new java.util.ArrayList<>();
-        for (ItemData data : itemDB.getAllItems()) {
-            if (data.getDropTier().equalsIgnoreCase(chosenTier.name()))
-                candidates.add(data);
-        }
-
-        if (candidates.isEmpty()) {
-            logger.warning("[ItemManager]: No items defined for tier " + chosenTier);
+        // Items of the tier, compiled from the CSV
+        ItemData[] candidates = dropTable.getItems(chosenTier);
+        if (candidates.length == 0)
             return null;
-        }
 
-        ItemData chosenData = candidates.get(itemRoll.nextInt(candidates.size()));
+        ItemData chosenData = candidates[GameRandom.get(GameRandom.Stream.ITEMS).nextInt(candidates.length)];
 
         // get spawn position / enemy death position
         int centerX = enemy.getPositionX() + enemy.getWidth() / 2;
@@ -134,7 +125,8 @@ public final class ItemManager {
             return null;
         }
 
-        this.logger.info("[ItemManager]: created item " + drop.getType() + " at (" + centerX + ", " + centerY + ")");
+        if (logger.isLoggable(Level.FINE))
+            logger.fine("[ItemManager]: created item " + drop.getType() + " at (" + centerX + ", " + centerY + ")");
 
         return drop;
     }
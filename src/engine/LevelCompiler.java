@@ -0,0 +1,283 @@
+package engine;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compiles the level CSV into a level pack, read by LevelPack.
+ *
+ * The CSV holds stages separated by lines starting with '&amp;'. The first
+ * line of a stage is formation width, formation height, base speed and
+ * shooting frequency; each further line changes one enemy: x, y, hp ratio,
+ * reward ratio and an optional color hex code. Lines starting with "//" are
+ * comments. Every stage is checked, and the errors of all stages are
+ * reported together.
+ *
+ * Pack layout, big endian: header of MAGIC, VERSION, size and modification
+ * time of the CSV it was compiled from, and the stage count; a table of the
+ * offset of each stage; then the stages: the four settings and the change
+ * count as ints, and each change as x and y shorts, hp and reward ints, a
+ * color flag byte and, if set, the ARGB color int.
+ *
+ * Usage: LevelCompiler [level.csv] [level.pack]
+ */
+public final class LevelCompiler {
+
+    /** Identifies level packs, "ILVP". */
+    static final int MAGIC = 0x494C5650;
+    /** Version of the layout. */
+    static final int VERSION = 1;
+    /** Bytes of the header. */
+    static final int HEADER_SIZE = 4 + 4 + 8 + 8 + 4;
+    /** Offset of the stage count in the header. */
+    static final int STAGE_COUNT = 24;
+
+    /**
+     * Constructor, not called.
+     */
+    private LevelCompiler() {
+
+    }
+
+    /**
+     * Compiles a level CSV from the command line.
+     *
+     * @param args
+     *            CSV and pack paths, res/level.csv and res/level.pack by
+     *            default.
+     */
+    public static void main(final String[] args) {
+        Path csv = Paths.get(args.length > 0 ? args[0] : "res/level.csv");
+        Path pack = Paths.get(args.length > 1 ? args[1] : "res/level.pack");
+        try {
+            int stages = compile(csv, pack);
+            System.out.println("Compiled " + stages + " stages into " + pack + ".");
+        } catch (IOException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Checks if a pack is missing or was compiled from another version of
+     * the CSV, without reading the CSV.
+     *
+     * @param csv
+     *            Level CSV.
+     * @param pack
+     *            Level pack.
+     * @return True if the pack needs compiling.
+     * @throws IOException
+     *             When the CSV can't be read.
+     */
+    public static boolean isStale(final Path csv, final Path pack) throws IOException {
+        if (!Files.exists(pack) || Files.size(pack) < HEADER_SIZE)
+            return true;
+        BasicFileAttributes source = Files.readAttributes(csv, BasicFileAttributes.class);
+        try (DataInputStream header = new DataInputStream(Files.newInputStream(pack))) {
+            return header.readInt() != MAGIC || header.readInt() != VERSION
+                    || header.readLong() != source.size()
+                    || header.readLong() != source.lastModifiedTime().toMillis();
+        }
+    }
+
+    /**
+     * Compiles a level CSV into a pack, replacing it atomically.
+     *
+     * @param csv
+     *            Level CSV.
+     * @param pack
+     *            Level pack to write.
+     * @return Number of stages compiled.
+     * @throws IOException
+     *             When the CSV can't be read or the pack written, or when
+     *             stages are invalid, with one line per invalid stage.
+     */
+    public static int compile(final Path csv, final Path pack) throws IOException {
+        byte[] compiled = compile(csv);
+        Path temp = pack.resolveSibling(pack.getFileName() + ".tmp");
+        Files.write(temp, compiled);
+        try {
+            Files.move(temp, pack, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, pack, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return ByteBuffer.wrap(compiled).getInt(STAGE_COUNT);
+    }
+
+    /**
+     * Compiles a level CSV into the content of a pack, in memory.
+     *
+     * @param csv
+     *            Level CSV.
+     * @return Pack content.
+     * @throws IOException
+     *             When the CSV can't be read, or when stages are invalid,
+     *             with one line per invalid stage.
+     */
+    static byte[] compile(final Path csv) throws IOException {
+        BasicFileAttributes source = Files.readAttributes(csv, BasicFileAttributes.class);
+        List<String> lines = Files.readAllLines(csv, StandardCharsets.UTF_8);
+
+        List<byte[]> stages = new ArrayList<byte[]>();
+        List<String> errors = new ArrayList<String>();
+        List<String> stageLines = new ArrayList<String>();
+        List<Integer> stageLineNumbers = new ArrayList<Integer>();
+        for (int i = 0; i <= lines.size(); i++) {
+            String line = i < lines.size() ? lines.get(i).replace("\uFEFF", "").trim() : "&";
+            if (line.isEmpty() || line.startsWith("//"))
+                continue;
+            if (line.startsWith("&")) {
+                if (!stageLines.isEmpty()) {
+                    try {
+                        stages.add(compileStage(stageLines, stageLineNumbers));
+                    } catch (IllegalArgumentException e) {
+                        errors.add("Stage " + (stages.size() + errors.size() + 1) + ": " + e.getMessage());
+                    }
+                }
+                stageLines.clear();
+                stageLineNumbers.clear();
+                line = line.substring(1).trim();
+                if (line.isEmpty())
+                    continue;
+            }
+            stageLines.add(line);
+            stageLineNumbers.add(i + 1);
+        }
+
+        if (!errors.isEmpty())
+            throw new IOException(csv + " has " + errors.size() + " invalid stages:"
+                    + System.lineSeparator() + String.join(System.lineSeparator(), errors));
+        if (stages.isEmpty())
+            throw new IOException(csv + " has no stages.");
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(source.size());
+        out.writeLong(source.lastModifiedTime().toMillis());
+        out.writeInt(stages.size());
+        int offset = HEADER_SIZE + stages.size() * 4;
+        for (byte[] stage : stages) {
+            out.writeInt(offset);
+            offset += stage.length;
+        }
+        for (byte[] stage : stages)
+            out.write(stage);
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Compiles the lines of one stage.
+     *
+     * @param lines
+     *            Settings line, then the enemy change lines.
+     * @param lineNumbers
+     *            CSV line number of each line, for errors.
+     * @return Compiled stage.
+     * @throws IllegalArgumentException
+     *             When a line is invalid, naming the line.
+     */
+    private static byte[] compileStage(final List<String> lines, final List<Integer> lineNumbers) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            int[] settings = parseInts(lines.get(0), 4, lineNumbers.get(0));
+            int width = settings[0];
+            int height = settings[1];
+            if (width < 1 || height < 1 || width * height > 64 * 64)
+                throw invalid(lineNumbers.get(0), "invalid formation of " + width + "x" + height + " ships");
+            // Each formation column is a bit mask of its rows.
+            if (height > Long.SIZE)
+                throw invalid(lineNumbers.get(0), "formation height " + height + " is over "
+                        + Long.SIZE + " rows");
+            if (settings[2] < 0 || settings[3] < 1)
+                throw invalid(lineNumbers.get(0), "invalid speed " + settings[2]
+                        + " and shooting frequency " + settings[3]);
+            for (int setting : settings)
+                out.writeInt(setting);
+            out.writeInt(lines.size() - 1);
+
+            for (int i = 1; i < lines.size(); i++) {
+                int[] change = parseInts(lines.get(i), 4, lineNumbers.get(i));
+                if (change[0] < 0 || change[0] >= width || change[1] < 0 || change[1] >= height)
+                    throw invalid(lineNumbers.get(i), "enemy (" + change[0] + "," + change[1]
+                            + ") is outside the " + width + "x" + height + " formation");
+                out.writeShort(change[0]);
+                out.writeShort(change[1]);
+                out.writeInt(change[2]);
+                out.writeInt(change[3]);
+                String[] parts = lines.get(i).split(",");
+                if (parts.length >= 5) {
+                    try {
+                        out.writeByte(1);
+                        out.writeInt(GameSettings.hexToColor(parts[4].trim()).getRGB());
+                    } catch (RuntimeException e) {
+                        throw invalid(lineNumbers.get(i), "invalid color '" + parts[4].trim() + "'");
+                    }
+                } else {
+                    out.writeByte(0);
+                }
+            }
+        } catch (IOException e) {
+            // Writing to memory doesn't fail.
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Parses the leading ints of a line.
+     *
+     * @param line
+     *            Comma separated values.
+     * @param count
+     *            Number of ints expected first.
+     * @param lineNumber
+     *            CSV line number, for errors.
+     * @return The ints.
+     * @throws IllegalArgumentException
+     *             When there are fewer values or they aren't ints.
+     */
+    private static int[] parseInts(final String line, final int count, final int lineNumber) {
+        String[] parts = line.split(",");
+        if (parts.length < count)
+            throw invalid(lineNumber, "expected " + count + " values, found " + parts.length);
+        int[] values = new int[count];
+        for (int i = 0; i < count; i++) {
+            try {
+                values[i] = Integer.parseInt(parts[i].trim());
+            } catch (NumberFormatException e) {
+                throw invalid(lineNumber, "'" + parts[i].trim() + "' is not a number");
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Builds the error of an invalid line.
+     *
+     * @param lineNumber
+     *            CSV line number.
+     * @param problem
+     *            What is wrong.
+     * @return Error to throw.
+     */
+    private static IllegalArgumentException invalid(final int lineNumber, final String problem) {
+        return new IllegalArgumentException("line " + lineNumber + ": " + problem + ".");
+    }
+}
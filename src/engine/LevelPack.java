@@ -0,0 +1,135 @@
+package engine;
+
+import java.awt.Color;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.List;
+
+/**
+ * Stages of a level pack written by LevelCompiler, mapped into memory, or
+ * compiled on the heap when levels are reloaded while the game runs. A
+ * stage is decoded the first time it is asked for and kept afterwards, so
+ * starting the game reads the header and offset table only, whatever the
+ * number of stages.
+ */
+final class LevelPack extends AbstractList<GameSettings> {
+
+    /** Pack content, mapped from the file or on the heap. */
+    private final ByteBuffer pack;
+    /** Number of stages. */
+    private final int stageCount;
+    /** Stages decoded so far, null until first asked for. */
+    private final GameSettings[] stages;
+
+    /**
+     * Opens a pack file, checking its header and offset table.
+     *
+     * @param file
+     *            Pack file.
+     * @throws IOException
+     *             When the file can't be mapped, or is not a pack.
+     */
+    LevelPack(final Path file) throws IOException {
+        this(mapFile(file), file.toString());
+    }
+
+    /**
+     * Opens a pack already in memory, checking its header and offset table.
+     *
+     * @param pack
+     *            Pack content, from position 0.
+     * @param name
+     *            Name of the pack, for errors.
+     * @throws IOException
+     *             When the content is not a pack.
+     */
+    LevelPack(final ByteBuffer pack, final String name) throws IOException {
+        this.pack = pack;
+        if (this.pack.capacity() < LevelCompiler.HEADER_SIZE
+                || this.pack.getInt(0) != LevelCompiler.MAGIC
+                || this.pack.getInt(4) != LevelCompiler.VERSION)
+            throw new IOException(name + " is not a level pack.");
+        this.stageCount = this.pack.getInt(LevelCompiler.STAGE_COUNT);
+        if (this.stageCount < 1 || LevelCompiler.HEADER_SIZE + (long) this.stageCount * 4 > this.pack.capacity())
+            throw new IOException(name + " has a corrupt offset table.");
+        this.stages = new GameSettings[this.stageCount];
+    }
+
+    /**
+     * Maps a pack file read only.
+     *
+     * @param file
+     *            Pack file.
+     * @return Mapped content.
+     * @throws IOException
+     *             When the file can't be mapped.
+     */
+    private static ByteBuffer mapFile(final Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // The mapping stays valid once the channel is closed.
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    @Override
+    public int size() {
+        return this.stageCount;
+    }
+
+    /**
+     * Gets a stage, decoding it the first time.
+     *
+     * @param index
+     *            Stage index, from 0.
+     * @return Settings of the stage.
+     * @throws IllegalStateException
+     *             When the stage is corrupt, naming the stage.
+     */
+    @Override
+    public synchronized GameSettings get(final int index) {
+        if (index < 0 || index >= this.stageCount)
+            throw new IndexOutOfBoundsException("Stage " + (index + 1) + " of " + this.stageCount + ".");
+        if (this.stages[index] == null)
+            this.stages[index] = decode(index);
+        return this.stages[index];
+    }
+
+    /**
+     * Decodes a stage.
+     *
+     * @param index
+     *            Stage index, from 0.
+     * @return Settings of the stage.
+     * @throws IllegalStateException
+     *             When the stage is corrupt, naming the stage.
+     */
+    private GameSettings decode(final int index) {
+        int offset = this.pack.getInt(LevelCompiler.HEADER_SIZE + index * 4);
+        try {
+            ByteBuffer stage = this.pack.duplicate();
+            stage.position(offset);
+            GameSettings settings = new GameSettings(stage.getInt(), stage.getInt(),
+                    stage.getInt(), stage.getInt());
+            List<GameSettings.ChangeData> changes = settings.getChangeDataList();
+            int changeCount = stage.getInt();
+            if (changeCount < 0)
+                throw new IllegalArgumentException("negative change count");
+            for (int i = 0; i < changeCount; i++) {
+                int x = stage.getShort();
+                int y = stage.getShort();
+                int hp = stage.getInt();
+                int multiplier = stage.getInt();
+                Color color = stage.get() != 0 ? new Color(stage.getInt(), true) : null;
+                changes.add(new GameSettings.ChangeData(x, y, hp, multiplier, color));
+            }
+            return settings;
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IllegalStateException("Stage " + (index + 1) + " of the level pack is corrupt: " + e, e);
+        }
+    }
+}
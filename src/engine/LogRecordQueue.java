@@ -0,0 +1,96 @@
+package engine;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+import java.util.logging.LogRecord;
+
+/**
+ * Lock-free bounded queue of log records from any thread to the log writer,
+ * its only consumer. Offering never blocks: records are dropped when the
+ * queue is full. Each slot carries a sequence number telling producers and
+ * the consumer whose turn it is, so producers only contend on the tail.
+ */
+final class LogRecordQueue {
+
+    /** Records of each slot. */
+    private final LogRecord[] records;
+    /** Sequence each slot is waiting for: its turn to be written, or read once one more. */
+    private final AtomicLongArray sequences;
+    /** Mask from sequence numbers to slots. */
+    private final int mask;
+    /** Sequence of the next record to offer, claimed by producers. */
+    private final AtomicLong tail = new AtomicLong();
+    /** Sequence of the next record to take, only used by the consumer. */
+    private long head;
+
+    /**
+     * Constructor, sets the capacity.
+     *
+     * @param capacity
+     *            Maximum number of pending records, a power of two.
+     */
+    LogRecordQueue(final int capacity) {
+        this.records = new LogRecord[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        this.mask = capacity - 1;
+        for (int i = 0; i < capacity; i++)
+            this.sequences.set(i, i);
+    }
+
+    /**
+     * Adds a record, from any thread.
+     *
+     * @param record
+     *            Record to add.
+     * @return False if the queue is full.
+     */
+    boolean offer(final LogRecord record) {
+        while (true) {
+            long sequence = this.tail.get();
+            int slot = (int) sequence & this.mask;
+            long turn = this.sequences.get(slot) - sequence;
+            if (turn < 0)
+                return false;
+            if (turn == 0 && this.tail.compareAndSet(sequence, sequence + 1)) {
+                this.records[slot] = record;
+                // Publishes the slot to the consumer.
+                this.sequences.lazySet(slot, sequence + 1);
+                return true;
+            }
+            // Another producer claimed the slot first, retries with the next one.
+        }
+    }
+
+    /**
+     * Takes every published record, from the consumer thread.
+     *
+     * @param writer
+     *            Receives each record, in order.
+     * @return Number of records taken.
+     */
+    int drain(final Consumer<LogRecord> writer) {
+        int taken = 0;
+        while (true) {
+            int slot = (int) this.head & this.mask;
+            if (this.sequences.get(slot) != this.head + 1)
+                return taken;
+            LogRecord record = this.records[slot];
+            this.records[slot] = null;
+            // Hands the slot back to the producers, a lap later.
+            this.sequences.lazySet(slot, this.head + this.records.length);
+            this.head++;
+            taken++;
+            writer.accept(record);
+        }
+    }
+
+    /**
+     * Gets the number of records offered so far, dropped ones excepted.
+     *
+     * @return Records added to the queue.
+     */
+    long getOffered() {
+        return this.tail.get();
+    }
+}
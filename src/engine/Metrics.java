@@ -0,0 +1,309 @@
+package engine;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Registry of named counters and timing histograms, cheap enough to record
+ * every update. Counters are striped, so threads counting at once don't
+ * contend. Histograms bucket values the way HDR histograms do: linear
+ * buckets per power of two, so every recorded value keeps about two
+ * significant digits whatever its magnitude, in constant memory.
+ *
+ * Call sites keep the counters and histograms they use in static fields,
+ * instead of looking them up by name on every use.
+ */
+public final class Metrics {
+
+	/** Counters by name. */
+	private static final Map<String, Counter> COUNTERS = new ConcurrentHashMap<String, Counter>();
+	/** Histograms by name. */
+	private static final Map<String, Histogram> HISTOGRAMS = new ConcurrentHashMap<String, Histogram>();
+
+	/**
+	 * Constructor, not called.
+	 */
+	private Metrics() {
+
+	}
+
+	/**
+	 * Gets the counter of a name, creating it the first time.
+	 *
+	 * @param name
+	 *            Counter name.
+	 * @return Counter of the name.
+	 */
+	public static Counter counter(final String name) {
+		return COUNTERS.computeIfAbsent(name, key -> new Counter());
+	}
+
+	/**
+	 * Gets the histogram of a name, creating it the first time.
+	 *
+	 * @param name
+	 *            Histogram name, with the unit of its values.
+	 * @return Histogram of the name.
+	 */
+	public static Histogram histogram(final String name) {
+		return HISTOGRAMS.computeIfAbsent(name, key -> new Histogram());
+	}
+
+	/**
+	 * Describes every counter and histogram, sorted by name.
+	 *
+	 * @return One line per counter and histogram.
+	 */
+	public static String dump() {
+		StringBuilder out = new StringBuilder();
+		for (Map.Entry<String, Counter> entry : new TreeMap<String, Counter>(COUNTERS).entrySet())
+			out.append(entry.getKey()).append(": ").append(entry.getValue().get()).append('\n');
+		for (Map.Entry<String, Histogram> entry : new TreeMap<String, Histogram>(HISTOGRAMS).entrySet()) {
+			Histogram histogram = entry.getValue();
+			out.append(String.format("%s: count %d, mean %.1f, p50 %d, p90 %d, p99 %d, p99.9 %d, max %d%n",
+					entry.getKey(), histogram.getCount(), histogram.getMean(),
+					histogram.getPercentile(50), histogram.getPercentile(90),
+					histogram.getPercentile(99), histogram.getPercentile(99.9),
+					histogram.getMax()));
+		}
+		return out.toString();
+	}
+
+	/**
+	 * Writes the dump to a file when the JVM exits, however the game is
+	 * closed.
+	 *
+	 * @param path
+	 *            File to write, replaced if it exists.
+	 */
+	public static void dumpOnExit(final Path path) {
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+			try {
+				Files.write(path, dump().getBytes(StandardCharsets.UTF_8));
+			} catch (IOException e) {
+				// The logger may already be closed this late.
+				System.err.println("Could not write metrics to " + path + ": " + e);
+			}
+		}, "metrics-dump"));
+	}
+
+	/**
+	 * Counter that threads can increment at once without contending.
+	 */
+	public static final class Counter {
+
+		/** Striped sum of the increments. */
+		private final LongAdder sum = new LongAdder();
+
+		/**
+		 * Constructor, only called by the registry.
+		 */
+		Counter() {
+
+		}
+
+		/**
+		 * Adds one to the counter.
+		 */
+		public void increment() {
+			this.sum.increment();
+		}
+
+		/**
+		 * Adds to the counter.
+		 *
+		 * @param amount
+		 *            Amount to add.
+		 */
+		public void add(final long amount) {
+			this.sum.add(amount);
+		}
+
+		/**
+		 * Gets the current count.
+		 *
+		 * @return Sum of every increment.
+		 */
+		public long get() {
+			return this.sum.sum();
+		}
+	}
+
+	/**
+	 * Histogram of non-negative values, with buckets at most 1/16 of their
+	 * lower bound wide. Values below 32 are counted exactly.
+	 */
+	public static final class Histogram {
+
+		/** Bits of the linear sub-buckets per power of two. */
+		private static final int SUB_BITS = 4;
+		/** Linear sub-buckets per power of two. */
+		private static final int SUB_BUCKETS = 1 << SUB_BITS;
+		/** Values counted in a bucket of their own. */
+		private static final int EXACT = SUB_BUCKETS * 2;
+		/** Buckets needed to cover every long value. */
+		private static final int BUCKETS = (Long.SIZE - SUB_BITS) * SUB_BUCKETS + EXACT;
+
+		/** Recorded values per bucket. */
+		private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+		/** Number of recorded values. */
+		private final LongAdder count = new LongAdder();
+		/** Sum of the recorded values. */
+		private final LongAdder sum = new LongAdder();
+		/** Largest recorded value. */
+		private final AtomicLong max = new AtomicLong();
+		/** Histogram of recent values, given every value too, or null. */
+		private volatile Histogram window;
+
+		/**
+		 * Constructor, starts empty.
+		 */
+		public Histogram() {
+
+		}
+
+		/**
+		 * Records a value.
+		 *
+		 * @param value
+		 *            Value to record, negative values count as 0.
+		 */
+		public void record(final long value) {
+			long v = Math.max(0, value);
+			this.counts.incrementAndGet(bucketOf(v));
+			this.count.increment();
+			this.sum.add(v);
+			long current;
+			while (v > (current = this.max.get()) && !this.max.compareAndSet(current, v)) {
+				// Retries until this value or a larger one is the maximum.
+			}
+			Histogram recent = this.window;
+			if (recent != null)
+				recent.record(v);
+		}
+
+		/**
+		 * Gets a histogram given every value recorded here from now on, which
+		 * its reader resets to keep only recent values. Created the first time
+		 * it is asked for.
+		 *
+		 * @return Histogram of recent values.
+		 */
+		public synchronized Histogram getWindow() {
+			if (this.window == null)
+				this.window = new Histogram();
+			return this.window;
+		}
+
+		/**
+		 * Records the time elapsed since a start.
+		 *
+		 * @param startNanos
+		 *            Start, from System.nanoTime().
+		 */
+		public void recordSince(final long startNanos) {
+			record(System.nanoTime() - startNanos);
+		}
+
+		/**
+		 * Gets the value under which a percentage of the recorded values
+		 * fall, as the upper bound of its bucket.
+		 *
+		 * @param percentile
+		 *            Percentage, between 0 and 100.
+		 * @return Value at the percentile, 0 when empty.
+		 */
+		public long getPercentile(final double percentile) {
+			long total = 0;
+			for (int i = 0; i < BUCKETS; i++)
+				total += this.counts.get(i);
+			if (total == 0)
+				return 0;
+			long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+			long seen = 0;
+			for (int i = 0; i < BUCKETS; i++) {
+				seen += this.counts.get(i);
+				if (seen >= rank)
+					return Math.min(upperBoundOf(i), this.max.get());
+			}
+			return this.max.get();
+		}
+
+		/**
+		 * Gets the number of recorded values.
+		 *
+		 * @return Recorded values.
+		 */
+		public long getCount() {
+			return this.count.sum();
+		}
+
+		/**
+		 * Gets the mean of the recorded values.
+		 *
+		 * @return Mean, 0 when empty.
+		 */
+		public double getMean() {
+			long n = this.count.sum();
+			return n == 0 ? 0 : (double) this.sum.sum() / n;
+		}
+
+		/**
+		 * Gets the largest recorded value.
+		 *
+		 * @return Maximum, 0 when empty.
+		 */
+		public long getMax() {
+			return this.max.get();
+		}
+
+		/**
+		 * Forgets every recorded value.
+		 */
+		public void reset() {
+			for (int i = 0; i < BUCKETS; i++)
+				this.counts.set(i, 0);
+			this.count.reset();
+			this.sum.reset();
+			this.max.set(0);
+		}
+
+		/**
+		 * Gets the bucket of a value.
+		 *
+		 * @param value
+		 *            Non-negative value.
+		 * @return Bucket index.
+		 */
+		private static int bucketOf(final long value) {
+			if (value < EXACT)
+				return (int) value;
+			// Shift that leaves the value with SUB_BITS + 1 significant bits.
+			int shift = Long.SIZE - Long.numberOfLeadingZeros(value) - (SUB_BITS + 1);
+			return shift * SUB_BUCKETS + (int) (value >>> shift);
+		}
+
+		/**
+		 * Gets the largest value of a bucket.
+		 *
+		 * @param bucket
+		 *            Bucket index.
+		 * @return Upper bound of the bucket.
+		 */
+		private static long upperBoundOf(final int bucket) {
+			if (bucket < EXACT)
+				return bucket;
+			int shift = bucket / SUB_BUCKETS - 1;
+			long mantissa = bucket - (long) shift * SUB_BUCKETS;
+			return ((mantissa + 1) << shift) - 1;
+		}
+	}
+}
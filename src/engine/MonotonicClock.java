@@ -0,0 +1,24 @@
+package engine;
+
+/**
+ * Clock following real time, from the monotonic nanosecond timer, so it
+ * never jumps when the system time is changed.
+ */
+public final class MonotonicClock implements GameClock {
+
+	/** Time the clock starts at, in milliseconds. */
+	private static final long START_MILLIS = 1000;
+
+	/** Timer value when the clock was created. */
+	private final long originNanos = System.nanoTime();
+
+	/**
+	 * Gets the real time elapsed since the clock was created.
+	 *
+	 * @return Current time, in milliseconds.
+	 */
+	@Override
+	public long millis() {
+		return START_MILLIS + (System.nanoTime() - this.originNanos) / 1000000L;
+	}
+}
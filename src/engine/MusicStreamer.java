@@ -0,0 +1,201 @@
+package engine;
+
+import java.io.IOException;
+import java.util.logging.Logger;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.FloatControl;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+
+/**
+ * Streams a looped music track to its own output line, one chunk at a time,
+ * so memory doesn't grow with the track length. At the end of the track the
+ * chunk is completed from the start of a reopened stream, and the line
+ * buffer covers the reopening, so the loop has no gap. Pausing stops the
+ * line and keeps its buffered data, so resuming is instant.
+ */
+final class MusicStreamer implements Runnable {
+
+    /** Bytes read from the track at once. */
+    private static final int CHUNK_BYTES = 4096;
+    /** Chunks the output line buffers. */
+    private static final int LINE_CHUNKS = 8;
+
+    /** Application logger. */
+    private final Logger logger = Core.getLogger();
+    /** Resource path of the track. */
+    private final String resourcePath;
+    /** Chunk being read from the track. */
+    private final byte[] chunk = new byte[CHUNK_BYTES];
+    /** Open track stream, only used by the streaming thread once started. */
+    private AudioInputStream stream;
+    /** Output line. */
+    private SourceDataLine line;
+    /** True once the music is stopped for good. */
+    private volatile boolean stopped;
+    /** True while the music is paused. */
+    private boolean paused;
+
+    /**
+     * Constructor, sets the track.
+     *
+     * @param resourcePath
+     *            Resource path of the track.
+     */
+    MusicStreamer(final String resourcePath) {
+        this.resourcePath = resourcePath;
+    }
+
+    /**
+     * Opens the track and its output line, and starts streaming.
+     *
+     * @param volumeDb
+     *            Music volume, in decibels.
+     * @return True if the music started.
+     */
+    boolean start(final float volumeDb) {
+        try {
+            this.stream = SoundManager.openPcmStream(this.resourcePath);
+            if (this.stream == null)
+                return false;
+            AudioFormat format = this.stream.getFormat();
+            this.line = AudioSystem.getSourceDataLine(format);
+            this.line.open(format, CHUNK_BYTES * LINE_CHUNKS);
+        } catch (IOException | LineUnavailableException | IllegalArgumentException e) {
+            this.logger.fine("Unable to stream music '" + this.resourcePath + "': " + e.getMessage());
+            closeStream();
+            return false;
+        }
+        setVolume(volumeDb);
+        this.line.start();
+
+        Thread thread = new Thread(this, "MusicStreamer");
+        thread.setDaemon(true);
+        thread.start();
+        return true;
+    }
+
+    /**
+     * Streams chunks to the line until stopped, waiting while paused.
+     */
+    @Override
+    public void run() {
+        try {
+            while (!this.stopped) {
+                synchronized (this) {
+                    while (this.paused && !this.stopped)
+                        wait();
+                }
+                int length = fillChunk();
+                if (length == 0)
+                    break;
+                // Blocks while the line buffer is full, or while paused.
+                this.line.write(this.chunk, 0, length);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            this.logger.fine("Error streaming music '" + this.resourcePath + "': " + e.getMessage());
+        } finally {
+            closeStream();
+        }
+    }
+
+    /**
+     * Reads the next chunk, continuing from the start of the track at its
+     * end.
+     *
+     * @return Bytes read, 0 if the track can't be read.
+     * @throws IOException
+     *             When the track can't be read.
+     */
+    private int fillChunk() throws IOException {
+        int filled = 0;
+        boolean reopened = false;
+        while (filled < this.chunk.length && this.stream != null) {
+            int read = this.stream.read(this.chunk, filled, this.chunk.length - filled);
+            if (read > 0) {
+                filled += read;
+                reopened = false;
+            } else if (read < 0) {
+                // Stops instead of reopening an empty track forever.
+                if (reopened)
+                    break;
+                closeStream();
+                try {
+                    this.stream = SoundManager.openPcmStream(this.resourcePath);
+                } catch (IOException e) {
+                    this.logger.fine("Unable to loop music '" + this.resourcePath + "': " + e.getMessage());
+                }
+                reopened = true;
+            }
+        }
+        return filled;
+    }
+
+    /**
+     * Pauses the music, keeping the buffered data.
+     */
+    synchronized void pause() {
+        if (!this.stopped && !this.paused) {
+            this.paused = true;
+            this.line.stop();
+        }
+    }
+
+    /**
+     * Resumes the music from where it was paused.
+     */
+    synchronized void resume() {
+        if (!this.stopped && this.paused) {
+            this.paused = false;
+            this.line.start();
+            notifyAll();
+        }
+    }
+
+    /**
+     * Stops the music and releases the line. The streaming thread closes the
+     * track when it notices.
+     */
+    void stop() {
+        synchronized (this) {
+            this.stopped = true;
+            notifyAll();
+        }
+        // Closing the line also releases a blocked write.
+        this.line.stop();
+        this.line.flush();
+        this.line.close();
+    }
+
+    /**
+     * Sets the music volume, if the line supports it.
+     *
+     * @param volumeDb
+     *            Music volume, in decibels.
+     */
+    void setVolume(final float volumeDb) {
+        if (this.line.isControlSupported(FloatControl.Type.MASTER_GAIN)) {
+            FloatControl gain = (FloatControl) this.line.getControl(FloatControl.Type.MASTER_GAIN);
+            gain.setValue(Math.max(gain.getMinimum(), Math.min(gain.getMaximum(), volumeDb)));
+        }
+    }
+
+    /**
+     * Closes the track stream, if open.
+     */
+    private void closeStream() {
+        if (this.stream != null) {
+            try {
+                this.stream.close();
+            } catch (IOException e) {
+                this.logger.fine("Error closing music '" + this.resourcePath + "': " + e.getMessage());
+            }
+            this.stream = null;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package engine;
+
+/**
+ * Clock following another one, that can be frozen. While paused its time
+ * stands still, and on resuming it continues from there, so every cooldown
+ * on it is paused at once.
+ */
+public final class PausableClock implements GameClock {
+
+	/** Clock followed while running. */
+	private final GameClock source;
+	/** Total time spent paused, in milliseconds. */
+	private long pausedMillis;
+	/** Source time the clock was paused at, or -1 while running. */
+	private long pausedAt = -1;
+
+	/**
+	 * Constructor, establishes the clock followed.
+	 *
+	 * @param source
+	 *            Clock followed while running.
+	 */
+	public PausableClock(final GameClock source) {
+		this.source = source;
+	}
+
+	/**
+	 * Freezes the clock, if running.
+	 */
+	public void pause() {
+		if (this.pausedAt < 0)
+			this.pausedAt = this.source.millis();
+	}
+
+	/**
+	 * Lets the clock run again from where it was paused, if paused.
+	 */
+	public void resume() {
+		if (this.pausedAt >= 0) {
+			this.pausedMillis += this.source.millis() - this.pausedAt;
+			this.pausedAt = -1;
+		}
+	}
+
+	/**
+	 * Checks if the clock is paused.
+	 *
+	 * @return True while paused.
+	 */
+	public boolean isPaused() {
+		return this.pausedAt >= 0;
+	}
+
+	/**
+	 * Gets the source time, less the time spent paused.
+	 *
+	 * @return Current time, in milliseconds.
+	 */
+	@Override
+	public long millis() {
+		long now = this.pausedAt >= 0 ? this.pausedAt : this.source.millis();
+		return now - this.pausedMillis;
+	}
+}
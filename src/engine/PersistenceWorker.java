@@ -0,0 +1,160 @@
+package engine;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Saves game data on a background thread, so screens never wait on the
+ * disk. Saves are queued by resource: a save of a resource that is still
+ * queued replaces the queued one, so repeated saves collapse into a single
+ * write of the latest data.
+ */
+public final class PersistenceWorker {
+
+    /** Longest time flushing waits for the queued saves. */
+    private static final long FLUSH_TIMEOUT_MILLIS = 5000;
+
+    /** Saves replaced by a later save of the same resource. */
+    private static final Metrics.Counter COALESCED = Metrics.counter("persistence.coalesced");
+    /** Time of each save. */
+    private static final Metrics.Histogram WRITE_TIME = Metrics.histogram("persistence.write");
+
+    /** Application logger. */
+    private final Logger logger = Core.getLogger();
+    /** Queued saves by resource, oldest first. Guards the worker state. */
+    private final Map<String, Save> queued = new LinkedHashMap<String, Save>();
+    /** True while a save is being written. */
+    private boolean writing;
+    /** Thread writing the saves, started with the first one. */
+    private Thread worker;
+
+    /**
+     * Writes one resource, on the persistence thread.
+     */
+    @FunctionalInterface
+    public interface Save {
+
+        /**
+         * Writes the resource.
+         *
+         * @throws IOException
+         *             When the resource can't be written.
+         */
+        void write() throws IOException;
+    }
+
+    /**
+     * Queues a save, replacing the queued save of the same resource.
+     *
+     * @param resource
+     *            Name of the saved resource, such as its file path.
+     * @param save
+     *            Writes the latest data of the resource.
+     */
+    public void submit(final String resource, final Save save) {
+        synchronized (this.queued) {
+            if (this.queued.put(resource, save) != null)
+                COALESCED.increment();
+            if (this.worker == null) {
+                this.worker = new Thread(this::processSaves, "Persistence");
+                this.worker.setDaemon(true);
+                this.worker.start();
+            }
+            this.queued.notifyAll();
+        }
+    }
+
+    /**
+     * Waits until every queued save is written, for at most five seconds.
+     */
+    public void flush() {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(FLUSH_TIMEOUT_MILLIS);
+        synchronized (this.queued) {
+            while (!this.queued.isEmpty() || this.writing) {
+                long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remaining <= 0) {
+                    this.logger.warning("Gave up waiting for " + this.queued.size() + " saves.");
+                    return;
+                }
+                try {
+                    this.queued.wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /** Writes queued saves, oldest first, waiting while there are none. */
+    private void processSaves() {
+        while (true) {
+            Map.Entry<String, Save> next;
+            synchronized (this.queued) {
+                this.writing = false;
+                this.queued.notifyAll();
+                while (this.queued.isEmpty()) {
+                    try {
+                        this.queued.wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                Iterator<Map.Entry<String, Save>> oldest = this.queued.entrySet().iterator();
+                next = oldest.next();
+                oldest.remove();
+                this.writing = true;
+            }
+
+            long start = System.nanoTime();
+            try {
+                next.getValue().write();
+            } catch (IOException | RuntimeException e) {
+                this.logger.warning("Unable to save " + next.getKey() + ": " + e);
+            }
+            WRITE_TIME.recordSince(start);
+        }
+    }
+
+    /**
+     * Replaces a file with new content, never leaving it half written: the
+     * content goes to a temporary file next to it, synced, which is then
+     * moved over the file atomically.
+     *
+     * @param file
+     *            File to replace.
+     * @param content
+     *            New content of the file.
+     * @throws IOException
+     *             When the file can't be written.
+     */
+    public static void writeAtomically(final Path file, final String content) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer bytes = ByteBuffer.wrap(content.getBytes(StandardCharsets.UTF_8));
+            while (bytes.hasRemaining())
+                channel.write(bytes);
+            channel.force(true);
+        }
+        try {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
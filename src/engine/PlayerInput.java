@@ -0,0 +1,16 @@
+package engine;
+
+/**
+ * Source of the player input of headless games, such as a bot or a recorded
+ * replay.
+ */
+public interface PlayerInput {
+
+    /**
+     * Gets the game actions of the next update.
+     *
+     * @return Pressed action flags of {@link InputManager}, or -1 when there
+     *         is no more input.
+     */
+    int nextActions();
+}
@@ -0,0 +1,77 @@
+package engine;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * Plays a recorded replay again without a window, and checks it reaches the
+ * recorded level and score. A mismatch means the game is no longer
+ * deterministic, or has changed since the replay was recorded.
+ *
+ * Usage: ReplayPlayer file [--speed x]
+ */
+public final class ReplayPlayer {
+
+    /**
+     * Constructor, not called.
+     */
+    private ReplayPlayer() {
+
+    }
+
+    /**
+     * Plays a replay and prints whether it matches its recording.
+     *
+     * @param args
+     *            Replay file, then options, see the class description.
+     */
+    public static void main(final String[] args) {
+        System.setProperty("java.awt.headless", "true");
+
+        String file = null;
+        double speed = 0;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                if (args[i].equals("--speed"))
+                    speed = Double.parseDouble(args[++i]);
+                else if (file == null)
+                    file = args[i];
+                else
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+            if (file == null)
+                throw new IllegalArgumentException("No replay file");
+        } catch (RuntimeException e) {
+            System.err.println("Invalid arguments: " + e.getMessage());
+            System.err.println("Usage: ReplayPlayer file [--speed x]");
+            System.exit(2);
+        }
+
+        InputReplay replay;
+        try {
+            replay = InputReplay.read(Paths.get(file));
+            if (replay.getDataHash() != InputReplay.hashGameData()) {
+                System.err.println("The levels or items changed since " + file + " was recorded.");
+                System.exit(1);
+            }
+        } catch (IOException e) {
+            System.err.println("Unable to read " + file + ": " + e.getMessage());
+            System.exit(2);
+            return;
+        }
+
+        // Every recorded update is replayed, however long the game was.
+        HeadlessSimulation simulation = new HeadlessSimulation(Integer.MAX_VALUE);
+        simulation.install();
+        simulation.setSpeed(speed);
+        GameState state = simulation.playGame(replay.isCoop(),
+                replay.getShipTypeP1(), replay.getShipTypeP2(), replay.getSeed(), replay);
+
+        boolean matches = state.getLevel() == replay.getFinalLevel()
+                && state.getScore() == replay.getFinalScore();
+        System.out.println("replay (seed " + replay.getSeed() + "): level " + state.getLevel()
+                + ", score " + state.getScore() + "; recorded level " + replay.getFinalLevel()
+                + ", score " + replay.getFinalScore() + (matches ? ", match" : ", MISMATCH"));
+        System.exit(matches ? 0 : 1);
+    }
+}
@@ -0,0 +1,153 @@
+package engine;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Watches a resource directory on a background thread and reloads each
+ * watched file when it changes, so resources can be tuned while the game
+ * runs. Only the changed files are reloaded. Editors save a file in several
+ * writes, so a reload waits until the directory has been quiet for a
+ * moment. A reload that fails keeps what was loaded before.
+ */
+public final class ResourceWatcher {
+
+    /** Quiet time before changed files are reloaded. */
+    private static final long SETTLE_MILLIS = 200;
+
+    /** Application logger. */
+    private final Logger logger = Core.getLogger();
+    /** Watched directory. */
+    private final Path directory;
+    /** Reload of each watched file, by file name. */
+    private final Map<String, Reload> reloads = new LinkedHashMap<String, Reload>();
+
+    /**
+     * Reloads one file, on the watcher thread.
+     */
+    @FunctionalInterface
+    public interface Reload {
+
+        /**
+         * Reads the file again, validates it and publishes the result.
+         *
+         * @throws IOException
+         *             When the file can't be read or is invalid, leaving
+         *             what was published before.
+         */
+        void reload() throws IOException;
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param directory
+     *            Directory of the watched files.
+     */
+    public ResourceWatcher(final Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Reloads a file of the directory whenever it changes. Files are added
+     * before starting.
+     *
+     * @param fileName
+     *            Name of the file in the directory.
+     * @param reload
+     *            Reloads the file.
+     */
+    public void watch(final String fileName, final Reload reload) {
+        this.reloads.put(fileName, reload);
+    }
+
+    /**
+     * Starts watching on a daemon thread.
+     *
+     * @throws IOException
+     *             When the directory can't be watched.
+     */
+    public void start() throws IOException {
+        WatchService service = FileSystems.getDefault().newWatchService();
+        // Saves may replace the file rather than write it in place.
+        this.directory.register(service, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
+        Thread watcher = new Thread(() -> processChanges(service), "ResourceWatcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    /**
+     * Waits for changes and reloads the changed files, until the service is
+     * closed or the thread interrupted.
+     *
+     * @param service
+     *            Service the directory is registered with.
+     */
+    private void processChanges(final WatchService service) {
+        try {
+            while (true) {
+                Set<String> changed = new LinkedHashSet<String>();
+                WatchKey key = service.take();
+                while (key != null) {
+                    collect(key, changed);
+                    key = service.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS);
+                }
+                for (String fileName : changed)
+                    reload(fileName);
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Stopped.
+        }
+    }
+
+    /**
+     * Adds the watched files a key reports as changed, and resets the key.
+     *
+     * @param key
+     *            Signalled key.
+     * @param changed
+     *            Names of the changed files.
+     */
+    private void collect(final WatchKey key, final Set<String> changed) {
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                // Events were lost, so anything may have changed.
+                changed.addAll(this.reloads.keySet());
+                continue;
+            }
+            String fileName = ((Path) event.context()).getFileName().toString();
+            if (this.reloads.containsKey(fileName))
+                changed.add(fileName);
+        }
+        key.reset();
+    }
+
+    /**
+     * Reloads a changed file, logging the outcome.
+     *
+     * @param fileName
+     *            Name of the file.
+     */
+    private void reload(final String fileName) {
+        try {
+            this.reloads.get(fileName).reload();
+            this.logger.info("Reloaded " + fileName + ".");
+        } catch (IOException | RuntimeException e) {
+            this.logger.warning("Kept the previous " + fileName + ", the new one is invalid: "
+                    + e.getMessage());
+        }
+    }
+}
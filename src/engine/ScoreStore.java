@@ -0,0 +1,442 @@
+package engine;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Every score of a game mode, in a binary file of fixed size records mapped
+ * into memory. The header holds an index of the best scores, one per name
+ * and sorted, so the high score screens read a few records whatever the
+ * length of the history.
+ *
+ * Appending is crash safe: the record is first written to a journal and
+ * synced, then applied to the store, where the record count changes last.
+ * A journal left by a crash is applied again when the store is opened.
+ * Scores are appended by the persistence worker while screens read them,
+ * so every access is synchronized.
+ *
+ * Layout, big endian: magic, version, record count and index size as ints,
+ * the index as INDEX_SIZE record numbers, then the records: name in
+ * NAME_BYTES of UTF-8 padded with zeros, score, level reached and lives
+ * remaining as ints, and the time the score was saved as a long.
+ */
+final class ScoreStore {
+
+    /** Identifies score stores, "ISCS". */
+    private static final int MAGIC = 0x49534353;
+    /** Version of the layout. */
+    private static final int VERSION = 1;
+    /** Number of best scores the index keeps. */
+    static final int INDEX_SIZE = 32;
+    /** Bytes of a name. */
+    private static final int NAME_BYTES = 12;
+    /** Bytes of a record. */
+    private static final int RECORD_SIZE = 32;
+    /** Offset of the record count. */
+    private static final int COUNT = 8;
+    /** Offset of the index size. */
+    private static final int INDEXED = 12;
+    /** Offset of the index. */
+    private static final int INDEX = 16;
+    /** Offset of the first record. */
+    private static final int RECORDS = INDEX + INDEX_SIZE * 4;
+    /** Offset of the score in a record. */
+    private static final int SCORE = NAME_BYTES;
+    /** Records the store has room for when created. */
+    private static final int INITIAL_CAPACITY = 256;
+    /** Bytes of a journal entry: record number, record and checksum. */
+    private static final int JOURNAL_ENTRY = 4 + RECORD_SIZE + 8;
+
+    /** Game mode of the scores, 1P or 2P. */
+    private final String mode;
+    /** Store file. */
+    private final FileChannel channel;
+    /** Journal file. */
+    private final FileChannel journal;
+    /** Store file, mapped. */
+    private MappedByteBuffer map;
+    /** Records the mapping has room for. */
+    private int capacity;
+    /** Journal entry being written. */
+    private final ByteBuffer entry = ByteBuffer.allocate(JOURNAL_ENTRY);
+
+    /**
+     * Opens a store, creating it if missing, and applies what a crash left
+     * in its journal.
+     *
+     * @param file
+     *            Store file.
+     * @param journalFile
+     *            Journal file.
+     * @param mode
+     *            Game mode of the scores.
+     * @throws IOException
+     *             When the files can't be opened, or the store is not one.
+     */
+    ScoreStore(final Path file, final Path journalFile, final String mode) throws IOException {
+        this.mode = mode;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.journal = FileChannel.open(journalFile, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        boolean created = this.channel.size() == 0;
+        int records = created ? INITIAL_CAPACITY
+                : (int) Math.max(INITIAL_CAPACITY, (this.channel.size() - RECORDS) / RECORD_SIZE);
+        mapCapacity(records);
+        if (created) {
+            this.map.putInt(0, MAGIC);
+            this.map.putInt(4, VERSION);
+            this.map.force();
+        } else if (this.map.getInt(0) != MAGIC || this.map.getInt(4) != VERSION) {
+            throw new IOException(file + " is not a score store.");
+        }
+        recover();
+    }
+
+    /**
+     * Gets the game mode of the scores.
+     *
+     * @return 1P or 2P.
+     */
+    String getMode() {
+        return this.mode;
+    }
+
+    /**
+     * Gets the number of scores stored.
+     *
+     * @return Length of the history.
+     */
+    synchronized int getCount() {
+        return this.map.getInt(COUNT);
+    }
+
+    /**
+     * Appends a score to the history, returning once it is on disk.
+     *
+     * @param score
+     *            Score to append.
+     * @throws IOException
+     *             When the score can't be written.
+     */
+    synchronized void append(final Score score) throws IOException {
+        int number = getCount();
+        fillEntry(number, score);
+
+        while (this.entry.hasRemaining())
+            this.journal.write(this.entry, this.entry.position());
+        this.journal.force(true);
+
+        writeRecord(number);
+        insertIndexed(number);
+        commit(number + 1);
+        this.journal.truncate(0);
+    }
+
+    /**
+     * Appends scores to the history, returning once they are on disk. An
+     * empty store, being filled by an import, takes them all with a single
+     * sync of the records and one of the header: the count changes last, so
+     * a crash before it leaves the store empty and the import runs again.
+     *
+     * @param scores
+     *            Scores to append, in order.
+     * @throws IOException
+     *             When the scores can't be written.
+     */
+    synchronized void appendAll(final List<Score> scores) throws IOException {
+        if (getCount() != 0 || scores.size() < 2) {
+            for (Score score : scores)
+                append(score);
+            return;
+        }
+        for (int i = 0; i < scores.size(); i++) {
+            fillEntry(i, scores.get(i));
+            writeRecord(i);
+        }
+        this.map.force(RECORDS, scores.size() * RECORD_SIZE);
+        this.map.putInt(COUNT, scores.size());
+        rebuildIndex();
+        this.map.force(0, RECORDS);
+    }
+
+    /**
+     * Fills the journal entry of a record, ready to be written.
+     *
+     * @param number
+     *            Record number.
+     * @param score
+     *            Score of the record.
+     */
+    private void fillEntry(final int number, final Score score) {
+        this.entry.clear();
+        this.entry.putInt(number);
+        byte[] name = score.getName().getBytes(StandardCharsets.UTF_8);
+        this.entry.put(name, 0, Math.min(name.length, NAME_BYTES));
+        for (int i = name.length; i < NAME_BYTES; i++)
+            this.entry.put((byte) 0);
+        this.entry.putInt(score.getScore());
+        this.entry.putInt(score.getLevelReached());
+        this.entry.putInt(score.getLivesRemaining());
+        this.entry.putLong(System.currentTimeMillis());
+        CRC32 crc = new CRC32();
+        crc.update(this.entry.array(), 0, JOURNAL_ENTRY - 8);
+        this.entry.putLong(crc.getValue());
+        this.entry.flip();
+    }
+
+    /**
+     * Reads the best scores, one per name, best first.
+     *
+     * @param limit
+     *            Maximum number of scores, at most INDEX_SIZE.
+     * @return Best scores.
+     */
+    synchronized List<Score> getBest(final int limit) {
+        int indexed = Math.min(limit, this.map.getInt(INDEXED));
+        List<Score> best = new ArrayList<Score>(indexed);
+        for (int i = 0; i < indexed; i++)
+            best.add(readScore(indexedRecord(i)));
+        return best;
+    }
+
+    /**
+     * Closes the store files.
+     *
+     * @throws IOException
+     *             When the files can't be closed.
+     */
+    synchronized void close() throws IOException {
+        this.journal.close();
+        this.channel.close();
+    }
+
+    /**
+     * Applies the entry left in the journal by an append that didn't
+     * finish.
+     *
+     * @throws IOException
+     *             When the journal can't be read.
+     */
+    private void recover() throws IOException {
+        if (this.journal.size() < JOURNAL_ENTRY) {
+            // Empty, or torn while writing it: the append never happened.
+            this.journal.truncate(0);
+            return;
+        }
+        this.entry.clear();
+        while (this.entry.hasRemaining() && this.journal.read(this.entry, this.entry.position()) >= 0) {
+            // Reads the whole entry.
+        }
+        CRC32 crc = new CRC32();
+        crc.update(this.entry.array(), 0, JOURNAL_ENTRY - 8);
+        int number = this.entry.getInt(0);
+        if (crc.getValue() == this.entry.getLong(JOURNAL_ENTRY - 8) && number == getCount()) {
+            // The index may be torn too, so it is rebuilt from the records.
+            writeRecord(number);
+            this.map.putInt(COUNT, number + 1);
+            rebuildIndex();
+            this.map.force();
+            Core.getLogger().info("Recovered score " + number + " of the " + this.mode + " history.");
+        }
+        this.journal.truncate(0);
+    }
+
+    /**
+     * Copies the journal entry to its record.
+     *
+     * @param number
+     *            Record number.
+     * @throws IOException
+     *             When the store can't grow.
+     */
+    private void writeRecord(final int number) throws IOException {
+        if (number >= this.capacity)
+            mapCapacity(this.capacity * 2);
+        int offset = RECORDS + number * RECORD_SIZE;
+        for (int i = 0; i < RECORD_SIZE; i++)
+            this.map.put(offset + i, this.entry.get(4 + i));
+    }
+
+    /**
+     * Syncs the last record, then stores and syncs the record count and
+     * the index, committing the record.
+     *
+     * @param count
+     *            Number of records.
+     */
+    private void commit(final int count) {
+        this.map.force(RECORDS + (count - 1) * RECORD_SIZE, RECORD_SIZE);
+        this.map.putInt(COUNT, count);
+        this.map.force(0, RECORDS);
+    }
+
+    /**
+     * Adds a record to the index if it is the best of its name and among
+     * the best of all. Ties keep the older record first.
+     *
+     * @param number
+     *            Record number.
+     */
+    private void insertIndexed(final int number) {
+        int indexed = this.map.getInt(INDEXED);
+        int score = scoreOf(number);
+        for (int i = 0; i < indexed; i++) {
+            int other = indexedRecord(i);
+            if (!sameName(other, number))
+                continue;
+            if (scoreOf(other) >= score)
+                return;
+            removeIndexed(i, indexed--);
+            break;
+        }
+        if (indexed == INDEX_SIZE) {
+            if (scoreOf(indexedRecord(indexed - 1)) >= score)
+                return;
+            indexed--;
+        }
+
+        // First position with a lower score.
+        int low = 0;
+        int high = indexed;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (scoreOf(indexedRecord(middle)) >= score)
+                low = middle + 1;
+            else
+                high = middle;
+        }
+        for (int i = indexed; i > low; i--)
+            this.map.putInt(INDEX + i * 4, indexedRecord(i - 1));
+        this.map.putInt(INDEX + low * 4, number);
+        this.map.putInt(INDEXED, indexed + 1);
+    }
+
+    /**
+     * Removes an entry from the index.
+     *
+     * @param position
+     *            Position of the entry.
+     * @param indexed
+     *            Entries in the index.
+     */
+    private void removeIndexed(final int position, final int indexed) {
+        for (int i = position; i < indexed - 1; i++)
+            this.map.putInt(INDEX + i * 4, indexedRecord(i + 1));
+        this.map.putInt(INDEXED, indexed - 1);
+    }
+
+    /**
+     * Builds the index again from every record.
+     */
+    private void rebuildIndex() {
+        Map<String, Integer> bestByName = new HashMap<String, Integer>();
+        for (int i = 0; i < getCount(); i++) {
+            Integer best = bestByName.get(nameOf(i));
+            if (best == null || scoreOf(i) > scoreOf(best))
+                bestByName.put(nameOf(i), i);
+        }
+        List<Integer> best = new ArrayList<Integer>(bestByName.values());
+        best.sort((a, b) -> scoreOf(a) != scoreOf(b)
+                ? Integer.compare(scoreOf(b), scoreOf(a)) : Integer.compare(a, b));
+        int indexed = Math.min(INDEX_SIZE, best.size());
+        for (int i = 0; i < indexed; i++)
+            this.map.putInt(INDEX + i * 4, best.get(i));
+        this.map.putInt(INDEXED, indexed);
+    }
+
+    /**
+     * Maps the store with room for a number of records, growing the file
+     * if needed.
+     *
+     * @param records
+     *            Number of records.
+     * @throws IOException
+     *             When the file can't be mapped.
+     */
+    private void mapCapacity(final int records) throws IOException {
+        this.map = this.channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                RECORDS + (long) records * RECORD_SIZE);
+        this.capacity = records;
+    }
+
+    /**
+     * Gets the record number of an index entry.
+     *
+     * @param position
+     *            Position in the index.
+     * @return Record number.
+     */
+    private int indexedRecord(final int position) {
+        return this.map.getInt(INDEX + position * 4);
+    }
+
+    /**
+     * Gets the score of a record.
+     *
+     * @param number
+     *            Record number.
+     * @return Score points.
+     */
+    private int scoreOf(final int number) {
+        return this.map.getInt(RECORDS + number * RECORD_SIZE + SCORE);
+    }
+
+    /**
+     * Checks if two records have the same name.
+     *
+     * @param a
+     *            Record number.
+     * @param b
+     *            Record number.
+     * @return True if the names match.
+     */
+    private boolean sameName(final int a, final int b) {
+        int offsetA = RECORDS + a * RECORD_SIZE;
+        int offsetB = RECORDS + b * RECORD_SIZE;
+        for (int i = 0; i < NAME_BYTES; i++)
+            if (this.map.get(offsetA + i) != this.map.get(offsetB + i))
+                return false;
+        return true;
+    }
+
+    /**
+     * Gets the name of a record.
+     *
+     * @param number
+     *            Record number.
+     * @return Player name.
+     */
+    private String nameOf(final int number) {
+        int offset = RECORDS + number * RECORD_SIZE;
+        int length = 0;
+        while (length < NAME_BYTES && this.map.get(offset + length) != 0)
+            length++;
+        byte[] name = new byte[length];
+        for (int i = 0; i < length; i++)
+            name[i] = this.map.get(offset + i);
+        return new String(name, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads a record.
+     *
+     * @param number
+     *            Record number.
+     * @return Score of the record.
+     */
+    private Score readScore(final int number) {
+        return new Score(nameOf(number), scoreOf(number), this.mode);
+    }
+}
@@ -0,0 +1,115 @@
+package engine;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Lock-free queue of sound commands from the game thread, its only producer,
+ * to the audio thread, its only consumer. Offering never blocks: commands
+ * are dropped when the queue is full, and an effect already requested in the
+ * last frame is not requested again.
+ */
+final class SoundCommandQueue {
+
+    /** Time within which the same effect is requested only once. */
+    private static final long DUPLICATE_WINDOW = 1000000000L / 60;
+    /** Number of recent effect requests checked for duplicates. */
+    private static final int RECENT_EFFECTS = 8;
+
+    /** Command types of each slot. */
+    private final int[] types;
+    /** Resource paths of each slot, null if the command has none. */
+    private final String[] paths;
+    /** Mask from sequence numbers to slots. */
+    private final int mask;
+    /** Sequence of the next command to take, written by the consumer. */
+    private final AtomicLong head = new AtomicLong();
+    /** Sequence of the next command to offer, written by the producer. */
+    private final AtomicLong tail = new AtomicLong();
+    /** Last head seen by the producer, to avoid reading it on each offer. */
+    private long cachedHead;
+
+    /** Recently requested effects, written by the producer. */
+    private final String[] recentEffects = new String[RECENT_EFFECTS];
+    /** Times the recent effects were requested. */
+    private final long[] recentTimes = new long[RECENT_EFFECTS];
+    /** Next recent effect slot to overwrite. */
+    private int nextRecent;
+
+    /**
+     * Constructor, sets the capacity.
+     *
+     * @param capacity
+     *            Maximum number of pending commands, a power of two.
+     */
+    SoundCommandQueue(final int capacity) {
+        this.types = new int[capacity];
+        this.paths = new String[capacity];
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Adds a command, from the producer thread.
+     *
+     * @param type
+     *            Command type.
+     * @param path
+     *            Resource path, or null.
+     * @return False if the queue is full.
+     */
+    boolean offer(final int type, final String path) {
+        long sequence = this.tail.get();
+        if (sequence - this.cachedHead > this.mask) {
+            this.cachedHead = this.head.get();
+            if (sequence - this.cachedHead > this.mask)
+                return false;
+        }
+        int slot = (int) sequence & this.mask;
+        this.types[slot] = type;
+        this.paths[slot] = path;
+        // Publishes the slot to the consumer.
+        this.tail.lazySet(sequence + 1);
+        return true;
+    }
+
+    /**
+     * Checks if an effect was requested in the last frame, recording it as
+     * requested now otherwise. Called from the producer thread.
+     *
+     * @param path
+     *            Resource path of the effect.
+     * @return True if the request duplicates a recent one.
+     */
+    boolean isDuplicate(final String path) {
+        long now = System.nanoTime();
+        for (int i = 0; i < RECENT_EFFECTS; i++)
+            if (path.equals(this.recentEffects[i])
+                    && now - this.recentTimes[i] < DUPLICATE_WINDOW)
+                return true;
+        this.recentEffects[this.nextRecent] = path;
+        this.recentTimes[this.nextRecent] = now;
+        this.nextRecent = (this.nextRecent + 1) % RECENT_EFFECTS;
+        return false;
+    }
+
+    /**
+     * Takes every pending command, from the consumer thread.
+     *
+     * @param executor
+     *            Receives the resource path and type of each command.
+     * @return Number of commands taken.
+     */
+    int drain(final ObjIntConsumer<String> executor) {
+        long sequence = this.head.get();
+        long end = this.tail.get();
+        for (long s = sequence; s < end; s++) {
+            int slot = (int) s & this.mask;
+            String path = this.paths[slot];
+            this.paths[slot] = null;
+            executor.accept(path, this.types[slot]);
+        }
+        // Hands the slots back to the producer.
+        this.head.lazySet(end);
+        return (int) (end - sequence);
+    }
+}
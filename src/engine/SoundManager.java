@@ -7,16 +7,19 @@ import javax.sound.sampled.Clip;
 import javax.sound.sampled.DataLine;
 import javax.sound.sampled.FloatControl;
 import javax.sound.sampled.LineUnavailableException;
-import javax.sound.sampled.LineEvent;
 import javax.sound.sampled.UnsupportedAudioFileException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
- * Minimal sound manager for short SFX.
+ * Minimal sound manager for short SFX and music.
  */
 public final class  SoundManager {
 
@@ -26,54 +29,281 @@ public final class  SoundManager {
     private SoundManager() {
     }
 
+    /** Command decoding the game effects. */
+    private static final int PRELOAD = 0;
+    /** Command playing an effect. */
+    private static final int PLAY_ONCE = 1;
+    /** Command starting a looped sound. */
+    private static final int PLAY_LOOP = 2;
+    /** Command stopping the looped sound. */
+    private static final int STOP_LOOP = 3;
+    /** Command starting the background music. */
+    private static final int START_MUSIC = 4;
+    /** Command stopping the background music. */
+    private static final int STOP_MUSIC = 5;
+    /** Command applying the volume setting. */
+    private static final int UPDATE_VOLUME = 6;
+    /** Command pausing the background music. */
+    private static final int PAUSE_MUSIC = 7;
+    /** Command resuming the background music. */
+    private static final int RESUME_MUSIC = 8;
+    /** Maximum number of commands waiting for the audio thread. */
+    private static final int COMMAND_CAPACITY = 256;
+    /** Maximum number of effects played at once. */
+    private static final int MAX_VOICES = 16;
+    /** Effects decoded at startup. */
+    private static final String[] EFFECTS = {
+            "sound/achievement.wav", "sound/CountDownSound.wav", "sound/explosion.wav",
+            "sound/hover.wav", "sound/invaderkilled.wav", "sound/select.wav",
+            "sound/shoot.wav", "sound/shoot_enemies.wav" };
+
+    /** Commands from the game thread to the audio thread. */
+    private static final SoundCommandQueue commands = new SoundCommandQueue(COMMAND_CAPACITY);
+    /** Audio thread, running every device and file operation. */
+    private static Thread audioThread;
+    /** False to ignore every sound call, e.g. when running without a window. */
+    private static boolean enabled = true;
+    /** Time the game thread spends submitting a command. */
+    private static final Metrics.Histogram SUBMIT = Metrics.histogram("sound.submit");
+    /** Commands dropped as the queue was full. */
+    private static final Metrics.Counter DROPPED = Metrics.counter("sound.dropped");
+    /** Software mixer playing all effects through one line. */
+    private static final SoundMixer mixer = new SoundMixer(MAX_VOICES);
+    /** Decoded effects by resource path, empty when they can't be played. */
+    private static final Map<String, short[]> effects = new HashMap<String, short[]>();
+    /** Background music streamer, null when no music plays. */
+    private static MusicStreamer musicStreamer = null;
+
+    /**
+     * Enables or disables all sound. While disabled, every call does nothing
+     * and no audio thread or device is opened.
+     *
+     * @param soundEnabled
+     *            True to play sounds.
+     */
+    public static void setEnabled(boolean soundEnabled) {
+        enabled = soundEnabled;
+    }
+
+    /**
+     * Opens the effects output and decodes the game sound effects in the
+     * background, so playing them later doesn't touch the disk or the audio
+     * device.
+     */
+    public static void preloadEffects() {
+        submit(PRELOAD, null);
+    }
+
     /**
      * Plays a short WAV from resources folder. Example path: "sound/shoot.wav".
-     * Uses a new Clip per invocation for simplicity; suitable for very short SFX.
+     * The WAV is decoded once and then mixed with the other playing effects.
+     * Requesting the same WAV again within a frame does nothing.
      */
     public static void playOnce(String resourcePath) {
-        AudioInputStream audioStream = null;
-        Clip clip = null;
+        if (enabled && !commands.isDuplicate(resourcePath))
+            submit(PLAY_ONCE, resourcePath);
+    }
+
+    /**
+     * Plays a WAV in a loop until {@link #stop()} is called.
+     */
+    public static void playLoop(String resourcePath) {
+        submit(PLAY_LOOP, resourcePath);
+    }
+
+    /**
+     * Stops and releases the current looped clip, if any.
+     */
+    public static void stop() {
+        submit(STOP_LOOP, null);
+    }
+
+    /**
+     * Stops all music (both looped and background music).
+     * Use this when transitioning between screens to ensure no overlap.
+     */
+    public static void stopAllMusic() {
+        stop(); // stops looped music
+        stopBackgroundMusic(); // stops background music
+    }
+
+    /**
+     * starts playing background music that loops during gameplay
+     */
+    public static void startBackgroundMusic(String musicResourcePath) {
+        submit(START_MUSIC, musicResourcePath);
+    }
+
+    /**
+     * stops the background music and releases resources
+     */
+    public static void stopBackgroundMusic() {
+        submit(STOP_MUSIC, null);
+    }
+
+    /**
+     * Pauses the background music, keeping its position.
+     */
+    public static void pauseBackgroundMusic() {
+        submit(PAUSE_MUSIC, null);
+    }
+
+    /**
+     * Resumes the background music where it was paused.
+     */
+    public static void resumeBackgroundMusic() {
+        submit(RESUME_MUSIC, null);
+    }
+
+    /**
+     * Updates the volume of currently playing sounds.
+     * This should be called when the volume slider is changed.
+     */
+    public static void updateVolume() {
+        submit(UPDATE_VOLUME, null);
+    }
+
+    /**
+     * Queues a command for the audio thread, starting it if needed. Must be
+     * called from the game thread only; never blocks.
+     *
+     * @param command
+     *            Command type.
+     * @param resourcePath
+     *            Resource path, or null.
+     */
+    private static void submit(int command, String resourcePath) {
+        if (!enabled)
+            return;
+        long start = System.nanoTime();
+        if (audioThread == null) {
+            audioThread = new Thread(SoundManager::processCommands, "SoundCommands");
+            audioThread.setDaemon(true);
+            audioThread.start();
+        }
+        if (!commands.offer(command, resourcePath)) {
+            DROPPED.increment();
+            if (logger.isLoggable(Level.FINE))
+                logger.fine("Sound command queue full, dropped: " + resourcePath);
+        }
+        LockSupport.unpark(audioThread);
+        SUBMIT.recordSince(start);
+    }
+
+    /**
+     * Runs queued commands on the audio thread, parking while there are none.
+     * A failing command is logged and skipped, so the thread keeps serving
+     * the ones after it.
+     */
+    private static void processCommands() {
+        while (true) {
+            if (commands.drain(SoundManager::executeSafely) == 0)
+                LockSupport.park();
+        }
+    }
+
+    /**
+     * Runs one command on the audio thread, logging any failure.
+     *
+     * @param resourcePath
+     *            Resource path, or null.
+     * @param command
+     *            Command type.
+     */
+    private static void executeSafely(String resourcePath, int command) {
         try {
-            audioStream = openAudioStream(resourcePath);
-            if (audioStream == null) return;
-            audioStream = toPcmSigned(audioStream);
-            DataLine.Info info = new DataLine.Info(Clip.class, audioStream.getFormat());
-            clip = (Clip) AudioSystem.getLine(info);
-            clip.open(audioStream);
+            execute(resourcePath, command);
+        } catch (RuntimeException e) {
+            logger.warning("Sound command " + command + " failed for '" + resourcePath + "': " + e);
+        }
+    }
 
-            // Set volume based on user settings
-            if (clip.isControlSupported(FloatControl.Type.MASTER_GAIN)) {
-                FloatControl gain = (FloatControl) clip.getControl(FloatControl.Type.MASTER_GAIN);
-                float volumeDb = calculateVolumeDb(Core.getVolumeLevel());
-                gain.setValue(Math.max(gain.getMinimum(), Math.min(gain.getMaximum(), volumeDb)));
-            }
+    /**
+     * Runs one command on the audio thread.
+     *
+     * @param resourcePath
+     *            Resource path, or null.
+     * @param command
+     *            Command type.
+     */
+    private static void execute(String resourcePath, int command) {
+        switch (command) {
+            case PRELOAD:
+                loadEffects();
+                break;
+            case PLAY_ONCE:
+                mixEffect(resourcePath);
+                break;
+            case PLAY_LOOP:
+                openLoop(resourcePath);
+                break;
+            case STOP_LOOP:
+                closeLoop();
+                break;
+            case START_MUSIC:
+                openMusic(resourcePath);
+                break;
+            case STOP_MUSIC:
+                closeMusic();
+                break;
+            case PAUSE_MUSIC:
+                if (musicStreamer != null)
+                    musicStreamer.pause();
+                break;
+            case RESUME_MUSIC:
+                if (musicStreamer != null)
+                    musicStreamer.resume();
+                break;
+            case UPDATE_VOLUME:
+                applyVolume();
+                break;
+            default:
+                logger.fine("Unknown sound command: " + command);
+                break;
+        }
+    }
 
-            clip.start();
-            logger.info("Started one-shot sound: " + resourcePath);
-        } catch (UnsupportedAudioFileException | IOException | LineUnavailableException e) {
-            logger.info("Unable to play sound '" + resourcePath + "': " + e.getMessage());
-        } finally {
-            // We can't close 'in' immediately because AudioSystem may stream; rely on clip close
-            if (clip != null) {
-                final Clip c = clip;
-                c.addLineListener(event -> {
-                    LineEvent.Type type = event.getType();
-                    if (type == LineEvent.Type.STOP || type == LineEvent.Type.CLOSE) {
-                        try {
-                            c.close();
-                        } catch (Exception ignored) {}
+    /** Opens the effects output and decodes the game sound effects. */
+    private static void loadEffects() {
+        mixer.open();
+        for (String effect : EFFECTS)
+            getEffect(effect);
+        logger.info("Decoded " + effects.size() + " sound effects.");
+    }
+
+    /** Starts mixing an effect, decoding it on first use. */
+    private static void mixEffect(String resourcePath) {
+        short[] samples = getEffect(resourcePath);
+        if (samples.length > 0)
+            mixer.play(samples, (float) Math.pow(10.0, calculateVolumeDb(Core.getVolumeLevel()) / 20.0));
+    }
+
+    /** Gets the decoded samples of an effect, decoding it on first use. */
+    private static short[] getEffect(String resourcePath) {
+        short[] samples = effects.get(resourcePath);
+        if (samples == null) {
+            samples = new short[0];
+            try {
+                AudioInputStream audioStream = openAudioStream(resourcePath);
+                if (audioStream != null) {
+                    try {
+                        samples = SoundMixer.decode(toPcmSigned(audioStream));
+                    } finally {
+                        audioStream.close();
                     }
-                });
+                }
+            } catch (UnsupportedAudioFileException | IOException e) {
+                logger.info("Unable to decode sound '" + resourcePath + "': " + e.getMessage());
             }
+            effects.put(resourcePath, samples);
         }
+        return samples;
     }
 
-    /**
-     * Plays a WAV in a loop until {@link #stop()} is called.
-     */
-    public static void playLoop(String resourcePath) {
-        stop();
-        stopBackgroundMusic();
+    /** Opens a looped clip, replacing any playing music. */
+    private static void openLoop(String resourcePath) {
+        closeLoop();
+        closeMusic();
 
         AudioInputStream audioStream = null;
         try {
@@ -104,10 +334,8 @@ public final class  SoundManager {
         }
     }
 
-    /**
-     * Stops and releases the current looped clip, if any.
-     */
-    public static void stop() {
+    /** Stops and releases the current looped clip, if any. */
+    private static void closeLoop() {
         if (loopClip != null) {
             try {
                 loopClip.stop();
@@ -120,83 +348,45 @@ public final class  SoundManager {
         }
     }
 
-    /**
-     * Stops all music (both looped and background music).
-     * Use this when transitioning between screens to ensure no overlap.
-     */
-    public static void stopAllMusic() {
-        stop(); // stops looped music
-        stopBackgroundMusic(); // stops background music
-    }
-    // Background music clip - static to persist across method calls
-    private static Clip backgroundMusicClip = null;
-    private static boolean isMusicPlaying = false;
-    private static float musicVolumeDb = -10.0f; // Default music volume
-
-    /**
-     * starts playing background music that loops during gameplay
-     */
-    public static void startBackgroundMusic(String musicResourcePath) {
+    /** Starts streaming the background music, replacing any playing music. */
+    private static void openMusic(String musicResourcePath) {
         // stop any currently playing music (both loop and background music)
-        stop();
-        stopBackgroundMusic();
-
-        InputStream in = null;
-        AudioInputStream audioStream = null;
-
-        try {
-            in = SoundManager.class.getClassLoader().getResourceAsStream(musicResourcePath);
-            if (in == null) {
-                logger.fine("Music resource not found: " + musicResourcePath);
-                return;
-            }
-
-            audioStream = AudioSystem.getAudioInputStream(in);
-            DataLine.Info info = new DataLine.Info(Clip.class, audioStream.getFormat());
-            backgroundMusicClip = (Clip) AudioSystem.getLine(info);
-            backgroundMusicClip.open(audioStream);
+        closeLoop();
+        closeMusic();
 
-            // set looping
-            backgroundMusicClip.loop(Clip.LOOP_CONTINUOUSLY);
-
-            // set music volume based on user settings
-            if (backgroundMusicClip.isControlSupported(FloatControl.Type.MASTER_GAIN)) {
-                FloatControl gain = (FloatControl) backgroundMusicClip.getControl(FloatControl.Type.MASTER_GAIN);
-                float volumeDb = calculateVolumeDb(Core.getVolumeLevel());
-                gain.setValue(Math.max(gain.getMinimum(), Math.min(gain.getMaximum(), volumeDb)));
-            }
-
-            backgroundMusicClip.start();
-            isMusicPlaying = true;
+        MusicStreamer streamer = new MusicStreamer(musicResourcePath);
+        if (streamer.start(calculateVolumeDb(Core.getVolumeLevel()))) {
+            musicStreamer = streamer;
             logger.fine("Background music started: " + musicResourcePath);
+        }
+    }
 
-        } catch (UnsupportedAudioFileException | IOException | LineUnavailableException e) {
-            logger.fine("Unable to play background music '" + musicResourcePath + "': " + e.getMessage());
-            cleanupMusicResources();
+    /** Stops the background music and releases its line. */
+    private static void closeMusic() {
+        if (musicStreamer != null) {
+            musicStreamer.stop();
+            musicStreamer = null;
         }
     }
 
     /**
-     * stops the background music and releases resources
+     * Opens an audio stream as PCM signed, from classpath resources or a file.
+     *
+     * @param resourcePath
+     *            Resource path of the audio.
+     * @return Audio stream, or null if the audio doesn't exist.
+     * @throws IOException
+     *             When the audio can't be read or decoded.
      */
-    public static void stopBackgroundMusic() {
-        if (backgroundMusicClip != null) {
-            try {
-                backgroundMusicClip.stop();
-                backgroundMusicClip.close();
-            } catch (Exception e) {
-                logger.fine("Error stopping background music: " + e.getMessage());
-            } finally {
-                cleanupMusicResources();
-            }
+    static AudioInputStream openPcmStream(String resourcePath) throws IOException {
+        try {
+            AudioInputStream audioStream = openAudioStream(resourcePath);
+            return audioStream == null ? null : toPcmSigned(audioStream);
+        } catch (UnsupportedAudioFileException e) {
+            throw new IOException(e.getMessage(), e);
         }
     }
 
-    private static void cleanupMusicResources() {
-        backgroundMusicClip = null;
-        isMusicPlaying = false;
-    }
-
     /** Opens an audio stream from classpath resources or absolute/relative file path. */
     private static AudioInputStream openAudioStream(String resourcePath)
             throws UnsupportedAudioFileException, IOException {
@@ -232,11 +422,8 @@ public final class  SoundManager {
         return AudioSystem.getAudioInputStream(targetFormat, source);
     }
 
-    /**
-     * Updates the volume of currently playing sounds.
-     * This should be called when the volume slider is changed.
-     */
-    public static void updateVolume() {
+    /** Applies the volume setting to the playing clips. */
+    private static void applyVolume() {
         float volumeDb = calculateVolumeDb(Core.getVolumeLevel());
         
         // Update looped sound volume (menu music)
@@ -246,10 +433,8 @@ public final class  SoundManager {
         }
         
         // Update background music volume (game music)
-        if (backgroundMusicClip != null && backgroundMusicClip.isControlSupported(FloatControl.Type.MASTER_GAIN)) {
-            FloatControl gain = (FloatControl) backgroundMusicClip.getControl(FloatControl.Type.MASTER_GAIN);
-            gain.setValue(Math.max(gain.getMinimum(), Math.min(gain.getMaximum(), volumeDb)));
-        }
+        if (musicStreamer != null)
+            musicStreamer.setVolume(volumeDb);
     }
 
     /**
@@ -0,0 +1,240 @@
+package engine;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.logging.Logger;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+
+/**
+ * Mixes short sound effects in software on its own thread, into a single
+ * output line. Effects are decoded once into samples of the mixer format, so
+ * playing one only takes a free voice. When every voice is busy, the oldest
+ * one is replaced.
+ */
+final class SoundMixer implements Runnable {
+
+    /** Format of the output line and of decoded effects. */
+    static final AudioFormat FORMAT = new AudioFormat(44100f, 16, 2, true, false);
+    /** Frames mixed on each pass. */
+    private static final int CHUNK_FRAMES = 256;
+    /** Chunks the output line buffers, which bounds the latency. */
+    private static final int LINE_CHUNKS = 4;
+
+    /** Application logger. */
+    private final Logger logger = Core.getLogger();
+    /** Samples of each voice, null when the voice is free. */
+    private final short[][] voiceSamples;
+    /** Next sample of each voice. */
+    private final int[] voicePositions;
+    /** Linear gain of each voice. */
+    private final float[] voiceGains;
+    /** Order in which each voice was started, to find the oldest. */
+    private final long[] voiceStarts;
+    /** Number of busy voices. */
+    private int activeVoices;
+    /** Start order of the next voice. */
+    private long nextStart;
+
+    /** Output line, null until the mixer is started. */
+    private SourceDataLine line;
+    /** Mixing thread. */
+    private Thread thread;
+    /** True when no output line could be opened. */
+    private boolean unavailable;
+
+    /**
+     * Constructor, sets the voice count.
+     *
+     * @param maxVoices
+     *            Maximum number of effects played at once.
+     */
+    SoundMixer(final int maxVoices) {
+        this.voiceSamples = new short[maxVoices][];
+        this.voicePositions = new int[maxVoices];
+        this.voiceGains = new float[maxVoices];
+        this.voiceStarts = new long[maxVoices];
+    }
+
+    /**
+     * Starts playing an effect, replacing the oldest one if no voice is free.
+     *
+     * @param samples
+     *            Interleaved samples in the mixer format.
+     * @param gain
+     *            Linear gain, 0 to 1.
+     */
+    synchronized void play(final short[] samples, final float gain) {
+        if (samples.length == 0 || gain <= 0f || !open())
+            return;
+
+        int voice = 0;
+        for (int i = 0; i < this.voiceSamples.length; i++) {
+            if (this.voiceSamples[i] == null) {
+                voice = i;
+                break;
+            }
+            if (this.voiceStarts[i] < this.voiceStarts[voice])
+                voice = i;
+        }
+        if (this.voiceSamples[voice] == null)
+            this.activeVoices++;
+        this.voiceSamples[voice] = samples;
+        this.voicePositions[voice] = 0;
+        this.voiceGains[voice] = gain;
+        this.voiceStarts[voice] = this.nextStart++;
+        notifyAll();
+    }
+
+    /**
+     * Opens the output line and starts the mixing thread, if not done yet.
+     *
+     * @return True if the mixer can play.
+     */
+    synchronized boolean open() {
+        if (this.line != null)
+            return true;
+        if (this.unavailable)
+            return false;
+        try {
+            this.line = AudioSystem.getSourceDataLine(FORMAT);
+            this.line.open(FORMAT, CHUNK_FRAMES * LINE_CHUNKS * FORMAT.getFrameSize());
+            this.line.start();
+        } catch (LineUnavailableException | IllegalArgumentException e) {
+            this.logger.info("Unable to open sound output: " + e.getMessage());
+            this.line = null;
+            this.unavailable = true;
+            return false;
+        }
+        this.thread = new Thread(this, "SoundMixer");
+        this.thread.setDaemon(true);
+        this.thread.start();
+        return true;
+    }
+
+    /**
+     * Mixes busy voices into the output line, waiting while all are free.
+     */
+    @Override
+    public void run() {
+        int[] mix = new int[CHUNK_FRAMES * 2];
+        byte[] out = new byte[CHUNK_FRAMES * FORMAT.getFrameSize()];
+        try {
+            while (true) {
+                synchronized (this) {
+                    while (this.activeVoices == 0)
+                        wait();
+                    Arrays.fill(mix, 0);
+                    mixVoices(mix);
+                }
+                for (int i = 0; i < mix.length; i++) {
+                    int sample = Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, mix[i]));
+                    out[i * 2] = (byte) sample;
+                    out[i * 2 + 1] = (byte) (sample >> 8);
+                }
+                // Blocks while the line buffer is full, which paces the mixer.
+                this.line.write(out, 0, out.length);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Adds the next chunk of every busy voice, freeing the finished ones.
+     *
+     * @param mix
+     *            Interleaved sample sums.
+     */
+    private void mixVoices(final int[] mix) {
+        for (int v = 0; v < this.voiceSamples.length; v++) {
+            short[] samples = this.voiceSamples[v];
+            if (samples == null)
+                continue;
+            int position = this.voicePositions[v];
+            int count = Math.min(mix.length, samples.length - position);
+            float gain = this.voiceGains[v];
+            for (int i = 0; i < count; i++)
+                mix[i] += (int) (samples[position + i] * gain);
+            position += count;
+            if (position >= samples.length) {
+                this.voiceSamples[v] = null;
+                this.activeVoices--;
+            } else {
+                this.voicePositions[v] = position;
+            }
+        }
+    }
+
+    /**
+     * Decodes a whole audio stream into interleaved stereo samples of the
+     * mixer format.
+     *
+     * @param stream
+     *            PCM signed or unsigned stream, 8 or 16 bits.
+     * @return Samples in the mixer format.
+     * @throws IOException
+     *             When the stream can't be read.
+     */
+    static short[] decode(final AudioInputStream stream) throws IOException {
+        AudioFormat format = stream.getFormat();
+        byte[] bytes = stream.readAllBytes();
+        int channels = format.getChannels();
+        int bytesPerSample = format.getSampleSizeInBits() / 8;
+        int frames = bytes.length / (channels * bytesPerSample);
+        boolean unsigned = format.getEncoding() == AudioFormat.Encoding.PCM_UNSIGNED;
+
+        // Source samples as left and right, duplicating mono.
+        float[] left = new float[frames];
+        float[] right = new float[frames];
+        for (int f = 0; f < frames; f++) {
+            int base = f * channels * bytesPerSample;
+            left[f] = readSample(bytes, base, bytesPerSample, format.isBigEndian(), unsigned);
+            right[f] = channels == 1 ? left[f]
+                    : readSample(bytes, base + bytesPerSample, bytesPerSample, format.isBigEndian(), unsigned);
+        }
+
+        // Linear resampling to the mixer rate.
+        double step = format.getSampleRate() / FORMAT.getSampleRate();
+        int outFrames = (int) (frames / step);
+        short[] samples = new short[outFrames * 2];
+        for (int f = 0; f < outFrames; f++) {
+            double source = f * step;
+            int index = (int) source;
+            int next = Math.min(index + 1, frames - 1);
+            float weight = (float) (source - index);
+            samples[f * 2] = (short) (left[index] + (left[next] - left[index]) * weight);
+            samples[f * 2 + 1] = (short) (right[index] + (right[next] - right[index]) * weight);
+        }
+        return samples;
+    }
+
+    /**
+     * Reads one sample, scaled to the 16 bit range.
+     *
+     * @param bytes
+     *            Sample data.
+     * @param offset
+     *            Offset of the sample.
+     * @param size
+     *            Sample size in bytes, 1 or 2.
+     * @param bigEndian
+     *            True if the high byte comes first.
+     * @param unsigned
+     *            True if samples are unsigned.
+     * @return Sample value.
+     */
+    private static float readSample(final byte[] bytes, final int offset, final int size,
+                                    final boolean bigEndian, final boolean unsigned) {
+        if (size == 1)
+            return ((unsigned ? (bytes[offset] & 0xFF) - 128 : bytes[offset])) << 8;
+        int high = bigEndian ? bytes[offset] : bytes[offset + 1];
+        int low = bigEndian ? bytes[offset + 1] : bytes[offset];
+        int sample = ((high & 0xFF) << 8) | (low & 0xFF);
+        return unsigned ? sample - 32768 : (short) sample;
+    }
+}
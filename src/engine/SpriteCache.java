@@ -0,0 +1,133 @@
+package engine;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.GraphicsEnvironment;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import engine.DrawManager.SpriteType;
+
+/**
+ * Keeps sprites already rasterized for a given color and size, so drawing
+ * an entity is a single image blit. Least recently used images are evicted
+ * once the cache is full.
+ */
+final class SpriteCache {
+
+    /** Maximum number of rasterized sprites kept. */
+    private static final int CAPACITY = 256;
+
+    /** Sprite types mapped to their images. */
+    private final Map<SpriteType, boolean[][]> spriteMap;
+    /** Rasterized sprites, by packed type, color and size, in access order. */
+    private final Map<Long, BufferedImage> images;
+
+    /**
+     * Constructor, sets the sprites to rasterize.
+     *
+     * @param spriteMap
+     *            Sprite types mapped to their images.
+     */
+    SpriteCache(final Map<SpriteType, boolean[][]> spriteMap) {
+        this.spriteMap = spriteMap;
+        this.images = new LinkedHashMap<Long, BufferedImage>(CAPACITY, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Long, BufferedImage> eldest) {
+                return size() > CAPACITY;
+            }
+        };
+    }
+
+    /**
+     * Gets a sprite rasterized with the given color and size, creating it if
+     * needed.
+     *
+     * @param spriteType
+     *            Sprite to rasterize.
+     * @param argb
+     *            Color of the lit pixels, as packed ARGB.
+     * @param width
+     *            Width the sprite is scaled to.
+     * @param height
+     *            Height the sprite is scaled to.
+     * @return Rasterized sprite, to be drawn at the entity position.
+     */
+    BufferedImage get(final SpriteType spriteType, final int argb,
+                      final int width, final int height) {
+        long key = (long) spriteType.ordinal() << 56
+                | (argb & 0xFFFFFFFFL) << 24
+                | (width & 0xFFFL) << 12
+                | (height & 0xFFFL);
+        BufferedImage image = this.images.get(key);
+        if (image == null) {
+            image = rasterize(this.spriteMap.get(spriteType), argb, width, height);
+            this.images.put(key, image);
+        }
+        return image;
+    }
+
+    /**
+     * Draws a sprite into a new translucent image, one rectangle per lit
+     * pixel, scaled to the given size.
+     *
+     * @param sprite
+     *            Pixels of the sprite.
+     * @param argb
+     *            Color of the lit pixels, as packed ARGB.
+     * @param width
+     *            Width the sprite is scaled to.
+     * @param height
+     *            Height the sprite is scaled to.
+     * @return Rasterized sprite.
+     */
+    private static BufferedImage rasterize(final boolean[][] sprite,
+                                           final int argb, final int width, final int height) {
+        int spriteWidth = sprite.length;
+        int spriteHeight = sprite[0].length;
+
+        // Calculate scaling ratios compared to original sprite
+        float widthRatio = (float) width / (spriteWidth * 2);
+        float heightRatio = (float) height / (spriteHeight * 2);
+        int pixelWidth = (int) Math.ceil(widthRatio * 2);
+        int pixelHeight = (int) Math.ceil(heightRatio * 2);
+
+        // Rounded up pixels may spill past the entity size.
+        int imageWidth = Math.max(1, Math.max(width,
+                (int) ((spriteWidth - 1) * 2 * widthRatio) + pixelWidth));
+        int imageHeight = Math.max(1, Math.max(height,
+                (int) ((spriteHeight - 1) * 2 * heightRatio) + pixelHeight));
+
+        BufferedImage image = createImage(imageWidth, imageHeight);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(new Color(argb, true));
+        for (int i = 0; i < spriteWidth; i++)
+            for (int j = 0; j < spriteHeight; j++)
+                if (sprite[i][j])
+                    graphics.fillRect((int) (i * 2 * widthRatio),
+                            (int) (j * 2 * heightRatio), pixelWidth, pixelHeight);
+        graphics.dispose();
+        return image;
+    }
+
+    /**
+     * Creates a translucent image, in the screen format when there is one.
+     *
+     * @param width
+     *            Image width.
+     * @param height
+     *            Image height.
+     * @return New transparent image.
+     */
+    static BufferedImage createImage(final int width, final int height) {
+        if (GraphicsEnvironment.isHeadless())
+            return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        return GraphicsEnvironment.getLocalGraphicsEnvironment()
+                .getDefaultScreenDevice().getDefaultConfiguration()
+                .createCompatibleImage(width, height, Transparency.TRANSLUCENT);
+    }
+}
@@ -0,0 +1,55 @@
+package engine;
+
+/**
+ * Clock advanced by hand, a fixed step per update, for simulated time.
+ * Updates then see the same times however fast they actually run.
+ */
+public final class TickClock implements GameClock {
+
+	/** Time added by each tick, in nanoseconds. */
+	private final long tickNanos;
+	/** Time the clock restarts at, in nanoseconds. */
+	private final long startNanos;
+	/** Current time, in nanoseconds. */
+	private long nanos;
+
+	/**
+	 * Constructor, establishes the step and start of the clock.
+	 *
+	 * @param tickNanos
+	 *            Time added by each tick, in nanoseconds.
+	 * @param startNanos
+	 *            Time the clock starts at, in nanoseconds, at least a
+	 *            millisecond.
+	 */
+	public TickClock(final long tickNanos, final long startNanos) {
+		this.tickNanos = tickNanos;
+		this.startNanos = startNanos;
+		this.nanos = startNanos;
+	}
+
+	/**
+	 * Advances the clock by one tick.
+	 */
+	public void tick() {
+		this.nanos += this.tickNanos;
+	}
+
+	/**
+	 * Sets the clock back to its start, so two runs from there round their
+	 * times the same way.
+	 */
+	public void restart() {
+		this.nanos = this.startNanos;
+	}
+
+	/**
+	 * Gets the time the clock was advanced to.
+	 *
+	 * @return Current time, in milliseconds.
+	 */
+	@Override
+	public long millis() {
+		return this.nanos / 1000000L;
+	}
+}
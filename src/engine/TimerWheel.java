@@ -0,0 +1,276 @@
+package engine;
+
+import java.util.SplittableRandom;
+
+/**
+ * Schedules timers on a game clock in a hierarchical timing wheel, so
+ * nothing has to poll them every update. Level 0 has a slot per
+ * millisecond of the next 64; each further level covers 64 slots of the
+ * whole level below it. Advancing the wheel only visits the slots of the
+ * time passed, cascading a slot of the next level down once per turn of a
+ * level, so an update costs in proportion to the timers expiring rather
+ * than to the timers pending. Scheduling and cancelling are O(1).
+ *
+ * Not thread safe: timers are scheduled and the wheel advanced on the
+ * game loop.
+ */
+public final class TimerWheel {
+
+	/** Bits of the slot index in a level. */
+	private static final int SLOT_BITS = 6;
+	/** Slots per level. */
+	private static final int SLOTS = 1 << SLOT_BITS;
+	/** Mask of the slot index in a level. */
+	private static final int SLOT_MASK = SLOTS - 1;
+	/** Number of levels. */
+	private static final int LEVELS = 4;
+	/** Longest delay the wheel holds, about four and a half hours. */
+	private static final long MAX_DELAY = (1L << (SLOT_BITS * LEVELS)) - 1;
+
+	/** Clock the wheel follows. */
+	private final GameClock clock;
+	/** First timer of each slot of each level. */
+	private final Timer[][] slots = new Timer[LEVELS][SLOTS];
+	/** Time the wheel was advanced to; every timer due by then has fired. */
+	private long now;
+	/** Number of scheduled timers. */
+	private int pending;
+
+	/**
+	 * Constructor, starts the wheel at the current time of its clock.
+	 *
+	 * @param clock
+	 *            Clock the wheel follows.
+	 */
+	public TimerWheel(final GameClock clock) {
+		this.clock = clock;
+		this.now = clock.millis();
+	}
+
+	/**
+	 * Fires every timer due by the current time of the clock, in the order
+	 * they are due. Call once per update, before anything reads a timer.
+	 */
+	public void advance() {
+		long target = this.clock.millis();
+		while (this.now < target) {
+			if (this.pending == 0) {
+				this.now = target;
+				return;
+			}
+			this.now++;
+			if ((this.now & SLOT_MASK) == 0)
+				cascade(1);
+			int slot = (int) (this.now & SLOT_MASK);
+			// Level 0 slots only hold timers due right now.
+			for (Timer timer = this.slots[0][slot]; timer != null; timer = this.slots[0][slot]) {
+				unlink(timer);
+				timer.fire();
+			}
+		}
+	}
+
+	/**
+	 * Moves the timers of the current slot of a level down, once the level
+	 * below completed a turn. Higher levels are cascaded first when this
+	 * level completed a turn as well.
+	 *
+	 * @param level
+	 *            Level to cascade.
+	 */
+	private void cascade(final int level) {
+		int slot = (int) ((this.now >>> (SLOT_BITS * level)) & SLOT_MASK);
+		if (slot == 0 && level + 1 < LEVELS)
+			cascade(level + 1);
+		Timer timer = this.slots[level][slot];
+		this.slots[level][slot] = null;
+		while (timer != null) {
+			Timer next = timer.next;
+			this.pending--;
+			link(timer);
+			timer = next;
+		}
+	}
+
+	/**
+	 * Puts a timer in the slot its due time falls in.
+	 *
+	 * @param timer
+	 *            Timer to schedule, not linked.
+	 */
+	private void link(final Timer timer) {
+		long delay = Math.min(timer.due - this.now, MAX_DELAY);
+		int level = 0;
+		while (level < LEVELS - 1 && delay >= 1L << (SLOT_BITS * (level + 1)))
+			level++;
+		long due = this.now + delay;
+		int slot = (int) ((due >>> (SLOT_BITS * level)) & SLOT_MASK);
+
+		Timer head = this.slots[level][slot];
+		timer.previous = null;
+		timer.next = head;
+		if (head != null)
+			head.previous = timer;
+		this.slots[level][slot] = timer;
+		timer.level = level;
+		timer.slot = slot;
+		timer.scheduled = true;
+		this.pending++;
+	}
+
+	/**
+	 * Takes a scheduled timer out of its slot.
+	 *
+	 * @param timer
+	 *            Timer to unschedule.
+	 */
+	private void unlink(final Timer timer) {
+		if (timer.previous != null)
+			timer.previous.next = timer.next;
+		else
+			this.slots[timer.level][timer.slot] = timer.next;
+		if (timer.next != null)
+			timer.next.previous = timer.previous;
+		timer.previous = null;
+		timer.next = null;
+		timer.scheduled = false;
+		this.pending--;
+	}
+
+	/**
+	 * Gets the number of scheduled timers.
+	 *
+	 * @return Scheduled timers.
+	 */
+	public int getPending() {
+		return this.pending;
+	}
+
+	/**
+	 * Timer on a wheel, with the same duration and variance rules as a
+	 * cooldown. On expiry it reads as finished and runs its callback, if
+	 * any. A timer never started reads as finished.
+	 */
+	public static final class Timer {
+
+		/** Wheel the timer is scheduled on. */
+		private final TimerWheel wheel;
+		/** Run when the timer expires, or null. */
+		private final Runnable callback;
+		/** Base duration, in milliseconds. */
+		private int milliseconds;
+		/** Maximum difference between durations. */
+		private final int variance;
+		/** Time the timer expires at, the first millisecond past its run. */
+		private long due;
+		/** True while scheduled on the wheel. */
+		private boolean scheduled;
+		/** Level of the slot the timer is in. */
+		private int level;
+		/** Slot the timer is in. */
+		private int slot;
+		/** Previous timer in the slot. */
+		private Timer previous;
+		/** Next timer in the slot. */
+		private Timer next;
+
+		/**
+		 * Constructor, establishes the duration of the timer. Not started.
+		 *
+		 * @param wheel
+		 *            Wheel the timer is scheduled on.
+		 * @param milliseconds
+		 *            Time until the timer expires.
+		 * @param variance
+		 *            Variance in the duration, 0 for none.
+		 * @param callback
+		 *            Run when the timer expires, or null.
+		 */
+		Timer(final TimerWheel wheel, final int milliseconds, final int variance,
+				final Runnable callback) {
+			this.wheel = wheel;
+			this.milliseconds = milliseconds;
+			this.variance = variance;
+			this.callback = callback;
+		}
+
+		/**
+		 * Checks if the timer has expired, or was never started. Doesn't
+		 * read the clock.
+		 *
+		 * @return True unless the timer is running.
+		 */
+		public boolean isFinished() {
+			return !this.scheduled;
+		}
+
+		/**
+		 * Restarts the timer.
+		 */
+		public void reset() {
+			int duration = this.milliseconds;
+			if (this.variance != 0) {
+				SplittableRandom random = GameRandom.get(GameRandom.Stream.COOLDOWN);
+				duration = (this.milliseconds - this.variance)
+						+ random.nextInt(this.milliseconds + this.variance);
+			}
+			schedule(this.wheel.clock.millis() + duration + 1);
+		}
+
+		/**
+		 * Extends the timer if running; otherwise restarts it with the extra
+		 * time as its duration.
+		 *
+		 * @param extraMs
+		 *            Time to add, in milliseconds.
+		 */
+		public void addTime(final int extraMs) {
+			if (this.scheduled) {
+				schedule(this.due + extraMs);
+			} else {
+				this.milliseconds = extraMs;
+				schedule(this.wheel.clock.millis() + extraMs + 1);
+			}
+		}
+
+		/**
+		 * Stops the timer without running its callback.
+		 */
+		public void cancel() {
+			if (this.scheduled)
+				this.wheel.unlink(this);
+		}
+
+		/**
+		 * Gets the time left until the timer expires.
+		 *
+		 * @return Remaining time in milliseconds, 0 if not running.
+		 */
+		public int getRemaining() {
+			if (!this.scheduled)
+				return 0;
+			return (int) Math.max(0, this.due - 1 - this.wheel.clock.millis());
+		}
+
+		/**
+		 * Moves the timer to a new due time.
+		 *
+		 * @param time
+		 *            Time the timer expires at.
+		 */
+		private void schedule(final long time) {
+			cancel();
+			// Due times already passed fire on the next advance.
+			this.due = Math.max(time, this.wheel.now + 1);
+			this.wheel.link(this);
+		}
+
+		/**
+		 * Runs the callback of the expired timer, if any.
+		 */
+		private void fire() {
+			if (this.callback != null)
+				this.callback.run();
+		}
+	}
+}
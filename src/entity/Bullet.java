@@ -48,6 +48,7 @@ public class Bullet extends Entity {
     public final void setSize(final int width, final int height) {
         this.width = width;
         this.height = height;
+        updateGridCells();
     }
 
     /**
@@ -66,6 +67,7 @@ public class Bullet extends Entity {
      */
     public final void update() {
         this.positionY += this.speed;
+        updateGridCells();
     }
 
     /**
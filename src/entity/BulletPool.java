@@ -1,19 +1,30 @@
 package entity;
 
-import java.util.HashSet;
-import java.util.Set;
 import entity.Entity.Team;
 
 /**
- * Implements a pool of recyclable bullets.
+ * Implements a pool of recyclable bullets, kept in a bounded array used as a
+ * free list and filled in advance.
  *
  * @author <a href="mailto:RobertoIA1987@gmail.com">Roberto Izquierdo Amo</a>
  *
  */
 public final class BulletPool {
 
-    /** Set of already created bullets. */
-    private static Set<Bullet> pool = new HashSet<Bullet>();
+    /** Maximum number of bullets kept for reuse. */
+    private static final int CAPACITY = 128;
+    /** Number of bullets created in advance. */
+    private static final int PREWARM = 64;
+
+    /** Bullets available for reuse, in indices 0 to free - 1. */
+    private static final Bullet[] pool = new Bullet[CAPACITY];
+    /** Number of available bullets. */
+    private static int free;
+
+    static {
+        while (free < PREWARM)
+            pool[free++] = new Bullet(0, 0, 0, 0, 0);
+    }
 
     /**
      * Constructor, not called.
@@ -44,31 +55,42 @@ public final class BulletPool {
     public static Bullet getBullet(final int positionX,
                                    final int positionY, final int speed, final int width, final int height, final Team team) {
         Bullet bullet;
-        if (!pool.isEmpty()) {
-            bullet = pool.iterator().next();
-            pool.remove(bullet);
-            bullet.setPositionX(positionX - width / 2);
-            bullet.setPositionY(positionY);
-            bullet.setSpeed(speed);
-            bullet.setSize(width, height);  // bullet size
-            bullet.setTeam(team);	// team setting
+        if (free > 0) {
+            bullet = pool[--free];
+            pool[free] = null;
         } else {
             bullet = new Bullet(positionX, positionY, width, height, speed);
-            bullet.setPositionX(positionX - width / 2);
-            bullet.setSize(width, height); // bullet size
-            bullet.setTeam(team); // team setting
         }
+        bullet.setPositionX(positionX - width / 2);
+        bullet.setPositionY(positionY);
+        bullet.setSpeed(speed);
+        bullet.setSize(width, height);  // bullet size
+        bullet.setTeam(team);	// team setting
         bullet.setSprite();
         return bullet;
     }
 
     /**
-     * Adds one or more bullets to the list of available ones.
+     * Adds a bullet to the available ones. Bullets beyond the pool capacity
+     * are left to the garbage collector.
      *
      * @param bullet
+     *            Bullet to recycle, no longer in use.
+     */
+    public static void recycle(final Bullet bullet) {
+        if (free < CAPACITY)
+            pool[free++] = bullet;
+    }
+
+    /**
+     * Recycles every bullet of a list and empties it.
+     *
+     * @param bullets
      *            Bullets to recycle.
      */
-    public static void recycle(final Set<Bullet> bullet) {
-        pool.addAll(bullet);
+    public static void recycle(final EntityList<Bullet> bullets) {
+        for (int i = 0; i < bullets.size(); i++)
+            recycle(bullets.get(i));
+        bullets.clear();
     }
-}
\ No newline at end of file
+}
@@ -2,10 +2,10 @@ package entity;
 
 import java.awt.Color;
 
-import engine.Cooldown;
 import engine.Core;
 import engine.DrawManager.SpriteType;
 import engine.GameSettings;
+import engine.TimerWheel;
 
 
 /**
@@ -30,8 +30,8 @@ public class EnemyShip extends Entity {
     private static final int C_TYPE_COINS = 5;
     private static final int BONUS_TYPE_COINS = 10;
 
-    /** Cooldown between sprite changes. */
-    private Cooldown animationCooldown;
+    /** Time between sprite changes. */
+    private TimerWheel.Timer animationTimer;
     /** Checks if the ship has been hit by a bullet. */
     private boolean isDestroyed;
     /** Values of the ship, in points, when destroyed. */
@@ -39,6 +39,9 @@ public class EnemyShip extends Entity {
 
     private int coinValue;
 
+    /** Slot of the ship in its formation, or -1 if it is not in one. */
+    int formationSlot = -1;
+
     /** Current health of the enemy ship */
     private int health;
     private int initialHealth;
@@ -58,7 +61,7 @@ public class EnemyShip extends Entity {
         super(positionX, positionY, 12 * 2, 8 * 2, Color.WHITE);
 
         this.spriteType = spriteType;
-        this.animationCooldown = Core.getCooldown(500);
+        this.animationTimer = Core.getTimer(500);
         this.isDestroyed = false;
 
         switch (this.spriteType) {
@@ -134,14 +137,15 @@ public class EnemyShip extends Entity {
     public final void move(final int distanceX, final int distanceY) {
         this.positionX += distanceX;
         this.positionY += distanceY;
+        updateGridCells();
     }
 
     /**
      * Updates attributes, mainly used for animation purposes.
      */
     public final void update() {
-        if (this.animationCooldown.checkFinished()) {
-            this.animationCooldown.reset();
+        if (this.animationTimer.isFinished()) {
+            this.animationTimer.reset();
 
             switch (this.spriteType) {
                 case EnemyShipA1:
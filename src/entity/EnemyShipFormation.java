@@ -1,10 +1,9 @@
 package entity;
 
-import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.Iterator;
-import java.util.List;
-import java.util.Set;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import engine.*;
@@ -52,9 +51,18 @@ public class EnemyShipFormation implements Iterable<EnemyShip> {
     private Logger logger;
     /** Screen to draw ships on. */
     private Screen screen;
+    /** Spatial grid the ships are tracked in, if any. */
+    private SpatialGrid grid;
 
-    /** List of enemy ships forming the formation. */
-    private List<List<EnemyShip>> enemyShips;
+    /**
+     * Enemy ships forming the formation, column by column, top to bottom.
+     * The ship in column c and row r is at slot c * nShipsHigh + r.
+     */
+    private EnemyShip[] slots;
+    /** Per column, bit r is set while the ship in row r is shown. */
+    private long[] presentMasks;
+    /** Per column, bit r is set while the ship in row r is not destroyed. */
+    private long[] aliveMasks;
     /** Minimum time between shots. */
     private Cooldown shootingCooldown;
     /** Number of ships in the formation - horizontally. */
@@ -87,8 +95,6 @@ public class EnemyShipFormation implements Iterable<EnemyShip> {
     private int shipWidth;
     /** Height of one ship. */
     private int shipHeight;
-    /** List of ships that are able to shoot. */
-    private List<EnemyShip> shooters;
     /** Number of not destroyed ships. */
     private int shipCount;
 
@@ -111,11 +117,13 @@ public class EnemyShipFormation implements Iterable<EnemyShip> {
     public EnemyShipFormation(final GameSettings gameSettings) {
         this.drawManager = Core.getDrawManager();
         this.logger = Core.getLogger();
-        this.enemyShips = new ArrayList<List<EnemyShip>>();
         this.currentDirection = Direction.RIGHT;
         this.movementInterval = 0;
         this.nShipsWide = gameSettings.getFormationWidth();
         this.nShipsHigh = gameSettings.getFormationHeight();
+        if (this.nShipsHigh > Long.SIZE)
+            throw new IllegalArgumentException("Formation height "
+                    + this.nShipsHigh + " exceeds " + Long.SIZE + " rows.");
         this.shootingInterval = gameSettings.getShootingFrecuency();
         this.shootingVariance = (int) (gameSettings.getShootingFrecuency()
                 * SHOOTING_VARIANCE);
@@ -123,47 +131,45 @@ public class EnemyShipFormation implements Iterable<EnemyShip> {
         this.movementSpeed = this.baseSpeed;
         this.positionX = INIT_POS_X;
         this.positionY = INIT_POS_Y;
-        this.shooters = new ArrayList<EnemyShip>();
+        this.slots = new EnemyShip[this.nShipsWide * this.nShipsHigh];
+        this.presentMasks = new long[this.nShipsWide];
+        this.aliveMasks = new long[this.nShipsWide];
         SpriteType spriteType;
 
         this.logger.info("Initializing " + nShipsWide + "x" + nShipsHigh
                 + " ship formation in (" + positionX + "," + positionY + ")");
 
-        // Each sub-list is a column on the formation.
-        for (int i = 0; i < this.nShipsWide; i++)
-            this.enemyShips.add(new ArrayList<EnemyShip>());
-
-        for (List<EnemyShip> column : this.enemyShips) {
-            for (int i = 0; i < this.nShipsHigh; i++) {
-                if (i / (float) this.nShipsHigh < PROPORTION_C)
+        for (int column = 0; column < this.nShipsWide; column++) {
+            for (int row = 0; row < this.nShipsHigh; row++) {
+                if (row / (float) this.nShipsHigh < PROPORTION_C)
                     spriteType = SpriteType.EnemyShipC1;
-                else if (i / (float) this.nShipsHigh < PROPORTION_B
+                else if (row / (float) this.nShipsHigh < PROPORTION_B
                         + PROPORTION_C)
                     spriteType = SpriteType.EnemyShipB1;
                 else
                     spriteType = SpriteType.EnemyShipA1;
 
-                column.add(new EnemyShip((SEPARATION_DISTANCE
-                        * this.enemyShips.indexOf(column))
-                        + positionX, (SEPARATION_DISTANCE * i)
-                        + positionY, spriteType));
+                EnemyShip ship = new EnemyShip((SEPARATION_DISTANCE * column)
+                        + positionX, (SEPARATION_DISTANCE * row)
+                        + positionY, spriteType);
+                ship.formationSlot = column * this.nShipsHigh + row;
+                this.slots[ship.formationSlot] = ship;
                 this.shipCount++;
             }
+            this.presentMasks[column] = rowMask(this.nShipsHigh);
+            this.aliveMasks[column] = rowMask(this.nShipsHigh);
         }
 
-        this.shipWidth = this.enemyShips.get(0).get(0).getWidth();
-        this.shipHeight = this.enemyShips.get(0).get(0).getHeight();
+        this.shipWidth = this.slots[0].getWidth();
+        this.shipHeight = this.slots[0].getHeight();
 
         this.width = (this.nShipsWide - 1) * SEPARATION_DISTANCE
                 + this.shipWidth;
         this.height = (this.nShipsHigh - 1) * SEPARATION_DISTANCE
                 + this.shipHeight;
 
-        for (List<EnemyShip> column : this.enemyShips)
-            this.shooters.add(column.get(column.size() - 1));
-
         for (GameSettings.ChangeData changeData : gameSettings.getChangeDataList()){
-            EnemyShip ship = this.enemyShips.get(changeData.x).get(changeData.y);
+            EnemyShip ship = this.slots[changeData.x * this.nShipsHigh + changeData.y];
 
             if(changeData.hp == 0){
                 destroy(ship);
@@ -173,19 +179,7 @@ public class EnemyShipFormation implements Iterable<EnemyShip> {
             }
         }
 
-        List<EnemyShip> destroyed;
-        for (List<EnemyShip> column : this.enemyShips) {
-            destroyed = new ArrayList<EnemyShip>();
-            for (EnemyShip ship : column) {
-                if (ship != null && ship.isDestroyed()) {
-                    destroyed.add(ship);
-                    this.logger.info("Removed enemy "
-                            + column.indexOf(ship) + " from column "
-                            + this.enemyShips.indexOf(column));
-                }
-            }
-            column.removeAll(destroyed);
-        }
+        removeDestroyed();
     }
 
     /**
@@ -198,14 +192,32 @@ public class EnemyShipFormation implements Iterable<EnemyShip> {
         screen = newScreen;
     }
 
+    /**
+     * Tracks every ship of the formation in a spatial grid. Ships leave the
+     * grid when removed from the formation.
+     *
+     * @param spatialGrid
+     *            Grid to track the ships in.
+     */
+    public final void track(final SpatialGrid spatialGrid) {
+        this.grid = spatialGrid;
+        for (int column = 0; column < this.nShipsWide; column++)
+            for (long rows = this.presentMasks[column]; rows != 0; rows &= rows - 1)
+                this.grid.add(this.slots[column * this.nShipsHigh
+                        + Long.numberOfTrailingZeros(rows)]);
+    }
+
     /**
      * Draws every individual component of the formation.
      */
     public final void draw() {
-        for (List<EnemyShip> column : this.enemyShips)
-            for (EnemyShip enemyShip : column)
+        for (int column = 0; column < this.nShipsWide; column++)
+            for (long rows = this.presentMasks[column]; rows != 0; rows &= rows - 1) {
+                EnemyShip enemyShip = this.slots[column * this.nShipsHigh
+                        + Long.numberOfTrailingZeros(rows)];
                 drawManager.drawEntity(enemyShip, enemyShip.getPositionX(),
                         enemyShip.getPositionY());
+            }
     }
 
     /**
@@ -243,30 +255,30 @@ public class EnemyShipFormation implements Iterable<EnemyShip> {
                 if (isAtHorizontalAltitude)
                     if (previousDirection == Direction.RIGHT) {
                         currentDirection = Direction.LEFT;
-                        this.logger.info("Formation now moving left 1");
+                        this.logger.fine("Formation now moving left 1");
                     } else {
                         currentDirection = Direction.RIGHT;
-                        this.logger.info("Formation now moving right 2");
+                        this.logger.fine("Formation now moving right 2");
                     }
             } else if (currentDirection == Direction.LEFT) {
                 if (isAtLeftSide)
                     if (!isAtBottom) {
                         previousDirection = currentDirection;
                         currentDirection = Direction.DOWN;
-                        this.logger.info("Formation now moving down 3");
+                        this.logger.fine("Formation now moving down 3");
                     } else {
                         currentDirection = Direction.RIGHT;
-                        this.logger.info("Formation now moving right 4");
+                        this.logger.fine("Formation now moving right 4");
                     }
             } else {
                 if (isAtRightSide)
                     if (!isAtBottom) {
                         previousDirection = currentDirection;
                         currentDirection = Direction.DOWN;
-                        this.logger.info("Formation now moving down 5");
+                        this.logger.fine("Formation now moving down 5");
                     } else {
                         currentDirection = Direction.LEFT;
-                        this.logger.info("Formation now moving left 6");
+                        this.logger.fine("Formation now moving left 6");
                     }
             }
 
@@ -281,22 +293,12 @@ public class EnemyShipFormation implements Iterable<EnemyShip> {
             positionY += movementY;
 
             // Cleans explosions.
-            List<EnemyShip> destroyed;
-            for (List<EnemyShip> column : this.enemyShips) {
-                destroyed = new ArrayList<EnemyShip>();
-                for (EnemyShip ship : column) {
-                    if (ship != null && ship.isDestroyed()) {
-                        destroyed.add(ship);
-                        this.logger.info("Removed enemy "
-                                + column.indexOf(ship) + " from column "
-                                + this.enemyShips.indexOf(column));
-                    }
-                }
-                column.removeAll(destroyed);
-            }
+            removeDestroyed();
 
-            for (List<EnemyShip> column : this.enemyShips)
-                for (EnemyShip enemyShip : column) {
+            for (int column = 0; column < this.nShipsWide; column++)
+                for (long rows = this.presentMasks[column]; rows != 0; rows &= rows - 1) {
+                    EnemyShip enemyShip = this.slots[column * this.nShipsHigh
+                            + Long.numberOfTrailingZeros(rows)];
                     enemyShip.move(movementX, movementY);
                     enemyShip.update();
                 }
@@ -304,39 +306,50 @@ public class EnemyShipFormation implements Iterable<EnemyShip> {
     }
 
     /**
-     * Cleans empty columns, adjusts the width and height of the formation.
+     * Stops showing the ships destroyed since the last call.
      */
-    private void cleanUp() {
-        Set<Integer> emptyColumns = new HashSet<Integer>();
-        int maxColumn = 0;
-        int minPositionY = Integer.MAX_VALUE;
-        for (List<EnemyShip> column : this.enemyShips) {
-            if (!column.isEmpty()) {
-                // Height of this column
-                int columnSize = column.get(column.size() - 1).positionY
-                        - this.positionY + this.shipHeight;
-                maxColumn = Math.max(maxColumn, columnSize);
-                minPositionY = Math.min(minPositionY, column.get(0)
-                        .getPositionY());
-            } else {
-                // Empty column, we remove it.
-                emptyColumns.add(this.enemyShips.indexOf(column));
+    private void removeDestroyed() {
+        for (int column = 0; column < this.nShipsWide; column++) {
+            long removed = this.presentMasks[column] & ~this.aliveMasks[column];
+            for (; removed != 0; removed &= removed - 1) {
+                int row = Long.numberOfTrailingZeros(removed);
+                if (this.grid != null)
+                    this.grid.remove(this.slots[column * this.nShipsHigh + row]);
+                if (this.logger.isLoggable(Level.FINE))
+                    this.logger.fine("Removed enemy " + row + " from column " + column);
             }
+            this.presentMasks[column] = this.aliveMasks[column];
         }
-        for (int index : emptyColumns) {
-            this.enemyShips.remove(index);
-            logger.info("Removed column " + index);
-        }
+    }
 
+    /**
+     * Adjusts the width, height and position of the formation to the columns
+     * that still show ships.
+     */
+    private void cleanUp() {
+        int maxColumn = 0;
+        int minPositionY = Integer.MAX_VALUE;
         int leftMostPoint = 0;
         int rightMostPoint = 0;
 
-        for (List<EnemyShip> column : this.enemyShips) {
-            if (!column.isEmpty()) {
-                if (leftMostPoint == 0)
-                    leftMostPoint = column.get(0).getPositionX();
-                rightMostPoint = column.get(0).getPositionX();
-            }
+        for (int column = 0; column < this.nShipsWide; column++) {
+            long rows = this.presentMasks[column];
+            if (rows == 0)
+                continue;
+
+            EnemyShip top = this.slots[column * this.nShipsHigh
+                    + Long.numberOfTrailingZeros(rows)];
+            EnemyShip bottom = this.slots[column * this.nShipsHigh
+                    + Long.SIZE - 1 - Long.numberOfLeadingZeros(rows)];
+
+            // Height of this column
+            int columnSize = bottom.positionY - this.positionY + this.shipHeight;
+            maxColumn = Math.max(maxColumn, columnSize);
+            minPositionY = Math.min(minPositionY, top.getPositionY());
+
+            if (leftMostPoint == 0)
+                leftMostPoint = top.getPositionX();
+            rightMostPoint = top.getPositionX();
         }
 
         this.width = rightMostPoint - leftMostPoint + this.shipWidth;
@@ -354,11 +367,20 @@ public class EnemyShipFormation implements Iterable<EnemyShip> {
      * @param bullets
      *            Bullets set to add the bullet being shot.
      */
-    public final void shoot(final Set<Bullet> bullets) {
-        if (this.shooters.isEmpty()) return;
-
-        int index = (int) (Math.random() * this.shooters.size());
-        EnemyShip shooter = this.shooters.get(index);
+    public final void shoot(final EntityList<Bullet> bullets) {
+        int shooterCount = 0;
+        for (int column = 0; column < this.nShipsWide; column++)
+            if (this.aliveMasks[column] != 0)
+                shooterCount++;
+        if (shooterCount == 0) return;
+
+        // The shooter is the lowest living ship of a random living column.
+        int index = GameRandom.get(GameRandom.Stream.FORMATION).nextInt(shooterCount);
+        int column = 0;
+        while (this.aliveMasks[column] == 0 || index-- > 0)
+            column++;
+        EnemyShip shooter = this.slots[column * this.nShipsHigh + Long.SIZE - 1
+                - Long.numberOfLeadingZeros(this.aliveMasks[column])];
 
         if (this.shootingCooldown.checkFinished()) {
             this.shootingCooldown.reset();
@@ -404,73 +426,79 @@ public class EnemyShipFormation implements Iterable<EnemyShip> {
      *            Ship to be destroyed.
      */
     public final void destroy(final EnemyShip destroyedShip) {
-        for (List<EnemyShip> column : this.enemyShips)
-            for (int i = 0; i < column.size(); i++)
-                if (column.get(i).equals(destroyedShip)) {
-                    column.get(i).destroy();
-                    this.logger.info("Destroyed ship in ("
-                            + this.enemyShips.indexOf(column) + "," + i + ")");
-                }
-
-        // Updates the list of ships that can shoot the player.
-        if (this.shooters.contains(destroyedShip)) {
-            int destroyedShipIndex = this.shooters.indexOf(destroyedShip);
-            int destroyedShipColumnIndex = -1;
-
-            for (List<EnemyShip> column : this.enemyShips)
-                if (column.contains(destroyedShip)) {
-                    destroyedShipColumnIndex = this.enemyShips.indexOf(column);
-                    break;
-                }
-
-            EnemyShip nextShooter = getNextShooter(this.enemyShips
-                    .get(destroyedShipColumnIndex));
-
-            if (nextShooter != null)
-                this.shooters.set(destroyedShipIndex, nextShooter);
-            else {
-                this.shooters.remove(destroyedShipIndex);
-                this.logger.info("Shooters list reduced to "
-                        + this.shooters.size() + " members.");
-            }
-        }
+        int slot = destroyedShip.formationSlot;
+        if (slot < 0 || slot >= this.slots.length || this.slots[slot] != destroyedShip)
+            return;
+
+        int column = slot / this.nShipsHigh;
+        int row = slot % this.nShipsHigh;
+        destroyedShip.destroy();
+        if (this.logger.isLoggable(Level.FINE))
+            this.logger.fine("Destroyed ship in (" + column + "," + row + ")");
+
+        if ((this.aliveMasks[column] & (1L << row)) == 0)
+            return;
+        this.aliveMasks[column] &= ~(1L << row);
+        if (this.aliveMasks[column] == 0 && this.logger.isLoggable(Level.FINE))
+            this.logger.fine("Column " + column + " has no shooters left.");
 
         this.shipCount--;
     }
 
     /**
-     * Gets the ship on a given column that will be in charge of shooting.
+     * Returns an iterator over the ships shown in the formation, including
+     * those destroyed since the last movement.
      *
-     * @param column
-     *            Column to search.
-     * @return New shooter ship.
+     * @return Iterator over the enemy ships.
      */
-    public final EnemyShip getNextShooter(final List<EnemyShip> column) {
-        Iterator<EnemyShip> iterator = column.iterator();
-        EnemyShip nextShooter = null;
-        while (iterator.hasNext()) {
-            EnemyShip checkShip = iterator.next();
-            if (checkShip != null && !checkShip.isDestroyed())
-                nextShooter = checkShip;
-        }
+    @Override
+    public final Iterator<EnemyShip> iterator() {
+        return new Iterator<EnemyShip>() {
+            private int column = 0;
+            private long rows = nShipsWide > 0 ? presentMasks[0] : 0;
+
+            @Override
+            public boolean hasNext() {
+                while (this.rows == 0 && this.column < nShipsWide - 1)
+                    this.rows = presentMasks[++this.column];
+                return this.rows != 0;
+            }
 
-        return nextShooter;
+            @Override
+            public EnemyShip next() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                int row = Long.numberOfTrailingZeros(this.rows);
+                this.rows &= this.rows - 1;
+                return slots[this.column * nShipsHigh + row];
+            }
+        };
     }
 
     /**
-     * Returns an iterator over the ships in the formation.
+     * Visits the ships shown in the formation without allocating, in column
+     * order.
      *
-     * @return Iterator over the enemy ships.
+     * @param action
+     *            Action to perform on each ship.
      */
     @Override
-    public final Iterator<EnemyShip> iterator() {
-        Set<EnemyShip> enemyShipsList = new HashSet<EnemyShip>();
-
-        for (List<EnemyShip> column : this.enemyShips)
-            for (EnemyShip enemyShip : column)
-                enemyShipsList.add(enemyShip);
+    public final void forEach(final Consumer<? super EnemyShip> action) {
+        for (int column = 0; column < this.nShipsWide; column++)
+            for (long rows = this.presentMasks[column]; rows != 0; rows &= rows - 1)
+                action.accept(this.slots[column * this.nShipsHigh
+                        + Long.numberOfTrailingZeros(rows)]);
+    }
 
-        return enemyShipsList.iterator();
+    /**
+     * Gets a mask with the given number of lowest bits set.
+     *
+     * @param rows
+     *            Number of rows.
+     * @return Mask of every row.
+     */
+    private static long rowMask(final int rows) {
+        return rows == Long.SIZE ? -1L : (1L << rows) - 1;
     }
 
 
@@ -16,6 +16,10 @@ public class Entity {
     protected int positionX;
     /** Position in the y-axis of the upper left corner of the entity. */
     protected int positionY;
+    /** Position in the x-axis at the start of the current tick. */
+    private int previousPositionX;
+    /** Position in the y-axis at the start of the current tick. */
+    private int previousPositionY;
     /** Width of the entity. */
     protected int width;
     /** Height of the entity. */
@@ -25,6 +29,15 @@ public class Entity {
     /** Sprite type assigned to the entity. */
     protected SpriteType spriteType;
 
+    /** Spatial grid tracking the entity, if any. */
+    SpatialGrid grid;
+    /** Cell bounds the entity currently occupies in the grid. */
+    int gridMinColumn, gridMinRow, gridMaxColumn, gridMaxRow;
+    /** Last grid query that reported this entity. */
+    int gridQueryStamp;
+    /** Index of the entity in its entity list, or -1 if it is in none. */
+    int listIndex = -1;
+
     // 2P mode: adding team for multiplayer
     public enum Team {
         PLAYER1, PLAYER2, ENEMY, NEUTRAL
@@ -51,6 +64,8 @@ public class Entity {
                   final int height, final Color color) {
         this.positionX = positionX;
         this.positionY = positionY;
+        this.previousPositionX = positionX;
+        this.previousPositionY = positionY;
         this.width = width;
         this.height = height;
         this.color = color;
@@ -88,23 +103,71 @@ public class Entity {
     }
 
     /**
-     * Setter for the X axis position of the entity.
+     * Setter for the X axis position of the entity. The entity is placed
+     * there directly, without interpolating from its old position.
      *
      * @param positionX
      *                  New position of the entity in the X axis.
      */
     public final void setPositionX(final int positionX) {
         this.positionX = positionX;
+        this.previousPositionX = positionX;
+        updateGridCells();
     }
 
     /**
-     * Setter for the Y axis position of the entity.
+     * Setter for the Y axis position of the entity. The entity is placed
+     * there directly, without interpolating from its old position.
      *
      * @param positionY
      *                  New position of the entity in the Y axis.
      */
     public final void setPositionY(final int positionY) {
         this.positionY = positionY;
+        this.previousPositionY = positionY;
+        updateGridCells();
+    }
+
+    /**
+     * Refreshes the cells the entity occupies in its spatial grid. Must be
+     * called after every change of position.
+     */
+    final void updateGridCells() {
+        if (this.grid != null)
+            this.grid.update(this);
+    }
+
+    /**
+     * Remembers the current position as the start of a new tick, to
+     * interpolate from when drawing.
+     */
+    public final void savePreviousPosition() {
+        this.previousPositionX = this.positionX;
+        this.previousPositionY = this.positionY;
+    }
+
+    /**
+     * Getter for the X axis position between the last two ticks.
+     *
+     * @param interpolation
+     *                      Fraction of the tick elapsed, in [0, 1).
+     * @return Interpolated position of the entity in the X axis.
+     */
+    public final int getInterpolatedX(final double interpolation) {
+        return (int) Math.round(this.previousPositionX
+                + (this.positionX - this.previousPositionX) * interpolation);
+    }
+
+    /**
+     * Getter for the Y axis position between the last two ticks.
+     *
+     * @param interpolation
+     *                      Fraction of the tick elapsed, in [0, 1).
+     * @return Interpolated position of the entity in the Y axis.
+     */
+    public final int getInterpolatedY(final double interpolation) {
+        return (int) Math.round(this.previousPositionY
+                + (this.positionY - this.previousPositionY) * interpolation);
     }
 
     /**
@@ -0,0 +1,137 @@
+package entity;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Array backed list of the active entities of one kind, such as the bullets
+ * or items on screen. Each entity remembers its index, so removing it swaps
+ * the last entity into its place in constant time. An entity can be in at
+ * most one list at a time.
+ *
+ * @param <T>
+ *            Type of the entities.
+ */
+public class EntityList<T extends Entity> implements Iterable<T> {
+
+    /** Initial capacity of a list. */
+    private static final int INITIAL_CAPACITY = 64;
+
+    /** Entities, in indices 0 to size - 1. */
+    private Entity[] elements = new Entity[INITIAL_CAPACITY];
+    /** Number of entities in the list. */
+    private int size;
+
+    /**
+     * Adds an entity at the end of the list.
+     *
+     * @param entity
+     *            Entity to add, not in any list.
+     */
+    public final void add(final T entity) {
+        if (this.size == this.elements.length)
+            this.elements = Arrays.copyOf(this.elements, this.size * 2);
+        entity.listIndex = this.size;
+        this.elements[this.size++] = entity;
+    }
+
+    /**
+     * Removes an entity, moving the last one into its index. When iterating
+     * by index, go from the end so the moved entity was already visited.
+     *
+     * @param entity
+     *            Entity to remove.
+     * @return True if the entity was in the list.
+     */
+    public final boolean remove(final T entity) {
+        if (!contains(entity))
+            return false;
+
+        int index = entity.listIndex;
+        Entity last = this.elements[--this.size];
+        this.elements[index] = last;
+        last.listIndex = index;
+        this.elements[this.size] = null;
+        entity.listIndex = -1;
+        return true;
+    }
+
+    /**
+     * Checks if an entity is in the list.
+     *
+     * @param entity
+     *            Entity to look for.
+     * @return True if the entity is in the list.
+     */
+    public final boolean contains(final T entity) {
+        return entity.listIndex >= 0 && entity.listIndex < this.size
+                && this.elements[entity.listIndex] == entity;
+    }
+
+    /**
+     * Getter for the entity at an index.
+     *
+     * @param index
+     *            Index, from 0 to size - 1.
+     * @return Entity at the index.
+     */
+    @SuppressWarnings("unchecked")
+    public final T get(final int index) {
+        return (T) this.elements[index];
+    }
+
+    /**
+     * Getter for the number of entities.
+     *
+     * @return Size of the list.
+     */
+    public final int size() {
+        return this.size;
+    }
+
+    /**
+     * Checks if the list is empty.
+     *
+     * @return True if there are no entities.
+     */
+    public final boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * Removes every entity.
+     */
+    public final void clear() {
+        for (int i = 0; i < this.size; i++) {
+            this.elements[i].listIndex = -1;
+            this.elements[i] = null;
+        }
+        this.size = 0;
+    }
+
+    /**
+     * Returns an iterator over the entities. Index loops avoid allocating it
+     * on hot paths.
+     *
+     * @return Iterator over the entities.
+     */
+    @Override
+    public final Iterator<T> iterator() {
+        return new Iterator<T>() {
+            private int index = 0;
+
+            @Override
+            public boolean hasNext() {
+                return this.index < size;
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                return get(this.index++);
+            }
+        };
+    }
+}
@@ -7,9 +7,9 @@ import engine.Core;
 import engine.DrawManager.SpriteType;
 
 import engine.GameState;
-import engine.ItemDB;
 import engine.ItemData;
 import engine.ItemEffect;
+import engine.ItemManager;
 
 /**
  * Implements Item that moves vertically down.
@@ -56,8 +56,7 @@ public class Item extends Entity {
      * Setter for the sprite of the Item using data from ItemDB.
      */
     public final void setSprite() {
-        ItemDB itemDB = new ItemDB();
-        ItemData data = itemDB.getItemData(this.type);
+        ItemData data = ItemManager.getInstance().getItemData(this.type);
 
         if (data != null) {
             try {
@@ -76,6 +75,7 @@ public class Item extends Entity {
      */
     public final void update() {
         this.positionY += this.itemSpeed;
+        updateGridCells();
     }
 
     /**
@@ -87,8 +87,7 @@ public class Item extends Entity {
      *            ID of the player to apply the effect to.
      */
     public boolean applyEffect(final GameState gameState, final int playerId) {
-        ItemDB itemDB = new ItemDB();
-        ItemData data = itemDB.getItemData(this.type);
+        ItemData data = ItemManager.getInstance().getItemData(this.type);
 
         if (data == null) return false;
 
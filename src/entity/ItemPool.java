@@ -1,16 +1,20 @@
 package entity;
 
 import engine.ItemData;
-import java.util.HashSet;
-import java.util.Set;
 
 /**
- * Implements a pool of recyclable items.
+ * Implements a pool of recyclable items, kept in a bounded array used as a
+ * free list.
  */
 public final class ItemPool {
 
-    /** Set of items. */
-    private static Set<Item> pool = new HashSet<Item>();
+    /** Maximum number of items kept for reuse. */
+    private static final int CAPACITY = 32;
+
+    /** Items available for reuse, in indices 0 to free - 1. */
+    private static final Item[] pool = new Item[CAPACITY];
+    /** Number of available items. */
+    private static int free;
 
     /**
      * Constructor, not called.
@@ -39,9 +43,9 @@ public final class ItemPool {
         String type = data.getType();
         // create new item
         Item item;
-        if (!pool.isEmpty()) {
-            item = pool.iterator().next();
-            pool.remove(item);
+        if (free > 0) {
+            item = pool[--free];
+            pool[free] = null;
 
             item.reset(type);
             item.setPositionX(positionX - item.getWidth() / 2);
@@ -55,13 +59,27 @@ public final class ItemPool {
     }
 
     /**
-     * Adds one or more items to the list of available ones.
+     * Adds an item to the available ones. Items beyond the pool capacity are
+     * left to the garbage collector.
+     *
+     * @param item
+     *            Item to recycle, no longer in use.
+     */
+    public static void recycle(final Item item) {
+        if (item != null && free < CAPACITY)
+            pool[free++] = item;
+    }
+
+    /**
+     * Recycles every item of a list and empties it.
      *
      * @param items
      *            Items to recycle.
      */
-    public static void recycle(final Set<Item> items) {
+    public static void recycle(final EntityList<Item> items) {
         if (items == null) return;
-        pool.addAll(items);
+        for (int i = 0; i < items.size(); i++)
+            recycle(items.get(i));
+        items.clear();
     }
-}
\ No newline at end of file
+}
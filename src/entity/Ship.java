@@ -1,9 +1,10 @@
 package entity;
 
 import java.awt.Color;
-import java.util.Set;
+import java.util.logging.Level;
 
 import engine.Cooldown;
+import engine.TimerWheel;
 import engine.Core;
 import engine.GameState;
 import engine.DrawManager.SpriteType;
@@ -54,7 +55,7 @@ public class Ship extends Entity {
 
     /** Cooldowns */
     private Cooldown shootingCooldown;
-    private Cooldown destructionCooldown;
+    private TimerWheel.Timer destructionTimer;
 
     // Identify player in index: 0 = P1, 1 = P2
     private int playerIndex = 0;
@@ -87,7 +88,7 @@ public class Ship extends Entity {
         initializeShipProperties(this.type);
 
         this.shootingCooldown = Core.getCooldown(this.shootingInterval);
-        this.destructionCooldown = Core.getCooldown(DESTRUCTION_COOLDOWN);
+        this.destructionTimer = Core.getTimer(DESTRUCTION_COOLDOWN);
 
         // apply entity
         Team playerID = (team != null) ? team : Team.PLAYER1;
@@ -131,13 +132,17 @@ public class Ship extends Entity {
     /**
      * Moves the ship speed uni ts right, or until the right screen border is reached.
      */
-    public final void moveRight() { this.positionX += this.moveSpeed; }
+    public final void moveRight() {
+        this.positionX += this.moveSpeed;
+        updateGridCells();
+    }
 
     /**
      * Moves the ship speed units left, or until the left screen border is reached.
      */
     public final void moveLeft() {
         this.positionX -= this.moveSpeed;
+        updateGridCells();
     }
 
     /**
@@ -148,12 +153,13 @@ public class Ship extends Entity {
      * @return
      *                True if shooting was successful, false if on cooldown
      */
-    public final boolean shoot(final Set<Bullet> bullets) {
+    public final boolean shoot(final EntityList<Bullet> bullets) {
 
         if (!this.shootingCooldown.checkFinished()) { return false; }
 
         this.shootingCooldown.reset();
-        Core.getLogger().info("[Ship] Shooting :" + this.type);
+        if (Core.getLogger().isLoggable(Level.FINE))
+            Core.getLogger().fine("[Ship] Shooting :" + this.type);
 
         int bulletX = positionX + this.width / 2;
         int bulletY = this.positionY - this.bulletHeight;
@@ -172,7 +178,7 @@ public class Ship extends Entity {
      * Updates status of the ship.
      */
     public final void update() {
-        if (!this.destructionCooldown.checkFinished())
+        if (!this.destructionTimer.isFinished())
             switch (this.spriteType) {
                 case Ship1 -> this.spriteType = SpriteType.ShipDestroyed1;
                 case Ship2 -> this.spriteType = SpriteType.ShipDestroyed2;
@@ -192,7 +198,7 @@ public class Ship extends Entity {
      * Switches the ship to its destroyed state.
      */
     public final void destroy() {
-        this.destructionCooldown.reset();
+        this.destructionTimer.reset();
     }
 
     /**
@@ -201,7 +207,7 @@ public class Ship extends Entity {
      * @return True if the ship is currently destroyed.
      */
     public final boolean isDestroyed() {
-        return !this.destructionCooldown.checkFinished();
+        return !this.destructionTimer.isFinished();
     }
 
     /**
@@ -220,7 +226,7 @@ public class Ship extends Entity {
     /**
      * Fires bullets based on ship type.
      */
-    private void shootBasedOnType(final Set<Bullet> bullets, final int centerX, final int bulletY) {
+    private void shootBasedOnType(final EntityList<Bullet> bullets, final int centerX, final int bulletY) {
         switch (this.type) {
             case DOUBLE_SHOT:
                 addBullet(bullets, centerX - DOUBLE_SHOT_OFFSET, bulletY);
@@ -238,7 +244,7 @@ public class Ship extends Entity {
     /**
      * Creates and adds a bullet to the game.
      */
-    private void addBullet(final Set<Bullet> bullets, final int x, final int y) {
+    private void addBullet(final EntityList<Bullet> bullets, final int x, final int y) {
         int speedMultiplier = getBulletSpeedMultiplier();
         int currentBulletSpeed = this.bulletSpeed * speedMultiplier;
 
@@ -265,7 +271,7 @@ public class Ship extends Entity {
 
         Integer effectValue = gameState.getEffectValue(playerIndex, BULLETSPEEDUP);
         if (effectValue != null) {
-            Core.getLogger().info("[Ship] Item effect: Faster Bullets");
+            Core.getLogger().fine("[Ship] Item effect: Faster Bullets");
             return effectValue;
         }
         return 1;
@@ -278,8 +284,8 @@ public class Ship extends Entity {
     /**
      * TRIPLESHOT effect
      */
-    private void shootTripleShot(final Set<Bullet> bullets, final int centerX, final int bulletY) {
-        Core.getLogger().info("[Ship] Item effect: TRIPLESHOT");
+    private void shootTripleShot(final EntityList<Bullet> bullets, final int centerX, final int bulletY) {
+        Core.getLogger().fine("[Ship] Item effect: TRIPLESHOT");
         Integer TRIPLE_SHOT_OFFSET = gameState.getEffectValue(playerIndex, TRIPLESHOT);
 
         addBullet(bullets, centerX, bulletY);
@@ -0,0 +1,193 @@
+package entity;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Uniform grid that buckets entities by the cells their bounds overlap, so
+ * collision checks only need to look at entities close to each other.
+ * Entities added to the grid keep their cells up to date whenever they
+ * move.
+ */
+public class SpatialGrid {
+
+    /** Side of a square cell, in pixels. */
+    private final int cellSize;
+    /** Number of cell columns. */
+    private final int columns;
+    /** Number of cell rows. */
+    private final int rows;
+    /** Entities overlapping each cell, row by row. */
+    private final List<List<Entity>> cells;
+    /** Stamp of the last query, to report each entity only once. */
+    private int queryStamp;
+
+    /**
+     * Constructor, splits the given area into cells. Entities partly or fully
+     * outside the area are kept in the border cells.
+     *
+     * @param width
+     *            Width of the area covered.
+     * @param height
+     *            Height of the area covered.
+     * @param cellSize
+     *            Side of a cell, ideally about the size of the largest entity.
+     */
+    public SpatialGrid(final int width, final int height, final int cellSize) {
+        this.cellSize = cellSize;
+        this.columns = Math.max(1, (width + cellSize - 1) / cellSize);
+        this.rows = Math.max(1, (height + cellSize - 1) / cellSize);
+        this.cells = new ArrayList<List<Entity>>(this.columns * this.rows);
+        for (int i = 0; i < this.columns * this.rows; i++)
+            this.cells.add(new ArrayList<Entity>());
+    }
+
+    /**
+     * Starts tracking an entity. Does nothing if it is already tracked.
+     *
+     * @param entity
+     *            Entity to add.
+     */
+    public final void add(final Entity entity) {
+        if (entity.grid == this)
+            return;
+        if (entity.grid != null)
+            entity.grid.remove(entity);
+
+        entity.grid = this;
+        entity.gridMinColumn = column(entity.getPositionX());
+        entity.gridMinRow = row(entity.getPositionY());
+        entity.gridMaxColumn = column(entity.getPositionX() + entity.getWidth() - 1);
+        entity.gridMaxRow = row(entity.getPositionY() + entity.getHeight() - 1);
+        insert(entity);
+    }
+
+    /**
+     * Stops tracking an entity. Does nothing if it is not tracked.
+     *
+     * @param entity
+     *            Entity to remove.
+     */
+    public final void remove(final Entity entity) {
+        if (entity.grid != this)
+            return;
+
+        erase(entity);
+        entity.grid = null;
+    }
+
+    /**
+     * Moves an entity to the cells of its current bounds. Called by the
+     * entities themselves after they move.
+     *
+     * @param entity
+     *            Entity that moved.
+     */
+    final void update(final Entity entity) {
+        int minColumn = column(entity.getPositionX());
+        int minRow = row(entity.getPositionY());
+        int maxColumn = column(entity.getPositionX() + entity.getWidth() - 1);
+        int maxRow = row(entity.getPositionY() + entity.getHeight() - 1);
+
+        if (minColumn == entity.gridMinColumn && minRow == entity.gridMinRow
+                && maxColumn == entity.gridMaxColumn && maxRow == entity.gridMaxRow)
+            return;
+
+        erase(entity);
+        entity.gridMinColumn = minColumn;
+        entity.gridMinRow = minRow;
+        entity.gridMaxColumn = maxColumn;
+        entity.gridMaxRow = maxRow;
+        insert(entity);
+    }
+
+    /**
+     * Collects the entities sharing at least one cell with the given one.
+     * Candidates still need an exact collision test.
+     *
+     * @param entity
+     *            Entity to search around. Need not be tracked.
+     * @param result
+     *            List cleared and filled with the nearby entities, not
+     *            including the entity itself.
+     */
+    public final void query(final Entity entity, final List<Entity> result) {
+        result.clear();
+        this.queryStamp++;
+        entity.gridQueryStamp = this.queryStamp;
+
+        int minColumn = column(entity.getPositionX());
+        int minRow = row(entity.getPositionY());
+        int maxColumn = column(entity.getPositionX() + entity.getWidth() - 1);
+        int maxRow = row(entity.getPositionY() + entity.getHeight() - 1);
+
+        for (int row = minRow; row <= maxRow; row++)
+            for (int column = minColumn; column <= maxColumn; column++) {
+                List<Entity> cell = this.cells.get(row * this.columns + column);
+                for (int i = 0; i < cell.size(); i++) {
+                    Entity other = cell.get(i);
+                    if (other.gridQueryStamp != this.queryStamp) {
+                        other.gridQueryStamp = this.queryStamp;
+                        result.add(other);
+                    }
+                }
+            }
+    }
+
+    /**
+     * Stops tracking every entity.
+     */
+    public final void clear() {
+        for (List<Entity> cell : this.cells) {
+            for (Entity entity : cell)
+                entity.grid = null;
+            cell.clear();
+        }
+    }
+
+    /**
+     * Adds an entity to every cell in its stored bounds.
+     *
+     * @param entity
+     *            Entity to insert.
+     */
+    private void insert(final Entity entity) {
+        for (int row = entity.gridMinRow; row <= entity.gridMaxRow; row++)
+            for (int column = entity.gridMinColumn; column <= entity.gridMaxColumn; column++)
+                this.cells.get(row * this.columns + column).add(entity);
+    }
+
+    /**
+     * Removes an entity from every cell in its stored bounds.
+     *
+     * @param entity
+     *            Entity to erase.
+     */
+    private void erase(final Entity entity) {
+        for (int row = entity.gridMinRow; row <= entity.gridMaxRow; row++)
+            for (int column = entity.gridMinColumn; column <= entity.gridMaxColumn; column++)
+                this.cells.get(row * this.columns + column).remove(entity);
+    }
+
+    /**
+     * Gets the column containing a coordinate, clamped to the grid.
+     *
+     * @param x
+     *            Coordinate in the X axis.
+     * @return Column index.
+     */
+    private int column(final int x) {
+        return Math.max(0, Math.min(this.columns - 1, Math.floorDiv(x, this.cellSize)));
+    }
+
+    /**
+     * Gets the row containing a coordinate, clamped to the grid.
+     *
+     * @param y
+     *            Coordinate in the Y axis.
+     * @return Row index.
+     */
+    private int row(final int y) {
+        return Math.max(0, Math.min(this.rows - 1, Math.floorDiv(y, this.cellSize)));
+    }
+}
@@ -1,11 +1,12 @@
 package screen;
 
 import java.awt.event.KeyEvent;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
 
-import Animations.Explosion;
 import engine.Cooldown;
+import engine.TimerWheel;
 import engine.Core;
 import engine.GameSettings;
 import engine.GameState;
@@ -16,7 +17,9 @@ import entity.BulletPool;
 import entity.EnemyShip;
 import entity.EnemyShipFormation;
 import entity.Entity;
+import entity.EntityList;
 import entity.Ship;
+import entity.SpatialGrid;
 
 // NEW Item code
 import entity.Item;
@@ -45,7 +48,21 @@ public class GameScreen extends Screen {
     private static final int SCREEN_CHANGE_INTERVAL = 1500;
     /** Height of the interface separation line. */
     private static final int SEPARATION_LINE_HEIGHT = 68;
+    /** Side of a collision grid cell, about the size of an enemy ship. */
+    private static final int COLLISION_CELL_SIZE = 32;
       private static final int HIGH_SCORE_NOTICE_DURATION = 2000;
+    /** Time of the per-player input, movement and shooting. */
+    private static final Metrics.Histogram INPUT_TIME = Metrics.histogram("update.input");
+    /** Time of the enemy and ship movement and enemy shooting. */
+    private static final Metrics.Histogram MOVEMENT_TIME = Metrics.histogram("update.movement");
+    /** Time of the collision checks. */
+    private static final Metrics.Histogram COLLISIONS_TIME = Metrics.histogram("update.collisions");
+    /** Time of the removal of bullets off screen. */
+    private static final Metrics.Histogram CLEAN_BULLETS_TIME = Metrics.histogram("update.cleanBullets");
+    /** Time of the item cleanup and pickups. */
+    private static final Metrics.Histogram ITEMS_TIME = Metrics.histogram("update.items");
+    /** Time of drawing a frame into the back buffer, before it is shown. */
+    private static final Metrics.Histogram DRAW_TIME = Metrics.histogram("render.draw");
     private static boolean sessionHighScoreNotified = false;
 
     /** For Check Achievement
@@ -61,15 +78,19 @@ public class GameScreen extends Screen {
     /** Formation of player ships. */
     private Ship[] ships = new Ship[GameState.NUM_PLAYERS];
     /** Minimum time between bonus ship appearances. */
-    private Cooldown enemyShipSpecialCooldown;
+    private TimerWheel.Timer enemyShipSpecialTimer;
     /** Time until bonus ship explosion disappears. */
-    private Cooldown enemyShipSpecialExplosionCooldown;
+    private TimerWheel.Timer enemyShipSpecialExplosionTimer;
     /** Time from finishing the level to screen change. */
-    private Cooldown screenFinishedCooldown;
-    /** Set of all bullets fired by on screen ships. */
-    private Set<Bullet> bullets;
-    /** Set of all items spawned. */
-    private Set<Item> items;
+    private TimerWheel.Timer screenFinishedTimer;
+    /** List of all bullets fired by on screen ships. */
+    private EntityList<Bullet> bullets;
+    /** List of all items spawned. */
+    private EntityList<Item> items;
+    /** Grid of ships, bullets and items, to find collision candidates. */
+    private SpatialGrid collisionGrid;
+    /** Reused result of collision grid queries. */
+    private final List<Entity> nearbyEntities = new ArrayList<Entity>();
     private long gameStartTime;
     /** Checks if the level is finished. */
     private boolean levelFinished;
@@ -82,6 +103,8 @@ public class GameScreen extends Screen {
     private boolean isPaused;
     private Cooldown pauseCooldown;
     private Cooldown returnMenuCooldown;
+    /** True while the profiling overlay key is held. */
+    private boolean profilerKeyDown;
 
     private int score;
     private int lives;
@@ -144,6 +167,9 @@ public class GameScreen extends Screen {
         this.achievementManager = achievementManager;
         this.tookDamageThisLevel = false;
 
+        // Items reloaded while playing drop from this level on.
+        ItemManager.getInstance().beginLevel();
+
 //        try {
 //            List<Score> highScores = Core.getFileManager().loadHighScores();
 //            this.topScore = highScores.isEmpty() ? 0 : highScores.get(0).getScore();
@@ -186,8 +212,11 @@ public class GameScreen extends Screen {
         // Start background music for gameplay
         SoundManager.startBackgroundMusic("sound/SpaceInvader-GameTheme.wav");
 
+        this.collisionGrid = new SpatialGrid(this.width, this.height, COLLISION_CELL_SIZE);
+
         enemyShipFormation = new EnemyShipFormation(this.gameSettings);
         enemyShipFormation.attach(this);
+        enemyShipFormation.track(this.collisionGrid);
 
         // 2P mode: create both ships, tagged to their respective teams
         this.ships[0] = new Ship(this.width / 2 - 60, this.height - 30, Entity.Team.PLAYER1, shipTypeP1, this.state); // P1
@@ -201,25 +230,29 @@ public class GameScreen extends Screen {
         } else {
             this.ships[1] = null; // ensuring there's no P2 ship in 1P mode
         }
+        for (Ship s : this.ships)
+            if (s != null)
+                this.collisionGrid.add(s);
 
-        this.enemyShipSpecialCooldown = Core.getVariableCooldown(BONUS_SHIP_INTERVAL, BONUS_SHIP_VARIANCE);
-        this.enemyShipSpecialCooldown.reset();
-        this.enemyShipSpecialExplosionCooldown = Core.getCooldown(BONUS_SHIP_EXPLOSION);
-        this.screenFinishedCooldown = Core.getCooldown(SCREEN_CHANGE_INTERVAL);
-        this.bullets = new HashSet<Bullet>();
+        this.enemyShipSpecialTimer = Core.getVariableTimer(BONUS_SHIP_INTERVAL, BONUS_SHIP_VARIANCE);
+        this.enemyShipSpecialTimer.reset();
+        this.enemyShipSpecialExplosionTimer = Core.getTimer(BONUS_SHIP_EXPLOSION);
+        this.screenFinishedTimer = Core.getTimer(SCREEN_CHANGE_INTERVAL);
+        this.bullets = new EntityList<Bullet>();
 
         // New Item Code
-        this.items = new HashSet<Item>();
+        this.items = new EntityList<Item>();
 
 		// Special input delay / countdown.
-		this.gameStartTime = System.currentTimeMillis();
+		this.gameStartTime = Core.currentTimeMillis();
 		this.inputDelay = Core.getCooldown(INPUT_DELAY);
 		this.inputDelay.reset();
         drawManager.setDeath(false);
 
         this.isPaused = false;
-        this.pauseCooldown = Core.getCooldown(300);
-        this.returnMenuCooldown = Core.getCooldown(300);
+        // Run while the game clock is paused, to work on the pause menu.
+        this.pauseCooldown = Core.getUnpausedCooldown(300);
+        this.returnMenuCooldown = Core.getUnpausedCooldown(300);
     }
 
 
@@ -231,6 +264,8 @@ public class GameScreen extends Screen {
      */
     public final int run() {
         super.run();
+        // Quitting from the pause menu leaves the clock paused.
+        Core.getGameClock().resume();
 
         // 2P mode: award bonus score for remaining TEAM lives
         state.addScore(0, LIFE_SCORE * state.getLivesRemaining());
@@ -248,9 +283,11 @@ public class GameScreen extends Screen {
     protected final void update() {
         super.update();
 
+        savePreviousPositions();
+
         // Countdown beep once during pre-start
         if (!this.inputDelay.checkFinished() && !countdownSoundPlayed) {
-            long elapsed = System.currentTimeMillis() - this.gameStartTime;
+            long elapsed = Core.currentTimeMillis() - this.gameStartTime;
             if (elapsed > 1750) {
                 SoundManager.playOnce("sound/CountDownSound.wav");
                 countdownSoundPlayed = true;
@@ -258,16 +295,24 @@ public class GameScreen extends Screen {
         }
 
         checkAchievement();
+        // Toggles the profiling overlay once per press.
+        boolean profilerKey = inputManager.isKeyDown(KeyEvent.VK_F3);
+        if (profilerKey && !this.profilerKeyDown)
+            FrameProfiler.toggle();
+        this.profilerKeyDown = profilerKey;
+
         if (this.inputDelay.checkFinished() && inputManager.isKeyDown(KeyEvent.VK_ESCAPE) && this.pauseCooldown.checkFinished()) {
             this.isPaused = !this.isPaused;
             this.pauseCooldown.reset();
 
             if (this.isPaused) {
-                // Pause game music when pausing - no sound during pause
-                SoundManager.stopBackgroundMusic();
+                // Freeze every gameplay cooldown and pause game music
+                Core.getGameClock().pause();
+                SoundManager.pauseBackgroundMusic();
             } else {
-                // Resume game music when unpausing
-                SoundManager.startBackgroundMusic("sound/SpaceInvader-GameTheme.wav");
+                // Resume the cooldowns and game music where they were
+                Core.getGameClock().resume();
+                SoundManager.resumeBackgroundMusic();
             }
         }
         if (this.isPaused && inputManager.isKeyDown(KeyEvent.VK_BACK_SPACE) && this.returnMenuCooldown.checkFinished()) {
@@ -281,6 +326,7 @@ public class GameScreen extends Screen {
             if (this.inputDelay.checkFinished() && !this.levelFinished) {
 
                 // Per-player input/move/shoot
+                long phaseStart = System.nanoTime();
                 for (int p = 0; p < GameState.NUM_PLAYERS; p++) {
                     Ship ship = this.ships[p];
 
@@ -319,17 +365,19 @@ public class GameScreen extends Screen {
 
                     }
                 }
+                INPUT_TIME.recordSince(phaseStart);
 
                 // Special ship lifecycle
+                phaseStart = System.nanoTime();
                 if (this.enemyShipSpecial != null) {
                     if (!this.enemyShipSpecial.isDestroyed())
                         this.enemyShipSpecial.move(2, 0);
-                    else if (this.enemyShipSpecialExplosionCooldown.checkFinished())
+                    else if (this.enemyShipSpecialExplosionTimer.isFinished())
                         this.enemyShipSpecial = null;
                 }
-                if (this.enemyShipSpecial == null && this.enemyShipSpecialCooldown.checkFinished()) {
+                if (this.enemyShipSpecial == null && this.enemyShipSpecialTimer.isFinished()) {
                     this.enemyShipSpecial = new EnemyShip();
-                    this.enemyShipSpecialCooldown.reset();
+                    this.enemyShipSpecialTimer.reset();
                     SoundManager.playLoop("sound/special_ship_sound.wav");
                     this.logger.info("A special ship appears");
                 }
@@ -351,37 +399,40 @@ public class GameScreen extends Screen {
                     // At least one enemy bullet added
                     SoundManager.playOnce("sound/shoot_enemies.wav");
                 }
+                MOVEMENT_TIME.recordSince(phaseStart);
             }
 
 
+            long phaseStart = System.nanoTime();
             manageCollisions();
+            COLLISIONS_TIME.recordSince(phaseStart);
+            phaseStart = System.nanoTime();
             cleanBullets();
+            CLEAN_BULLETS_TIME.recordSince(phaseStart);
 
             // Item Entity Code
+            phaseStart = System.nanoTime();
             cleanItems();
             manageItemPickups();
+            ITEMS_TIME.recordSince(phaseStart);
 
-            // check active item affects
-            state.updateEffects();
             drawManager.setLastLife(state.getLivesRemaining() == 1);
-		    draw();
 
         if (!sessionHighScoreNotified && this.state.getScore() > this.topScore) {
             sessionHighScoreNotified = true;
             this.highScoreNotified = true;
-            this.highScoreNoticeStartTime = System.currentTimeMillis();
+            this.highScoreNoticeStartTime = Core.currentTimeMillis();
         }
 
             // End condition: formation cleared or TEAM lives exhausted.
             if ((this.enemyShipFormation.isEmpty() || !state.teamAlive()) && !this.levelFinished) {
                 // The object managed by the object pool pattern must be recycled at the end of the level.
+                this.collisionGrid.clear();
                 BulletPool.recycle(this.bullets);
-                this.bullets.removeAll(this.bullets);
-                ItemPool.recycle(items);
-                this.items.removeAll(this.items);
+                ItemPool.recycle(this.items);
 
 			this.levelFinished = true;
-			this.screenFinishedCooldown.reset();
+			this.screenFinishedTimer.reset();
 
 			if(enemyShipFormation.getShipCount() == 0 && state.getBulletsShot() > 0 && state.getBulletsShot() == state.getShipsDestroyed()){
 				achievementManager.unlock("Perfect Shooter");
@@ -395,7 +446,7 @@ public class GameScreen extends Screen {
                 checkAchievement();
 		}
 
-		if (this.levelFinished && this.screenFinishedCooldown.checkFinished()) {
+		if (this.levelFinished && this.screenFinishedTimer.isFinished()) {
 			if (!achievementManager.hasPendingToasts()) {
 				this.isRunning = false;
 			}
@@ -403,15 +454,42 @@ public class GameScreen extends Screen {
 
 		if (this.achievementManager != null) this.achievementManager.update();
 	}
+    }
 
+    /**
+     * Draws the screen, placing moving entities between their last two
+     * simulated positions.
+     *
+     * @param interpolation
+     *            Fraction of a tick elapsed since the last update.
+     */
+    protected final void render(final double interpolation) {
+        draw(interpolation);
+    }
 
-        draw();
+    /**
+     * Stores the positions of every moving entity before they are updated.
+     */
+    private void savePreviousPositions() {
+        for (Ship s : this.ships)
+            if (s != null)
+                s.savePreviousPosition();
+        if (this.enemyShipSpecial != null)
+            this.enemyShipSpecial.savePreviousPosition();
+        for (int i = 0; i < this.bullets.size(); i++)
+            this.bullets.get(i).savePreviousPosition();
+        for (int i = 0; i < this.items.size(); i++)
+            this.items.get(i).savePreviousPosition();
     }
 
     /**
      * Draws the elements associated with the screen.
+     *
+     * @param interpolation
+     *            Fraction of a tick elapsed since the last update.
      */
-    private void draw() {
+    private void draw(final double interpolation) {
+        long drawStart = System.nanoTime();
         drawManager.initDrawing(this);
 
         drawManager.drawExplosions();
@@ -419,23 +497,29 @@ public class GameScreen extends Screen {
 
         for (Ship s : this.ships)
             if (s != null)
-                drawManager.drawEntity(s, s.getPositionX(), s.getPositionY());
+                drawManager.drawEntity(s, s.getInterpolatedX(interpolation),
+                        s.getInterpolatedY(interpolation));
 
         if (this.enemyShipSpecial != null)
             drawManager.drawEntity(this.enemyShipSpecial,
-                    this.enemyShipSpecial.getPositionX(),
-                    this.enemyShipSpecial.getPositionY());
+                    this.enemyShipSpecial.getInterpolatedX(interpolation),
+                    this.enemyShipSpecial.getInterpolatedY(interpolation));
 
+        // The formation moves in discrete steps, so it is not interpolated.
         enemyShipFormation.draw();
 
-        for (Bullet bullet : this.bullets)
-            drawManager.drawEntity(bullet, bullet.getPositionX(),
-                    bullet.getPositionY());
+        for (int i = 0; i < this.bullets.size(); i++) {
+            Bullet bullet = this.bullets.get(i);
+            drawManager.drawEntity(bullet, bullet.getInterpolatedX(interpolation),
+                    bullet.getInterpolatedY(interpolation));
+        }
 
         // draw items
-        for (Item item : this.items)
-            drawManager.drawEntity(item, item.getPositionX(),
-                    item.getPositionY());
+        for (int i = 0; i < this.items.size(); i++) {
+            Item item = this.items.get(i);
+            drawManager.drawEntity(item, item.getInterpolatedX(interpolation),
+                    item.getInterpolatedY(interpolation));
+        }
 
 		// Aggregate UI (team score & team lives)
 		drawManager.drawScore(this, state.getScore());
@@ -460,13 +544,13 @@ public class GameScreen extends Screen {
         drawManager.drawShipCount(this, enemyShipFormation.getShipCount());
 
 		if (!this.inputDelay.checkFinished()) {
-			int countdown = (int) ((INPUT_DELAY - (System.currentTimeMillis() - this.gameStartTime)) / 1000);
+			int countdown = (int) ((INPUT_DELAY - (Core.currentTimeMillis() - this.gameStartTime)) / 1000);
 			drawManager.drawCountDown(this, this.state.getLevel(), countdown, this.bonusLife);
 			drawManager.drawHorizontalLine(this, this.height / 2 - this.height / 12);
 			drawManager.drawHorizontalLine(this, this.height / 2 + this.height / 12);
 		}
         if (this.highScoreNotified &&
-                System.currentTimeMillis() - this.highScoreNoticeStartTime < HIGH_SCORE_NOTICE_DURATION) {
+                Core.currentTimeMillis() - this.highScoreNoticeStartTime < HIGH_SCORE_NOTICE_DURATION) {
             drawManager.drawNewHighScoreNotice(this);
         }
 
@@ -480,7 +564,12 @@ public class GameScreen extends Screen {
 		if(this.isPaused){
 			drawManager.drawPauseOverlay(this);
 		}
+        if (FrameProfiler.isVisible())
+            drawManager.drawProfilerOverlay(this, FrameProfiler.describe(this.bullets.size(),
+                    this.items.size(), this.enemyShipFormation.getShipCount()));
 
+        // Showing the frame is timed apart, as render.completeDrawing.
+        DRAW_TIME.recordSince(drawStart);
         drawManager.completeDrawing(this);
     }
 
@@ -488,50 +577,71 @@ public class GameScreen extends Screen {
      * Cleans bullets that go off screen.
      */
     private void cleanBullets() {
-        Set<Bullet> recyclable = new HashSet<Bullet>();
-        for (Bullet bullet : this.bullets) {
+        // Backwards, as removing swaps the last bullet into the index.
+        for (int i = this.bullets.size() - 1; i >= 0; i--) {
+            Bullet bullet = this.bullets.get(i);
             bullet.update();
             if (bullet.getPositionY() < SEPARATION_LINE_HEIGHT
                     || bullet.getPositionY() > this.height)
-                recyclable.add(bullet);
+                recycleBullet(bullet);
         }
-        this.bullets.removeAll(recyclable);
-        BulletPool.recycle(recyclable);
     }
 
     /**
      * Cleans items that go off screen.
      */
     private void cleanItems() {
-        Set<Item> recyclableItems = new HashSet<Item>();
-        for (Item item : this.items) {
+        for (int i = this.items.size() - 1; i >= 0; i--) {
+            Item item = this.items.get(i);
             item.update();
             if (item.getPositionY() > this.height)
-                recyclableItems.add(item);
+                recycleItem(item);
         }
-        this.items.removeAll(recyclableItems);
-        ItemPool.recycle(recyclableItems);
+    }
+
+    /**
+     * Removes a bullet from the screen and returns it to the pool.
+     *
+     * @param bullet
+     *            Bullet to recycle.
+     */
+    private void recycleBullet(final Bullet bullet) {
+        this.collisionGrid.remove(bullet);
+        this.bullets.remove(bullet);
+        BulletPool.recycle(bullet);
+    }
+
+    /**
+     * Removes an item from the screen and returns it to the pool.
+     *
+     * @param item
+     *            Item to recycle.
+     */
+    private void recycleItem(final Item item) {
+        this.collisionGrid.remove(item);
+        this.items.remove(item);
+        ItemPool.recycle(item);
     }
 
     /**
      * Manages pickups between player and items.
      */
     private void manageItemPickups() {
-        Set<Item> collected = new HashSet<Item>();
-        for (Item item : this.items) {
-
-            for(Ship ship: this.ships) {
-                if(ship == null) continue;
-                if (checkCollision(item, ship) && !collected.contains(item)) {
-                    collected.add(item);
+        for(Ship ship: this.ships) {
+            if(ship == null) continue;
+            this.collisionGrid.query(ship, this.nearbyEntities);
+            for (Entity nearby : this.nearbyEntities) {
+                if (!(nearby instanceof Item)) continue;
+                Item item = (Item) nearby;
+                // Skips items already collected by the other player.
+                if (this.items.contains(item) && checkCollision(item, ship)) {
                     this.logger.info("Player " + ship.getPlayerId() + " picked up item: " + item.getType());
                     SoundManager.playOnce("sound/hover.wav");
                     item.applyEffect(getGameState(), ship.getPlayerId());
+                    recycleItem(item);
                 }
             }
         }
-        this.items.removeAll(collected);
-        ItemPool.recycle(collected);
     }
 
     /**
@@ -539,8 +649,12 @@ public class GameScreen extends Screen {
      * → add score.
      */
     private void manageCollisions() {
-        Set<Bullet> recyclable = new HashSet<Bullet>();
-        for (Bullet bullet : this.bullets) {
+        // Backwards, as removing swaps the last bullet into the index.
+        for (int i = this.bullets.size() - 1; i >= 0; i--) {
+            Bullet bullet = this.bullets.get(i);
+            boolean spent = false;
+            // Bullets fired this tick join the grid here.
+            this.collisionGrid.add(bullet);
             if (bullet.getSpeed() > 0) {
                 // Enemy bullet vs both players
 
@@ -548,7 +662,7 @@ public class GameScreen extends Screen {
                     Ship ship = this.ships[p];
                     if (ship != null && !ship.isDestroyed()
                             && checkCollision(bullet, ship) && !this.levelFinished) {
-                        recyclable.add(bullet);
+                        spent = true;
 
 
                         drawManager.triggerExplosion(ship.getPositionX(), ship.getPositionY(), false, state.getLivesRemaining() == 1);
@@ -576,10 +690,13 @@ public class GameScreen extends Screen {
 
                 boolean finalShip = this.enemyShipFormation.lastShip();
 
-                // Check collision with formation enemies
-                for (EnemyShip enemyShip : this.enemyShipFormation) {
+                // Check collision with formation enemies near the bullet
+                this.collisionGrid.query(bullet, this.nearbyEntities);
+                for (Entity nearby : this.nearbyEntities) {
+                    if (!(nearby instanceof EnemyShip)) continue;
+                    EnemyShip enemyShip = (EnemyShip) nearby;
                     if (!enemyShip.isDestroyed() && checkCollision(bullet, enemyShip)) {
-                        recyclable.add(bullet);
+                        spent = true;
                         enemyShip.hit();
 
                         if (enemyShip.isDestroyed()) {
@@ -594,12 +711,14 @@ public class GameScreen extends Screen {
                             Item drop = engine.ItemManager.getInstance().obtainDrop(enemyShip);
                             if (drop != null) {
                                 this.items.add(drop);
-                                this.logger.info("Spawned " + drop.getType() + " at " + drop.getPositionX() + "," + drop.getPositionY());
+                                this.collisionGrid.add(drop);
+                                if (this.logger.isLoggable(Level.FINE))
+                                    this.logger.fine("Spawned " + drop.getType() + " at " + drop.getPositionX() + "," + drop.getPositionY());
                             }
 
                             this.enemyShipFormation.destroy(enemyShip);
                             SoundManager.playOnce("sound/invaderkilled.wav");
-                            this.logger.info("Hit on enemy ship.");
+                            this.logger.fine("Hit on enemy ship.");
 
                             checkAchievement();
                         }
@@ -621,13 +740,14 @@ public class GameScreen extends Screen {
                     SoundManager.stop();
                     SoundManager.playOnce("sound/explosion.wav");
                     drawManager.triggerExplosion(this.enemyShipSpecial.getPositionX(), this.enemyShipSpecial.getPositionY(), true, true);
-                    this.enemyShipSpecialExplosionCooldown.reset();
-                    recyclable.add(bullet);
+                    this.enemyShipSpecialExplosionTimer.reset();
+                    spent = true;
                 }
             }
+
+            if (spent)
+                recycleBullet(bullet);
         }
-        this.bullets.removeAll(recyclable);
-        BulletPool.recycle(recyclable);
     }
 
     /**
@@ -0,0 +1,21 @@
+package screen;
+
+/**
+ * Drives screens without a window: instead of waiting for real time and
+ * rendering, screens run one update after another as fast as possible, and
+ * the driver prepares each of them.
+ */
+public interface HeadlessDriver {
+
+	/**
+	 * Prepares the next update of a screen, for example advancing the game
+	 * time and scripting the input.
+	 *
+	 * @param screen
+	 *            Screen about to be updated.
+	 * @param tick
+	 *            Number of updates the screen already ran.
+	 * @return False to stop the screen instead.
+	 */
+	boolean beforeUpdate(Screen screen, long tick);
+}
@@ -37,14 +37,9 @@ public class HighScoreScreen extends Screen {
         this.returnCode = 1;
 
         try {
-            this.highScores1P = Core.getFileManager().loadHighScores("1P");
-            this.highScores2P = Core.getFileManager().loadHighScores("2P");
             //상위 7명만 남기기
-            highScores1P.sort((a, b) -> b.getScore() - a.getScore());
-            if (highScores1P.size() > 7) highScores1P = highScores1P.subList(0, 7);
-
-            highScores2P.sort((a, b) -> b.getScore() - a.getScore());
-            if (highScores2P.size() > 7) highScores2P = highScores2P.subList(0, 7);
+            this.highScores1P = Core.getFileManager().loadHighScores("1P", 7);
+            this.highScores2P = Core.getFileManager().loadHighScores("2P", 7);
 
         } catch (NumberFormatException | IOException e) {
             logger.warning("Couldn't load high scores!");
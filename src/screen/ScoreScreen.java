@@ -94,7 +94,7 @@ public class ScoreScreen extends Screen {
         this.mode = gameState.getCoop() ? "2P" : "1P";
 
         try {
-            this.highScores = Core.getFileManager().loadHighScores(this.mode);
+            this.highScores = Core.getFileManager().loadHighScores(this.mode, MAX_HIGH_SCORE_NUM);
             if (highScores.size() < MAX_HIGH_SCORE_NUM
                     || highScores.get(highScores.size() - 1).getScore() < this.score)
                 this.isNewRecord = true;
@@ -186,30 +186,11 @@ public class ScoreScreen extends Screen {
     private void saveScore() {
         String mode = (gameState != null && gameState.isCoop()) ? "2P" : "1P";
         String newName = new String(this.name);
-        Score newScore = new Score(newName, this.gameState, mode);
-        boolean foundAndReplaced = false;
-        for (int i = 0; i < highScores.size(); i++) {
-            Score existingScore = highScores.get(i);
-            if (existingScore.getName().equals(newName)) {
-                if (newScore.getScore() > existingScore.getScore()) {
-                    highScores.set(i, newScore);
-                    foundAndReplaced = true;
-                } else {
-                    foundAndReplaced = true;
-                }
-                break;
-            }
-        }
-        if (!foundAndReplaced) {
-            highScores.add(newScore);
-        }
-        Collections.sort(highScores);
-        if (highScores.size() > MAX_HIGH_SCORE_NUM)
-            highScores.remove(highScores.size() - 1);
+        // The store keeps the best score of each name at the top.
         try {
-            Core.getFileManager().saveHighScores(highScores, mode);
+            Core.getFileManager().saveScore(new Score(newName, this.gameState, mode));
         } catch (IOException e) {
-            logger.warning("Couldn't load high scores!");
+            logger.warning("Couldn't save high scores!");
         }
     }
 
@@ -7,7 +7,9 @@ import java.util.logging.Logger;
 import engine.Cooldown;
 import engine.Core;
 import engine.DrawManager;
+import engine.FrameProfiler;
 import engine.InputManager;
+import engine.Metrics;
 
 /**
  * Implements a generic screen.
@@ -19,6 +21,15 @@ public class Screen {
 
 	/** Milliseconds until the screen accepts user input. */
 	private static final int INPUT_DELAY = 1000;
+	/** Maximum number of updates run to catch up before rendering. */
+	private static final int MAX_CATCH_UP_TICKS = 5;
+	/** Time spent firing expired timers, per update. */
+	private static final Metrics.Histogram TIMERS = Metrics.histogram("update.timers");
+
+	/** Drives every screen without a window, null when running in one. */
+	private static HeadlessDriver headlessDriver;
+	/** Notified before each update in the window, or null. */
+	private static TickListener tickListener;
 
 	/** Draw Manager instance. */
 	protected DrawManager drawManager;
@@ -74,22 +85,54 @@ public class Screen {
 	}
 
 	/**
-	 * Activates the screen.
+	 * Activates the screen. Updates run at a fixed rate of fps ticks per
+	 * second; rendering happens once per loop, after any catch-up ticks.
 	 *
 	 * @return Next screen code.
 	 */
 	public int run() {
 		this.isRunning = true;
 
+		if (headlessDriver != null) {
+			runHeadless();
+			return 0;
+		}
+
+		final long tickNanos = TimeUnit.SECONDS.toNanos(1) / this.fps;
+		long previousTime = System.nanoTime();
+		long previousFrame = previousTime;
+		// Start with a full tick pending so the first update runs at once.
+		long lag = tickNanos;
+
 		while (this.isRunning) {
-			long time = System.currentTimeMillis();
+			long currentTime = System.nanoTime();
+			lag += currentTime - previousTime;
+			previousTime = currentTime;
+
+			// Drops the time we cannot catch up with instead of spiralling.
+			lag = Math.min(lag, MAX_CATCH_UP_TICKS * tickNanos);
+			while (lag >= tickNanos && this.isRunning) {
+				this.inputManager.latchKeys();
+				if (tickListener != null)
+					tickListener.beforeUpdate(this);
+				long timersStart = System.nanoTime();
+				Core.getTimerWheel().advance();
+				TIMERS.recordSince(timersStart);
+				update();
+				lag -= tickNanos;
+			}
 
-			update();
+			if (this.isRunning) {
+				render((double) lag / tickNanos);
+				long frameTime = System.nanoTime();
+				FrameProfiler.frameRendered(frameTime - previousFrame);
+				previousFrame = frameTime;
+			}
 
-			time = (1000 / this.fps) - (System.currentTimeMillis() - time);
-			if (time > 0) {
+			long sleepNanos = tickNanos - lag - (System.nanoTime() - currentTime);
+			if (sleepNanos > 0) {
 				try {
-					TimeUnit.MILLISECONDS.sleep(time);
+					TimeUnit.NANOSECONDS.sleep(sleepNanos);
 				} catch (InterruptedException e) {
 					return 0;
 				}
@@ -99,12 +142,59 @@ public class Screen {
 		return 0;
 	}
 
+	/**
+	 * Runs updates back to back through the headless driver, never
+	 * rendering nor sleeping.
+	 */
+	private void runHeadless() {
+		long tick = 0;
+		while (this.isRunning) {
+			if (!headlessDriver.beforeUpdate(this, tick++)) {
+				this.isRunning = false;
+				break;
+			}
+			long timersStart = System.nanoTime();
+			Core.getTimerWheel().advance();
+			TIMERS.recordSince(timersStart);
+			update();
+		}
+	}
+
+	/**
+	 * Sets the driver running screens without a window.
+	 *
+	 * @param driver
+	 *            Headless driver, or null to run in the window again.
+	 */
+	public static void setHeadlessDriver(final HeadlessDriver driver) {
+		headlessDriver = driver;
+	}
+
+	/**
+	 * Sets the listener notified before each update in the window.
+	 *
+	 * @param listener
+	 *            Tick listener, or null for none.
+	 */
+	public static void setTickListener(final TickListener listener) {
+		tickListener = listener;
+	}
+
 	/**
 	 * Updates the elements on screen and checks for events.
 	 */
 	protected void update() {
 	}
 
+	/**
+	 * Draws the screen between updates.
+	 *
+	 * @param interpolation
+	 *            Fraction of a tick elapsed since the last update, in [0, 1).
+	 */
+	protected void render(final double interpolation) {
+	}
+
 	/**
 	 * Getter for screen width.
 	 *
@@ -0,0 +1,16 @@
+package screen;
+
+/**
+ * Notified before each update of a screen running in the window, with the
+ * input of the update already latched.
+ */
+public interface TickListener {
+
+	/**
+	 * Called before each update.
+	 *
+	 * @param screen
+	 *            Screen about to be updated.
+	 */
+	void beforeUpdate(Screen screen);
+}